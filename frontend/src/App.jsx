@@ -49,8 +49,9 @@ async function api(path, options = {}) {
     }
     
     const ct = res.headers.get('content-type') || '';
-    if (ct.includes('application/json')) return res.json();
-    return res.text();
+    const body = ct.includes('application/json') ? await res.json() : await res.text();
+    if (options.paged) return { data: body, nextCursor: res.headers.get('X-Next-Cursor') };
+    return body;
   } catch (error) {
     if (error.name === 'TypeError' && error.message.includes('fetch')) {
       throw new Error('Network error. Please check your connection.');
@@ -59,6 +60,19 @@ async function api(path, options = {}) {
   }
 }
 
+// Catalog endpoints are keyset-paginated; follow X-Next-Cursor until the last page
+async function apiAllPages(path) {
+  const all = [];
+  let cursor = null;
+  do {
+    const sep = path.includes('?') ? '&' : '?';
+    const page = await api(`${path}${sep}limit=200${cursor ? `&cursor=${encodeURIComponent(cursor)}` : ''}`, { paged: true });
+    if (Array.isArray(page.data)) all.push(...page.data);
+    cursor = page.nextCursor;
+  } while (cursor);
+  return all;
+}
+
 function Header() {
   const isAuthed = !!getToken();
   const username = getUsername();
@@ -476,7 +490,7 @@ function Dashboard() {
     setLoading(true); 
     setError('');
     try {
-      const data = await api('/api/sweets' + (params.toString() ? `/search?${params}` : ''));
+      const data = await apiAllPages('/api/sweets' + (params.toString() ? `/search?${params}` : ''));
       const sweetsData = Array.isArray(data) ? data : [];
       setSweets(sweetsData);
       
@@ -21,6 +21,7 @@ public class CorsConfig {
                     )
                     .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                     .allowedHeaders("*")
+                    .exposedHeaders("X-Next-Cursor", "ETag")
                     .allowCredentials(true);
             }
         };
@@ -0,0 +1,36 @@
+package com.sweetshop.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Meters on top of Boot's defaults (HTTP requests, JVM, Hikari pool): a timer per method of the
+// @Timed services and the SQL statement count per request. Histogram buckets and the Prometheus
+// endpoint are configured in application.properties.
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer statementCountingCustomizer() {
+		return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, SqlStatementMetricsFilter.INSPECTOR);
+	}
+
+	// Runs ahead of the security chain so token-version lookups are counted too
+	@Bean
+	public FilterRegistrationBean<SqlStatementMetricsFilter> sqlStatementMetricsFilter(MeterRegistry meterRegistry) {
+		FilterRegistrationBean<SqlStatementMetricsFilter> registration =
+				new FilterRegistrationBean<>(new SqlStatementMetricsFilter(meterRegistry));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+}
@@ -2,7 +2,11 @@ package com.sweetshop.config;
 
 import com.sweetshop.security.JwtAuthenticationFilter;
 import com.sweetshop.security.JwtService;
+import com.sweetshop.security.UserAuthCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -56,16 +60,19 @@ public class SecurityConfig {
     ));
 
     configuration.setAllowedMethods(List.of("GET","POST","PUT","DELETE","OPTIONS"));
-    configuration.setAllowedHeaders(List.of("Authorization","Content-Type"));
+    // Conditional requests: If-Match for versioned updates, If-None-Match for catalog snapshots
+    configuration.setAllowedHeaders(List.of("Authorization","Content-Type","If-Match","If-None-Match"));
+    configuration.setExposedHeaders(List.of("X-Next-Cursor", "ETag"));
     configuration.setAllowCredentials(true);
 
     UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
     source.registerCorsConfiguration("/**", configuration);
     return source;
     }
+	// Work factor is log2 rounds; raising it only affects new hashes, existing ones keep their own
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(@Value("${app.security.password.bcrypt-strength:10}") int strength) {
+		return new BCryptPasswordEncoder(strength);
 	}
 
 	@Bean
@@ -74,8 +81,11 @@ public class SecurityConfig {
 	}
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
-        return new JwtAuthenticationFilter(jwtService, userDetailsService);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
+            UserAuthCache userAuthCache, MeterRegistry meterRegistry) {
+        Timer parseTimer = Timer.builder("jwt.parse").description("Bearer token signature check and claims parse")
+                .register(meterRegistry);
+        return new JwtAuthenticationFilter(jwtService, userDetailsService, userAuthCache, parseTimer);
     }
 }
 
@@ -0,0 +1,52 @@
+package com.sweetshop.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Records how many SQL statements Hibernate prepared while serving each request, tagged with the
+// route template, so N+1 patterns show up as a distribution rather than in the SQL log. Counting
+// is a thread-local increment per statement; work handed to other threads is not attributed.
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+	private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+	// Registered with Hibernate; sees every statement before it is prepared and leaves it unchanged
+	public static final StatementInspector INSPECTOR = sql -> {
+		int[] count = STATEMENTS.get();
+		if (count != null) count[0]++;
+		return sql;
+	};
+
+	private final MeterRegistry meterRegistry;
+
+	public SqlStatementMetricsFilter(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		int[] count = new int[1];
+		STATEMENTS.set(count);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			STATEMENTS.remove();
+			Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			DistributionSummary.builder("http.server.requests.statements")
+					.description("SQL statements issued per request")
+					.tag("method", request.getMethod())
+					.tag("uri", route == null ? "UNKNOWN" : route.toString())
+					.register(meterRegistry)
+					.record(count[0]);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.SalesPoint;
+import com.sweetshop.dto.SalesRanking;
+import com.sweetshop.service.SalesAnalytics;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+// Sales time series and top-N rankings from in-memory aggregates (admins only)
+@RestController
+@RequestMapping("/api/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+
+	private final SalesAnalytics salesAnalytics;
+
+	public AnalyticsController(SalesAnalytics salesAnalytics) {
+		this.salesAnalytics = salesAnalytics;
+	}
+
+    // Units and revenue per minute/hour/day, oldest first, for one sweet, one category or the whole shop
+    @GetMapping("/sales")
+	public ResponseEntity<List<SalesPoint>> sales(@RequestParam(name = "granularity", defaultValue = "hour") String granularity,
+			@RequestParam(name = "points", defaultValue = "24") int points,
+			@RequestParam(name = "sweetId", required = false) Long sweetId,
+			@RequestParam(name = "category", required = false) String category) {
+		if (sweetId != null && category != null) {
+			throw new IllegalArgumentException("Pass either sweetId or category, not both");
+		}
+		return ResponseEntity.ok(salesAnalytics.series(parse(SalesAnalytics.Granularity.class, "granularity", granularity),
+				points, sweetId, category));
+	}
+
+    // Best sellers over the last `points` buckets, by units or revenue
+    @GetMapping("/top")
+	public ResponseEntity<List<SalesRanking>> top(@RequestParam(name = "granularity", defaultValue = "day") String granularity,
+			@RequestParam(name = "points", defaultValue = "7") int points,
+			@RequestParam(name = "dimension", defaultValue = "sweet") String dimension,
+			@RequestParam(name = "by", defaultValue = "revenue") String by,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
+		if (limit > 100) throw new IllegalArgumentException("Limit must be between 1 and 100");
+		return ResponseEntity.ok(salesAnalytics.top(parse(SalesAnalytics.Granularity.class, "granularity", granularity), points,
+				parse(SalesAnalytics.Dimension.class, "dimension", dimension), parse(SalesAnalytics.Metric.class, "by", by), limit));
+	}
+
+	private static <E extends Enum<E>> E parse(Class<E> type, String name, String value) {
+		try {
+			return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			String allowed = Arrays.stream(type.getEnumConstants())
+					.map(c -> c.name().toLowerCase(Locale.ROOT))
+					.collect(Collectors.joining(", "));
+			throw new IllegalArgumentException(name + " must be one of: " + allowed);
+		}
+	}
+}
@@ -3,11 +3,15 @@ package com.sweetshop.controller;
 import com.sweetshop.dto.AuthResponse;
 import com.sweetshop.dto.LoginRequest;
 import com.sweetshop.dto.RegisterRequest;
+import com.sweetshop.dto.UsernameAvailability;
 import com.sweetshop.entity.User;
 import com.sweetshop.security.JwtService;
+import com.sweetshop.security.LoginThrottle;
 import com.sweetshop.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 // Exposes authentication endpoints for registration and login
@@ -17,27 +21,44 @@ public class AuthController {
 
 	private final UserService userService;
 	private final JwtService jwtService;
+	private final LoginThrottle loginThrottle;
 
-	public AuthController(UserService userService, JwtService jwtService) {
+	public AuthController(UserService userService, JwtService jwtService, LoginThrottle loginThrottle) {
 		this.userService = userService;
 		this.jwtService = jwtService;
+		this.loginThrottle = loginThrottle;
 	}
 
     // Create a new account and issue a JWT so the user can proceed immediately
     @PostMapping("/register")
 	public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
 		User user = userService.registerNewUser(request);
-		String token = jwtService.generateToken(user.getUsername());
+		String token = jwtService.generateToken(user.getUsername(), user.getRole().name(), user.getTokenVersion());
 		return ResponseEntity.ok(new AuthResponse(token, user.getUsername(), user.getRole().name()));
 	}
 
-    // Verify credentials and issue a JWT
+    // Verify credentials and issue a JWT; throttled clients get 429 before any lookup or hashing
     @PostMapping("/login")
-	public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-		User user = userService.authenticate(request);
-		String token = jwtService.generateToken(user.getUsername());
+	public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+		loginThrottle.check(request.getUsernameOrEmail(), httpRequest.getRemoteAddr());
+		User user;
+		try {
+			user = userService.authenticate(request);
+		} catch (UsernameNotFoundException | IllegalArgumentException e) {
+			loginThrottle.recordFailure(request.getUsernameOrEmail());
+			throw e;
+		}
+		loginThrottle.recordSuccess(request.getUsernameOrEmail());
+		String token = jwtService.generateToken(user.getUsername(), user.getRole().name(), user.getTokenVersion());
 		return ResponseEntity.ok(new AuthResponse(token, user.getUsername(), user.getRole().name()));
 	}
-}
-
 
+    // Live check for the sign-up form; names no one has are answered without touching the database
+    @GetMapping("/username-available")
+	public ResponseEntity<UsernameAvailability> usernameAvailable(@RequestParam(name = "username") String username) {
+		if (username.isBlank() || username.length() < 3 || username.length() > 100) {
+			throw new IllegalArgumentException("Username must be 3 to 100 characters");
+		}
+		return ResponseEntity.ok(new UsernameAvailability(username, userService.isUsernameAvailable(username)));
+	}
+}
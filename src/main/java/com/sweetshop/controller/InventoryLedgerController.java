@@ -0,0 +1,57 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.InventoryMovementResponse;
+import com.sweetshop.dto.StockLevel;
+import com.sweetshop.entity.InventoryMovement;
+import com.sweetshop.service.InventoryLedger;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+// Audit endpoints over the inventory ledger (admins only)
+@RestController
+@RequestMapping("/api/sweets/{id}")
+@PreAuthorize("hasRole('ADMIN')")
+public class InventoryLedgerController {
+
+	private static final int MAX_PAGE_SIZE = 200;
+
+	private final InventoryLedger inventoryLedger;
+
+	public InventoryLedgerController(InventoryLedger inventoryLedger) {
+		this.inventoryLedger = inventoryLedger;
+	}
+
+    // Stock movements newest first; the id to pass as "before" for the next page is in X-Next-Cursor
+    @GetMapping("/movements")
+	public ResponseEntity<List<InventoryMovementResponse>> movements(@PathVariable(name = "id") Long id,
+			@RequestParam(name = "before", required = false) Long before,
+			@RequestParam(name = "limit", defaultValue = "50") int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		List<InventoryMovement> page = inventoryLedger.movements(id, before, limit);
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+		if (page.size() == limit) {
+			builder.header(SweetController.NEXT_CURSOR_HEADER, page.get(limit - 1).getId().toString());
+		}
+		return builder.body(page.stream().map(InventoryMovementResponse::new).collect(Collectors.toList()));
+	}
+
+    // Stock as of an ISO-8601 instant (default now), rebuilt from the ledger rather than the sweets table
+    @GetMapping("/stock")
+	public ResponseEntity<StockLevel> stockAt(@PathVariable(name = "id") Long id,
+			@RequestParam(name = "at", required = false) String at) {
+		Instant instant;
+		try {
+			instant = at == null || at.isBlank() ? Instant.now() : Instant.parse(at);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("at must be an ISO-8601 instant, e.g. 2024-05-01T10:15:30Z");
+		}
+		return ResponseEntity.ok(new StockLevel(id, instant, inventoryLedger.stockAt(id, instant)));
+	}
+}
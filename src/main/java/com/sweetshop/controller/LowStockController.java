@@ -0,0 +1,65 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.LowStockItem;
+import com.sweetshop.service.LowStockWatcher;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+// Low-stock list and reorder thresholds (admins only)
+@RestController
+@RequestMapping("/api/sweets/low-stock")
+@PreAuthorize("hasRole('ADMIN')")
+public class LowStockController {
+
+	private static final int MAX_PAGE_SIZE = 200;
+
+	private final LowStockWatcher lowStockWatcher;
+
+	public LowStockController(LowStockWatcher lowStockWatcher) {
+		this.lowStockWatcher = lowStockWatcher;
+	}
+
+    // Sweets at or below their reorder threshold, the furthest below first
+    @GetMapping
+	public ResponseEntity<List<LowStockItem>> lowStock(@RequestParam(name = "limit", defaultValue = "50") int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		return ResponseEntity.ok(lowStockWatcher.lowStock(limit));
+	}
+
+    // Set the threshold of one sweet or of a whole category; a sweet's own threshold wins
+    @PutMapping("/thresholds")
+	public ResponseEntity<Void> setThreshold(@RequestParam(name = "sweetId", required = false) Long sweetId,
+			@RequestParam(name = "category", required = false) String category,
+			@RequestParam(name = "threshold") int threshold) {
+		if (target(sweetId, category)) {
+			lowStockWatcher.setSweetThreshold(sweetId, threshold);
+		} else {
+			lowStockWatcher.setCategoryThreshold(category, threshold);
+		}
+		return ResponseEntity.noContent().build();
+	}
+
+    // Drop a threshold; the sweet falls back to its category's, then to app.low-stock.default-threshold
+    @DeleteMapping("/thresholds")
+	public ResponseEntity<Void> clearThreshold(@RequestParam(name = "sweetId", required = false) Long sweetId,
+			@RequestParam(name = "category", required = false) String category) {
+		if (target(sweetId, category)) {
+			lowStockWatcher.clearSweetThreshold(sweetId);
+		} else {
+			lowStockWatcher.clearCategoryThreshold(category);
+		}
+		return ResponseEntity.noContent().build();
+	}
+
+	// True for a sweet, false for a category
+	private static boolean target(Long sweetId, String category) {
+		if ((sweetId == null) == (category == null)) {
+			throw new IllegalArgumentException("Pass either sweetId or category");
+		}
+		return sweetId != null;
+	}
+}
@@ -0,0 +1,57 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.CheckoutRequest;
+import com.sweetshop.dto.OrderResponse;
+import com.sweetshop.dto.SweetResponse;
+import com.sweetshop.service.OrderHistory;
+import com.sweetshop.service.SweetMapper;
+import com.sweetshop.service.SweetService;
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+// Endpoints for buying several sweets in one request and reading back past orders
+@RestController
+@RequestMapping("/api/orders")
+public class OrderController {
+
+	private final SweetService sweetService;
+	private final OrderHistory orderHistory;
+
+	public OrderController(SweetService sweetService, OrderHistory orderHistory) {
+		this.sweetService = sweetService;
+		this.orderHistory = orderHistory;
+	}
+
+    // Reserve every basket line in one transaction; any short line fails the whole basket
+    @PostMapping("/checkout")
+	public ResponseEntity<List<SweetResponse>> checkout(@Valid @RequestBody CheckoutRequest request) {
+		List<SweetResponse> list = sweetService.checkout(request.getItems())
+				.stream().map(SweetMapper::toResponse).collect(Collectors.toList());
+		return ResponseEntity.ok(list);
+	}
+
+    // The caller's orders newest first; the next page's cursor is in X-Next-Cursor
+    @GetMapping("/me")
+	public ResponseEntity<List<OrderResponse>> myOrders(Authentication authentication,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "limit", defaultValue = "20") int limit) {
+		OrderHistory.Page page = orderHistory.history(authentication.getName(), cursor, limit);
+		List<OrderResponse> list = page.items().stream().map(OrderController::toResponse).collect(Collectors.toList());
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+		if (page.nextCursor() != null) {
+			builder.header(SweetController.NEXT_CURSOR_HEADER, page.nextCursor());
+		}
+		return builder.body(list);
+	}
+
+	private static OrderResponse toResponse(OrderHistory.Entry entry) {
+		List<OrderResponse.Line> lines = entry.lines().stream()
+				.map(l -> new OrderResponse.Line(l.getSweetId(), l.getSweetName(), l.getUnitPrice(), l.getQuantity()))
+				.collect(Collectors.toList());
+		return new OrderResponse(entry.order().getId(), entry.order().getCreatedAt(), entry.order().getTotal(), lines);
+	}
+}
@@ -1,62 +1,163 @@
 package com.sweetshop.controller;
 
+import com.sweetshop.dto.BulkRestockRequest;
+import com.sweetshop.dto.BulkUpdateResult;
+import com.sweetshop.dto.ImportResult;
+import com.sweetshop.dto.PriceChangeRequest;
 import com.sweetshop.dto.SweetRequest;
 import com.sweetshop.dto.SweetResponse;
 import com.sweetshop.entity.Sweet;
+import com.sweetshop.service.CatalogChangeStream;
+import com.sweetshop.service.CatalogExportService;
+import com.sweetshop.service.CatalogSnapshots;
+import com.sweetshop.service.SweetBulkUpdateService;
+import com.sweetshop.service.SweetImportService;
 import com.sweetshop.service.SweetMapper;
+import com.sweetshop.service.SweetPage;
 import com.sweetshop.service.SweetService;
+import com.sweetshop.service.SweetSort;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 // Endpoints for browsing and managing sweets (admin-restricted where noted)
 @RestController
 @RequestMapping("/api/sweets")
 public class SweetController {
 
+	static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	private static final int DEFAULT_PAGE_SIZE = 50;
+
 	private final SweetService sweetService;
+	private final CatalogSnapshots catalogSnapshots;
+	private final CatalogExportService catalogExportService;
+	private final SweetImportService sweetImportService;
+	private final SweetBulkUpdateService sweetBulkUpdateService;
+	private final CatalogChangeStream catalogChangeStream;
 
-	public SweetController(SweetService sweetService) {
+	public SweetController(SweetService sweetService, CatalogSnapshots catalogSnapshots,
+			CatalogExportService catalogExportService, SweetImportService sweetImportService,
+			SweetBulkUpdateService sweetBulkUpdateService, CatalogChangeStream catalogChangeStream) {
 		this.sweetService = sweetService;
+		this.catalogSnapshots = catalogSnapshots;
+		this.catalogExportService = catalogExportService;
+		this.sweetImportService = sweetImportService;
+		this.sweetBulkUpdateService = sweetBulkUpdateService;
+		this.catalogChangeStream = catalogChangeStream;
 	}
 
     // Add a new sweet (admins only)
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
 	public ResponseEntity<SweetResponse> create(@Valid @RequestBody SweetRequest request) {
-		Sweet saved = sweetService.create(request);
-		return ResponseEntity.ok(SweetMapper.toResponse(saved));
+		return versioned(sweetService.create(request));
+	}
+
+    // Bulk add/overwrite sweets from a JSON array, matched by name; invalid rows are reported, not fatal (admins only)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<ImportResult> importJson(HttpServletRequest request) throws IOException {
+		return ResponseEntity.ok(sweetImportService.importJson(request.getInputStream()));
 	}
 
-    // List all sweets for the catalog view
+    // Same as above for a CSV upload with a name,category,price,quantity header (admins only)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = "text/csv")
+	public ResponseEntity<ImportResult> importCsv(HttpServletRequest request) throws IOException {
+		return ResponseEntity.ok(sweetImportService.importCsv(request.getInputStream()));
+	}
+
+    // List the catalog one keyset page at a time; the next page's cursor is in X-Next-Cursor.
+    // Served from a pre-encoded snapshot with a strong ETag, so unchanged polls get a bodiless 304.
     @GetMapping
-	public ResponseEntity<List<SweetResponse>> listAll() {
-		List<SweetResponse> list = sweetService.listAll().stream().map(SweetMapper::toResponse).collect(Collectors.toList());
-		return ResponseEntity.ok(list);
+	public ResponseEntity<byte[]> listAll(
+			@RequestParam(name = "sort", required = false) String sort,
+			@RequestParam(name = "direction", defaultValue = "asc") String direction,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		if (limit < 1 || limit > SweetService.MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + SweetService.MAX_PAGE_SIZE);
+		}
+		CatalogSnapshots.Snapshot snapshot = catalogSnapshots.get(new CatalogSnapshots.Key(
+				SweetSort.from(sort), isDescending(direction), cursor == null || cursor.isBlank() ? null : cursor, limit));
+		boolean gzipped = snapshot.getGzip() != null && acceptsGzip(acceptEncoding);
+		boolean notModified = snapshot.matches(ifNoneMatch);
+		ResponseEntity.BodyBuilder builder = notModified ? ResponseEntity.status(HttpStatus.NOT_MODIFIED) : ResponseEntity.ok();
+		builder.eTag(snapshot.etag(gzipped)).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (snapshot.getNextCursor() != null) {
+			builder.header(NEXT_CURSOR_HEADER, snapshot.getNextCursor());
+		}
+		if (notModified) {
+			return builder.build();
+		}
+		if (gzipped) {
+			builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return builder.contentType(MediaType.APPLICATION_JSON).body(gzipped ? snapshot.getGzip() : snapshot.getJson());
 	}
 
-    // Search by optional criteria (name/category/price range)
+    // Stream the whole catalog (ndjson or csv) for bulk syncs; rows are written as they are read
+    @GetMapping("/export")
+	public void export(@RequestParam(name = "format", defaultValue = "ndjson") String format,
+			HttpServletResponse response) throws IOException {
+		CatalogExportService.Format exportFormat = CatalogExportService.Format.from(format);
+		response.setContentType(exportFormat.contentType());
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				"attachment; filename=\"sweets." + exportFormat.name().toLowerCase(Locale.ROOT) + "\"");
+		catalogExportService.export(exportFormat, response.getOutputStream());
+	}
+
+    // Server-Sent Events of committed catalog changes: "changed" carries a sweet's latest state
+    // (coalesced per sweet, at most one per tick) and "deleted" its id
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter stream() {
+		return catalogChangeStream.subscribe();
+	}
+
+    // Search by optional criteria (name/category/price range), best matches first unless sorted
     @GetMapping("/search")
 	public ResponseEntity<List<SweetResponse>> search(
 			@RequestParam(name = "name", required = false) String name,
 			@RequestParam(name = "category", required = false) String category,
 			@RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
-			@RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice) {
-		List<SweetResponse> list = sweetService.search(name, category, minPrice, maxPrice)
-				.stream().map(SweetMapper::toResponse).collect(Collectors.toList());
-		return ResponseEntity.ok(list);
+			@RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
+			@RequestParam(name = "sort", required = false) String sort,
+			@RequestParam(name = "direction", defaultValue = "asc") String direction,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+		return toPageResponse(sweetService.page(name, category, minPrice, maxPrice,
+				SweetSort.from(sort, SweetSort.RELEVANCE), isDescending(direction), cursor, limit));
 	}
 
-    // Update details (admins only)
+    // One sweet; the ETag carries its version for a later conditional PUT
+    @GetMapping("/{id}")
+    public ResponseEntity<SweetResponse> get(@PathVariable(name = "id") Long id) {
+		return versioned(sweetService.get(id));
+	}
+
+    // Update details (admins only). With If-Match the write only applies to that version (412 otherwise);
+    // without it, concurrent writes are retried from a fresh read.
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping("/{id}")
-    public ResponseEntity<SweetResponse> update(@PathVariable(name = "id") Long id, @Valid @RequestBody SweetRequest request) {
-		Sweet updated = sweetService.update(id, request);
-		return ResponseEntity.ok(SweetMapper.toResponse(updated));
+    public ResponseEntity<SweetResponse> update(@PathVariable(name = "id") Long id, @Valid @RequestBody SweetRequest request,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		return versioned(sweetService.update(id, request, expectedVersion(ifMatch)));
 	}
 
     // Remove a sweet from catalog (admins only)
@@ -70,17 +171,75 @@ public class SweetController {
     // Purchase decrements quantity by one
     @PostMapping("/{id}/purchase")
     public ResponseEntity<SweetResponse> purchase(@PathVariable(name = "id") Long id) {
-		Sweet s = sweetService.purchase(id);
-		return ResponseEntity.ok(SweetMapper.toResponse(s));
+		return versioned(sweetService.purchase(id));
 	}
 
     // Restock increments the quantity (admins only)
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping("/{id}/restock")
     public ResponseEntity<SweetResponse> restock(@PathVariable(name = "id") Long id, @RequestParam(name = "qty") int qty) {
-		Sweet s = sweetService.restock(id, qty);
-		return ResponseEntity.ok(SweetMapper.toResponse(s));
+		return versioned(sweetService.restock(id, qty));
 	}
-}
 
+    // Apply many restock deltas in one transaction (admins only)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/restock")
+	public ResponseEntity<BulkUpdateResult> restockAll(@Valid @RequestBody BulkRestockRequest request) {
+		return ResponseEntity.ok(sweetBulkUpdateService.restock(request.getItems()));
+	}
+
+    // Set or adjust by percentage the price of listed sweets or a whole category (admins only)
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/prices")
+	public ResponseEntity<BulkUpdateResult> changePrices(@Valid @RequestBody PriceChangeRequest request) {
+		return ResponseEntity.ok(sweetBulkUpdateService.changePrices(request));
+	}
+
+	private ResponseEntity<SweetResponse> versioned(Sweet sweet) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+		if (sweet.getVersion() != null) {
+			builder.eTag("\"" + sweet.getVersion() + "\"");
+		}
+		return builder.body(SweetMapper.toResponse(sweet));
+	}
+
+	// Accepts a single strong ETag as issued by this controller, or * for "any version"
+	private Long expectedVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+		String tag = ifMatch.trim();
+		if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+			try {
+				return Long.parseLong(tag.substring(1, tag.length() - 1));
+			} catch (NumberFormatException ignored) {
+				// fall through
+			}
+		}
+		throw new IllegalArgumentException("If-Match must be a single ETag from this API, e.g. \"3\"");
+	}
+
+	private ResponseEntity<List<SweetResponse>> toPageResponse(SweetPage page) {
+		List<SweetResponse> list = page.getItems().stream().map(SweetMapper::toResponse).collect(Collectors.toList());
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+		if (page.getNextCursor() != null) {
+			builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+		}
+		return builder.body(list);
+	}
 
+	private boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) return false;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			if (parts[0].trim().equalsIgnoreCase("gzip")) {
+				return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+
+	private boolean isDescending(String direction) {
+		if ("desc".equalsIgnoreCase(direction)) return true;
+		if ("asc".equalsIgnoreCase(direction)) return false;
+		throw new IllegalArgumentException("Direction must be asc or desc");
+	}
+}
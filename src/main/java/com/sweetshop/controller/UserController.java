@@ -0,0 +1,27 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.entity.Role;
+import com.sweetshop.service.UserService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+// Account administration (admins only)
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+	private final UserService userService;
+
+	public UserController(UserService userService) {
+		this.userService = userService;
+	}
+
+    // Change a user's role; tokens issued before the change stop working
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/{username}/role")
+    public ResponseEntity<Void> changeRole(@PathVariable(name = "username") String username, @RequestParam(name = "role") Role role) {
+		userService.changeRole(username, role);
+		return ResponseEntity.noContent().build();
+	}
+}
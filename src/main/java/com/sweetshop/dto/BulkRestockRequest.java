@@ -0,0 +1,16 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BulkRestockRequest {
+
+	@NotEmpty
+	@Size(max = 1000)
+	private List<@Valid RestockItem> items;
+
+	public List<RestockItem> getItems() { return items; }
+	public void setItems(List<RestockItem> items) { this.items = items; }
+}
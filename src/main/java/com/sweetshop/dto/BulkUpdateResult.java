@@ -0,0 +1,21 @@
+package com.sweetshop.dto;
+
+import java.util.List;
+
+public class BulkUpdateResult {
+	private int updated;
+	private List<Long> missingIds;
+
+	public BulkUpdateResult() {}
+
+	public BulkUpdateResult(int updated, List<Long> missingIds) {
+		this.updated = updated;
+		this.missingIds = missingIds;
+	}
+
+	public int getUpdated() { return updated; }
+	public void setUpdated(int updated) { this.updated = updated; }
+
+	public List<Long> getMissingIds() { return missingIds; }
+	public void setMissingIds(List<Long> missingIds) { this.missingIds = missingIds; }
+}
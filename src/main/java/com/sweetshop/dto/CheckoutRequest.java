@@ -0,0 +1,16 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class CheckoutRequest {
+
+	@NotEmpty
+	@Size(max = 100)
+	private List<@Valid CheckoutItem> items;
+
+	public List<CheckoutItem> getItems() { return items; }
+	public void setItems(List<CheckoutItem> items) { this.items = items; }
+}
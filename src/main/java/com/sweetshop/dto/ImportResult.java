@@ -0,0 +1,43 @@
+package com.sweetshop.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportResult {
+	private int inserted;
+	private int updated;
+	private int failed;
+	// Only the first few failures are listed; failed has the full count
+	private List<RowError> errors = new ArrayList<>();
+
+	public int getInserted() { return inserted; }
+	public void setInserted(int inserted) { this.inserted = inserted; }
+
+	public int getUpdated() { return updated; }
+	public void setUpdated(int updated) { this.updated = updated; }
+
+	public int getFailed() { return failed; }
+	public void setFailed(int failed) { this.failed = failed; }
+
+	public List<RowError> getErrors() { return errors; }
+	public void setErrors(List<RowError> errors) { this.errors = errors; }
+
+	public static class RowError {
+		// 1-based position of the record in the upload (header excluded)
+		private long row;
+		private String message;
+
+		public RowError() {}
+
+		public RowError(long row, String message) {
+			this.row = row;
+			this.message = message;
+		}
+
+		public long getRow() { return row; }
+		public void setRow(long row) { this.row = row; }
+
+		public String getMessage() { return message; }
+		public void setMessage(String message) { this.message = message; }
+	}
+}
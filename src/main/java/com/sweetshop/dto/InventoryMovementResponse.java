@@ -0,0 +1,42 @@
+package com.sweetshop.dto;
+
+import com.sweetshop.entity.InventoryMovement;
+import java.time.Instant;
+
+public class InventoryMovementResponse {
+	private Long id;
+	private String kind;
+	private int quantityChange;
+	private int quantityAfter;
+	private String username;
+	private Instant occurredAt;
+
+	public InventoryMovementResponse() {}
+
+	public InventoryMovementResponse(InventoryMovement movement) {
+		this.id = movement.getId();
+		this.kind = movement.getKind().name();
+		this.quantityChange = movement.getQuantityChange();
+		this.quantityAfter = movement.getQuantityAfter();
+		this.username = movement.getUsername();
+		this.occurredAt = movement.getOccurredAt();
+	}
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public String getKind() { return kind; }
+	public void setKind(String kind) { this.kind = kind; }
+
+	public int getQuantityChange() { return quantityChange; }
+	public void setQuantityChange(int quantityChange) { this.quantityChange = quantityChange; }
+
+	public int getQuantityAfter() { return quantityAfter; }
+	public void setQuantityAfter(int quantityAfter) { this.quantityAfter = quantityAfter; }
+
+	public String getUsername() { return username; }
+	public void setUsername(String username) { this.username = username; }
+
+	public Instant getOccurredAt() { return occurredAt; }
+	public void setOccurredAt(Instant occurredAt) { this.occurredAt = occurredAt; }
+}
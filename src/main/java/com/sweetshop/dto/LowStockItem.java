@@ -0,0 +1,34 @@
+package com.sweetshop.dto;
+
+public class LowStockItem {
+	private Long sweetId;
+	private String name;
+	private String category;
+	private int quantity;
+	private int threshold;
+
+	public LowStockItem() {}
+
+	public LowStockItem(Long sweetId, String name, String category, int quantity, int threshold) {
+		this.sweetId = sweetId;
+		this.name = name;
+		this.category = category;
+		this.quantity = quantity;
+		this.threshold = threshold;
+	}
+
+	public Long getSweetId() { return sweetId; }
+	public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+	public String getName() { return name; }
+	public void setName(String name) { this.name = name; }
+
+	public String getCategory() { return category; }
+	public void setCategory(String category) { this.category = category; }
+
+	public int getQuantity() { return quantity; }
+	public void setQuantity(int quantity) { this.quantity = quantity; }
+
+	public int getThreshold() { return threshold; }
+	public void setThreshold(int threshold) { this.threshold = threshold; }
+}
@@ -0,0 +1,61 @@
+package com.sweetshop.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+public class OrderResponse {
+	private Long id;
+	private Instant createdAt;
+	private BigDecimal total;
+	private List<Line> lines;
+
+	public static class Line {
+		private Long sweetId;
+		private String name;
+		private BigDecimal unitPrice;
+		private int quantity;
+
+		public Line() {}
+
+		public Line(Long sweetId, String name, BigDecimal unitPrice, int quantity) {
+			this.sweetId = sweetId;
+			this.name = name;
+			this.unitPrice = unitPrice;
+			this.quantity = quantity;
+		}
+
+		public Long getSweetId() { return sweetId; }
+		public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+		public String getName() { return name; }
+		public void setName(String name) { this.name = name; }
+
+		public BigDecimal getUnitPrice() { return unitPrice; }
+		public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+		public int getQuantity() { return quantity; }
+		public void setQuantity(int quantity) { this.quantity = quantity; }
+	}
+
+	public OrderResponse() {}
+
+	public OrderResponse(Long id, Instant createdAt, BigDecimal total, List<Line> lines) {
+		this.id = id;
+		this.createdAt = createdAt;
+		this.total = total;
+		this.lines = lines;
+	}
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public Instant getCreatedAt() { return createdAt; }
+	public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+	public BigDecimal getTotal() { return total; }
+	public void setTotal(BigDecimal total) { this.total = total; }
+
+	public List<Line> getLines() { return lines; }
+	public void setLines(List<Line> lines) { this.lines = lines; }
+}
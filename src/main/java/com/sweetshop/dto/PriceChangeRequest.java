@@ -0,0 +1,37 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.util.List;
+
+// Reprice either the listed sweets or a whole category: set a new price or adjust by a percentage
+public class PriceChangeRequest {
+
+	public enum Mode { ABSOLUTE, PERCENT }
+
+	@NotNull
+	private Mode mode;
+
+	// New price for ABSOLUTE; signed percentage (e.g. -10 for 10% off) for PERCENT
+	@NotNull
+	private BigDecimal value;
+
+	@Size(max = 80)
+	private String category;
+
+	@Size(max = 1000)
+	private List<@NotNull Long> sweetIds;
+
+	public Mode getMode() { return mode; }
+	public void setMode(Mode mode) { this.mode = mode; }
+
+	public BigDecimal getValue() { return value; }
+	public void setValue(BigDecimal value) { this.value = value; }
+
+	public String getCategory() { return category; }
+	public void setCategory(String category) { this.category = category; }
+
+	public List<Long> getSweetIds() { return sweetIds; }
+	public void setSweetIds(List<Long> sweetIds) { this.sweetIds = sweetIds; }
+}
@@ -0,0 +1,27 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class RestockItem {
+
+	@NotNull
+	private Long sweetId;
+
+	@NotNull
+	@Min(1)
+	private Integer quantity;
+
+	public RestockItem() {}
+
+	public RestockItem(Long sweetId, Integer quantity) {
+		this.sweetId = sweetId;
+		this.quantity = quantity;
+	}
+
+	public Long getSweetId() { return sweetId; }
+	public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+	public Integer getQuantity() { return quantity; }
+	public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
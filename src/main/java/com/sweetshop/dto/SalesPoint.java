@@ -0,0 +1,27 @@
+package com.sweetshop.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class SalesPoint {
+	private Instant start;
+	private long units;
+	private BigDecimal revenue;
+
+	public SalesPoint() {}
+
+	public SalesPoint(Instant start, long units, BigDecimal revenue) {
+		this.start = start;
+		this.units = units;
+		this.revenue = revenue;
+	}
+
+	public Instant getStart() { return start; }
+	public void setStart(Instant start) { this.start = start; }
+
+	public long getUnits() { return units; }
+	public void setUnits(long units) { this.units = units; }
+
+	public BigDecimal getRevenue() { return revenue; }
+	public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+}
@@ -0,0 +1,32 @@
+package com.sweetshop.dto;
+
+import java.math.BigDecimal;
+
+// One entry of a top-N list; id is null when ranking categories
+public class SalesRanking {
+	private Long id;
+	private String name;
+	private long units;
+	private BigDecimal revenue;
+
+	public SalesRanking() {}
+
+	public SalesRanking(Long id, String name, long units, BigDecimal revenue) {
+		this.id = id;
+		this.name = name;
+		this.units = units;
+		this.revenue = revenue;
+	}
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public String getName() { return name; }
+	public void setName(String name) { this.name = name; }
+
+	public long getUnits() { return units; }
+	public void setUnits(long units) { this.units = units; }
+
+	public BigDecimal getRevenue() { return revenue; }
+	public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+}
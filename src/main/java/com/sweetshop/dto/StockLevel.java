@@ -0,0 +1,26 @@
+package com.sweetshop.dto;
+
+import java.time.Instant;
+
+public class StockLevel {
+	private Long sweetId;
+	private Instant at;
+	private int quantity;
+
+	public StockLevel() {}
+
+	public StockLevel(Long sweetId, Instant at, int quantity) {
+		this.sweetId = sweetId;
+		this.at = at;
+		this.quantity = quantity;
+	}
+
+	public Long getSweetId() { return sweetId; }
+	public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+	public Instant getAt() { return at; }
+	public void setAt(Instant at) { this.at = at; }
+
+	public int getQuantity() { return quantity; }
+	public void setQuantity(int quantity) { this.quantity = quantity; }
+}
@@ -8,6 +8,7 @@ public class SweetResponse {
 	private String category;
 	private BigDecimal price;
 	private Integer quantity;
+	private Long version;
 
 	public Long getId() { return id; }
 	public void setId(Long id) { this.id = id; }
@@ -23,6 +24,9 @@ public class SweetResponse {
 
 	public Integer getQuantity() { return quantity; }
 	public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+	public Long getVersion() { return version; }
+	public void setVersion(Long version) { this.version = version; }
 }
 
 
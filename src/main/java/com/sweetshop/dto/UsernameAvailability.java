@@ -0,0 +1,19 @@
+package com.sweetshop.dto;
+
+public class UsernameAvailability {
+	private String username;
+	private boolean available;
+
+	public UsernameAvailability() {}
+
+	public UsernameAvailability(String username, boolean available) {
+		this.username = username;
+		this.available = available;
+	}
+
+	public String getUsername() { return username; }
+	public void setUsername(String username) { this.username = username; }
+
+	public boolean isAvailable() { return available; }
+	public void setAvailable(boolean available) { this.available = available; }
+}
@@ -0,0 +1,62 @@
+package com.sweetshop.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// One append-only entry of the inventory ledger. Rows are written in JDBC batches by
+// InventoryLedger and never updated; the entity only defines the table and its indexes.
+@Entity
+@Table(name = "inventory_movements", indexes = {
+		@Index(name = "idx_movements_sweet_id", columnList = "sweet_id, id")
+})
+public class InventoryMovement {
+
+	// PURCHASE and RESTOCK are relative; ADJUSTMENT sets the balance (create, edit, import)
+	public enum Kind { PURCHASE, RESTOCK, ADJUSTMENT }
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "sweet_id", nullable = false)
+	private Long sweetId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 20)
+	private Kind kind;
+
+	@Column(nullable = false)
+	private int quantityChange;
+
+	// Stock right after this movement, as seen by the writing transaction
+	@Column(nullable = false)
+	private int quantityAfter;
+
+	// Null for system writes (scheduled jobs, unauthenticated contexts)
+	@Column(length = 100)
+	private String username;
+
+	@Column(nullable = false)
+	private Instant occurredAt;
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public Long getSweetId() { return sweetId; }
+	public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+	public Kind getKind() { return kind; }
+	public void setKind(Kind kind) { this.kind = kind; }
+
+	public int getQuantityChange() { return quantityChange; }
+	public void setQuantityChange(int quantityChange) { this.quantityChange = quantityChange; }
+
+	public int getQuantityAfter() { return quantityAfter; }
+	public void setQuantityAfter(int quantityAfter) { this.quantityAfter = quantityAfter; }
+
+	public String getUsername() { return username; }
+	public void setUsername(String username) { this.username = username; }
+
+	public Instant getOccurredAt() { return occurredAt; }
+	public void setOccurredAt(Instant occurredAt) { this.occurredAt = occurredAt; }
+}
@@ -0,0 +1,44 @@
+package com.sweetshop.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// Folded balance of a sweet's ledger up to and including lastMovementId. Compaction appends a new
+// row per touched sweet, so older snapshots stay available for point-in-time reads.
+@Entity
+@Table(name = "inventory_snapshots", indexes = {
+		@Index(name = "idx_snapshots_sweet_taken", columnList = "sweet_id, taken_at")
+})
+public class InventorySnapshot {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "sweet_id", nullable = false)
+	private Long sweetId;
+
+	@Column(nullable = false)
+	private int quantity;
+
+	@Column(nullable = false)
+	private long lastMovementId;
+
+	@Column(name = "taken_at", nullable = false)
+	private Instant takenAt;
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public Long getSweetId() { return sweetId; }
+	public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+	public int getQuantity() { return quantity; }
+	public void setQuantity(int quantity) { this.quantity = quantity; }
+
+	public long getLastMovementId() { return lastMovementId; }
+	public void setLastMovementId(long lastMovementId) { this.lastMovementId = lastMovementId; }
+
+	public Instant getTakenAt() { return takenAt; }
+	public void setTakenAt(Instant takenAt) { this.takenAt = takenAt; }
+}
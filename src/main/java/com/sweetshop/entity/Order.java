@@ -0,0 +1,39 @@
+package com.sweetshop.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// One completed purchase or checkout. Written in JDBC batches by OrderHistory, never updated.
+// The (username, created_at, id, total) index serves a page of history without touching the table.
+@Entity(name = "CustomerOrder")
+@Table(name = "orders", indexes = {
+		@Index(name = "idx_orders_user_created", columnList = "username, created_at, id, total")
+})
+public class Order {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, length = 100)
+	private String username;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+
+	@Column(nullable = false, precision = 12, scale = 2)
+	private BigDecimal total;
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public String getUsername() { return username; }
+	public void setUsername(String username) { this.username = username; }
+
+	public Instant getCreatedAt() { return createdAt; }
+	public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+	public BigDecimal getTotal() { return total; }
+	public void setTotal(BigDecimal total) { this.total = total; }
+}
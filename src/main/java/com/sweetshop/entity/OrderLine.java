@@ -0,0 +1,50 @@
+package com.sweetshop.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+// A sweet within an order. Name and price are copied at purchase time so history survives later
+// catalog edits and deletes.
+@Entity
+@Table(name = "order_lines", indexes = {
+		@Index(name = "idx_order_lines_order", columnList = "order_id")
+})
+public class OrderLine {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "order_id", nullable = false)
+	private Long orderId;
+
+	@Column(nullable = false)
+	private Long sweetId;
+
+	@Column(nullable = false, length = 120)
+	private String sweetName;
+
+	@Column(nullable = false, precision = 10, scale = 2)
+	private BigDecimal unitPrice;
+
+	@Column(nullable = false)
+	private int quantity;
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public Long getOrderId() { return orderId; }
+	public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+	public Long getSweetId() { return sweetId; }
+	public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+	public String getSweetName() { return sweetName; }
+	public void setSweetName(String sweetName) { this.sweetName = sweetName; }
+
+	public BigDecimal getUnitPrice() { return unitPrice; }
+	public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+	public int getQuantity() { return quantity; }
+	public void setQuantity(int quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,39 @@
+package com.sweetshop.entity;
+
+import jakarta.persistence.*;
+
+// Stock level at or below which a sweet counts as low: set either for one sweet or for a whole
+// category (stored lower-cased). A sweet's own threshold wins over its category's.
+@Entity
+@Table(name = "reorder_thresholds", uniqueConstraints = {
+		@UniqueConstraint(name = "uk_reorder_thresholds_sweet", columnNames = "sweet_id"),
+		@UniqueConstraint(name = "uk_reorder_thresholds_category", columnNames = "category")
+})
+public class ReorderThreshold {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	// Exactly one of sweetId and category is set
+	@Column(name = "sweet_id")
+	private Long sweetId;
+
+	@Column(length = 80)
+	private String category;
+
+	@Column(nullable = false)
+	private int threshold;
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public Long getSweetId() { return sweetId; }
+	public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+	public String getCategory() { return category; }
+	public void setCategory(String category) { this.category = category; }
+
+	public int getThreshold() { return threshold; }
+	public void setThreshold(int threshold) { this.threshold = threshold; }
+}
@@ -0,0 +1,51 @@
+package com.sweetshop.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Units and revenue of one sweet over one clock hour, persisted by SalesAnalytics so its in-memory
+// hour and day series survive restarts. Recent hours are rewritten on each persist.
+@Entity
+@Table(name = "sales_rollups", indexes = {
+		@Index(name = "idx_sales_rollups_hour", columnList = "hour_start")
+})
+public class SalesRollup {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "sweet_id", nullable = false)
+	private Long sweetId;
+
+	@Column(nullable = false, length = 80)
+	private String category;
+
+	@Column(name = "hour_start", nullable = false)
+	private Instant hourStart;
+
+	@Column(nullable = false)
+	private long units;
+
+	@Column(nullable = false, precision = 14, scale = 2)
+	private BigDecimal revenue;
+
+	public Long getId() { return id; }
+	public void setId(Long id) { this.id = id; }
+
+	public Long getSweetId() { return sweetId; }
+	public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+	public String getCategory() { return category; }
+	public void setCategory(String category) { this.category = category; }
+
+	public Instant getHourStart() { return hourStart; }
+	public void setHourStart(Instant hourStart) { this.hourStart = hourStart; }
+
+	public long getUnits() { return units; }
+	public void setUnits(long units) { this.units = units; }
+
+	public BigDecimal getRevenue() { return revenue; }
+	public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+}
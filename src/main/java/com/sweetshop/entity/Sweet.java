@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "sweets")
+// Composite (key, id) indexes back keyset pagination for each supported sort
+@Table(name = "sweets", indexes = {
+		@Index(name = "idx_sweets_name_id", columnList = "name, id"),
+		@Index(name = "idx_sweets_category_id", columnList = "category, id"),
+		@Index(name = "idx_sweets_price_id", columnList = "price, id")
+})
 public class Sweet {
 
 	@Id
@@ -23,6 +28,11 @@ public class Sweet {
 	@Column(nullable = false)
 	private Integer quantity;
 
+	// Bumped by every write, including the set-based UPDATEs, so stale admin edits are detected
+	@Version
+	@Column(nullable = false)
+	private Long version;
+
 	public Long getId() { return id; }
 	public void setId(Long id) { this.id = id; }
 
@@ -37,6 +47,9 @@ public class Sweet {
 
 	public Integer getQuantity() { return quantity; }
 	public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+	public Long getVersion() { return version; }
+	public void setVersion(Long version) { this.version = version; }
 }
 
 
@@ -23,6 +23,10 @@ public class User {
 	@Column(nullable = false, length = 20)
 	private Role role = Role.USER;
 
+	// Bumped whenever the role changes so tokens issued before the change stop being accepted
+	@Column(nullable = false)
+	private int tokenVersion;
+
 	public Long getId() { return id; }
 	public void setId(Long id) { this.id = id; }
 
@@ -37,6 +41,9 @@ public class User {
 
 	public Role getRole() { return role; }
 	public void setRole(Role role) { this.role = role; }
+
+	public int getTokenVersion() { return tokenVersion; }
+	public void setTokenVersion(int tokenVersion) { this.tokenVersion = tokenVersion; }
 }
 
 
@@ -3,6 +3,8 @@ package com.sweetshop.exception;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -42,11 +44,39 @@ public class GlobalExceptionHandler {
 		return error(HttpStatus.UNAUTHORIZED, ex.getMessage());
 	}
 
+	@ExceptionHandler(PreconditionFailedException.class)
+	public ResponseEntity<Object> handlePreconditionFailed(PreconditionFailedException ex) {
+		return error(HttpStatus.PRECONDITION_FAILED, ex.getMessage());
+	}
+
+	// Retries were exhausted on a version conflict; the client may re-read and try again
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<Object> handleConflict(OptimisticLockingFailureException ex) {
+		return error(HttpStatus.CONFLICT, "Sweet was modified concurrently, please retry");
+	}
+
+	@ExceptionHandler(ServiceBusyException.class)
+	public ResponseEntity<Object> handleBusy(ServiceBusyException ex) {
+		return retryLater(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex.getRetryAfterSeconds());
+	}
+
+	@ExceptionHandler(TooManyRequestsException.class)
+	public ResponseEntity<Object> handleTooManyRequests(TooManyRequestsException ex) {
+		return retryLater(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), ex.getRetryAfterSeconds());
+	}
+
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<Object> handleGeneric(Exception ex) {
 		return error(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error");
 	}
 
+	private ResponseEntity<Object> retryLater(HttpStatus status, String message, long retryAfterSeconds) {
+		ResponseEntity<Object> response = error(status, message);
+		return ResponseEntity.status(status)
+				.header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+				.body(response.getBody());
+	}
+
 	private ResponseEntity<Object> error(HttpStatus status, String message) {
 		Map<String, Object> body = new HashMap<>();
 		body.put("timestamp", Instant.now().toString());
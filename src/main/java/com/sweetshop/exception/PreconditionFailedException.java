@@ -0,0 +1,9 @@
+package com.sweetshop.exception;
+
+// Thrown when a conditional request's If-Match no longer matches the resource (HTTP 412)
+public class PreconditionFailedException extends RuntimeException {
+
+	public PreconditionFailedException(String message) {
+		super(message);
+	}
+}
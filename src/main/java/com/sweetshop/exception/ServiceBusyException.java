@@ -0,0 +1,14 @@
+package com.sweetshop.exception;
+
+// Thrown when a bounded resource is saturated and the request should be retried later (HTTP 503)
+public class ServiceBusyException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public ServiceBusyException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,14 @@
+package com.sweetshop.exception;
+
+// Thrown when a client exceeds a rate limit (HTTP 429)
+public class TooManyRequestsException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public TooManyRequestsException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,128 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.entity.InventoryMovement;
+import com.sweetshop.entity.InventorySnapshot;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Plain JDBC access to the inventory ledger tables. Movements are append-only and go in one JDBC
+// batch per flush; snapshots are appended by compaction. Callers own the transaction.
+@Repository
+public class InventoryLedgerStore {
+
+	private static final String INSERT_MOVEMENT = "INSERT INTO inventory_movements"
+			+ " (sweet_id, kind, quantity_change, quantity_after, username, occurred_at) VALUES (?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_SNAPSHOT = "INSERT INTO inventory_snapshots"
+			+ " (sweet_id, quantity, last_movement_id, taken_at) VALUES (?, ?, ?, ?)";
+	private static final String MOVEMENT_COLUMNS = "id, sweet_id, kind, quantity_change, quantity_after, username, occurred_at";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+	public InventoryLedgerStore(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	public void append(List<InventoryMovement> movements) {
+		if (movements.isEmpty()) return;
+		List<Object[]> args = new ArrayList<>(movements.size());
+		for (InventoryMovement m : movements) {
+			args.add(new Object[] { m.getSweetId(), m.getKind().name(), m.getQuantityChange(), m.getQuantityAfter(),
+					m.getUsername(), Timestamp.from(m.getOccurredAt()) });
+		}
+		jdbcTemplate.batchUpdate(INSERT_MOVEMENT, args);
+	}
+
+	public void appendSnapshots(List<InventorySnapshot> snapshots) {
+		if (snapshots.isEmpty()) return;
+		List<Object[]> args = new ArrayList<>(snapshots.size());
+		for (InventorySnapshot s : snapshots) {
+			args.add(new Object[] { s.getSweetId(), s.getQuantity(), s.getLastMovementId(), Timestamp.from(s.getTakenAt()) });
+		}
+		jdbcTemplate.batchUpdate(INSERT_SNAPSHOT, args);
+	}
+
+	// Newest first, strictly older than beforeId when given
+	public List<InventoryMovement> findMovements(Long sweetId, Long beforeId, int limit) {
+		return jdbcTemplate.query("SELECT " + MOVEMENT_COLUMNS + " FROM inventory_movements WHERE sweet_id = ? AND id < ?"
+				+ " ORDER BY id DESC LIMIT ?", this::mapMovement, sweetId, beforeId == null ? Long.MAX_VALUE : beforeId, limit);
+	}
+
+	// Movements of one sweet after a snapshot, up to a point in time, in append order
+	public List<InventoryMovement> findTail(Long sweetId, long afterId, Instant at) {
+		return jdbcTemplate.query("SELECT " + MOVEMENT_COLUMNS + " FROM inventory_movements"
+				+ " WHERE sweet_id = ? AND id > ? AND occurred_at <= ? ORDER BY id",
+				this::mapMovement, sweetId, afterId, Timestamp.from(at));
+	}
+
+	// Every movement in (afterId, upToId] in append order, streamed so compaction holds no result list
+	public void forEachMovement(long afterId, long upToId, Consumer<InventoryMovement> action) {
+		jdbcTemplate.query("SELECT " + MOVEMENT_COLUMNS + " FROM inventory_movements WHERE id > ? AND id <= ? ORDER BY id",
+				rs -> { action.accept(mapMovement(rs, 0)); }, afterId, upToId);
+	}
+
+	// Latest snapshot of a sweet taken no later than the given time
+	public InventorySnapshot findSnapshot(Long sweetId, Instant at) {
+		List<InventorySnapshot> found = jdbcTemplate.query("SELECT id, sweet_id, quantity, last_movement_id, taken_at"
+				+ " FROM inventory_snapshots WHERE sweet_id = ? AND taken_at <= ? ORDER BY taken_at DESC, id DESC LIMIT 1",
+				this::mapSnapshot, sweetId, Timestamp.from(at));
+		return found.isEmpty() ? null : found.get(0);
+	}
+
+	// Latest snapshot quantity per sweet, for the given sweets that have one
+	public Map<Long, Integer> findLatestQuantities(Collection<Long> sweetIds) {
+		Map<Long, Integer> quantities = new HashMap<>();
+		if (sweetIds.isEmpty()) return quantities;
+		namedJdbcTemplate.query("SELECT s.sweet_id, s.quantity FROM inventory_snapshots s WHERE s.id IN"
+				+ " (SELECT MAX(id) FROM inventory_snapshots WHERE sweet_id IN (:ids) GROUP BY sweet_id)",
+				new MapSqlParameterSource("ids", sweetIds),
+				rs -> { quantities.put(rs.getLong(1), rs.getInt(2)); });
+		return quantities;
+	}
+
+	// Highest movement folded into any snapshot; compaction always covers a contiguous id range
+	public long findCompactedUpTo() {
+		Long id = jdbcTemplate.queryForObject("SELECT MAX(last_movement_id) FROM inventory_snapshots", Long.class);
+		return id == null ? 0 : id;
+	}
+
+	public long findLastMovementId() {
+		Long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM inventory_movements", Long.class);
+		return id == null ? 0 : id;
+	}
+
+	private InventoryMovement mapMovement(ResultSet rs, int row) throws SQLException {
+		InventoryMovement m = new InventoryMovement();
+		m.setId(rs.getLong(1));
+		m.setSweetId(rs.getLong(2));
+		m.setKind(InventoryMovement.Kind.valueOf(rs.getString(3)));
+		m.setQuantityChange(rs.getInt(4));
+		m.setQuantityAfter(rs.getInt(5));
+		m.setUsername(rs.getString(6));
+		m.setOccurredAt(rs.getTimestamp(7).toInstant());
+		return m;
+	}
+
+	private InventorySnapshot mapSnapshot(ResultSet rs, int row) throws SQLException {
+		InventorySnapshot s = new InventorySnapshot();
+		s.setId(rs.getLong(1));
+		s.setSweetId(rs.getLong(2));
+		s.setQuantity(rs.getInt(3));
+		s.setLastMovementId(rs.getLong(4));
+		s.setTakenAt(rs.getTimestamp(5).toInstant());
+		return s;
+	}
+}
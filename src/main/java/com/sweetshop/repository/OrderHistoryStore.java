@@ -0,0 +1,105 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.entity.Order;
+import com.sweetshop.entity.OrderLine;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Plain JDBC access to order history: orders and their lines are inserted in JDBC batches (order
+// ids come back as generated keys), and history is read one keyset page at a time. Callers own
+// the transaction.
+@Repository
+public class OrderHistoryStore {
+
+	private static final String INSERT_ORDER = "INSERT INTO orders (username, created_at, total) VALUES (?, ?, ?)";
+	private static final String INSERT_LINE = "INSERT INTO order_lines"
+			+ " (order_id, sweet_id, sweet_name, unit_price, quantity) VALUES (?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+	public OrderHistoryStore(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	// Inserts in one JDBC batch and sets the generated ids on the given orders
+	public void insertOrders(List<Order> orders) {
+		if (orders.isEmpty()) return;
+		jdbcTemplate.execute((Connection con) -> {
+			try (PreparedStatement ps = con.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS)) {
+				for (Order order : orders) {
+					ps.setString(1, order.getUsername());
+					ps.setTimestamp(2, Timestamp.from(order.getCreatedAt()));
+					ps.setBigDecimal(3, order.getTotal());
+					ps.addBatch();
+				}
+				ps.executeBatch();
+				try (ResultSet keys = ps.getGeneratedKeys()) {
+					int i = 0;
+					while (keys.next() && i < orders.size()) {
+						orders.get(i++).setId(keys.getLong(1));
+					}
+					if (i != orders.size()) {
+						throw new IllegalStateException("Driver returned " + i + " keys for " + orders.size() + " inserts");
+					}
+				}
+			}
+			return null;
+		});
+	}
+
+	public void insertLines(List<OrderLine> lines) {
+		if (lines.isEmpty()) return;
+		List<Object[]> args = new ArrayList<>(lines.size());
+		for (OrderLine line : lines) {
+			args.add(new Object[] { line.getOrderId(), line.getSweetId(), line.getSweetName(), line.getUnitPrice(), line.getQuantity() });
+		}
+		jdbcTemplate.batchUpdate(INSERT_LINE, args);
+	}
+
+	// A user's orders newest first, strictly after the (createdAt, id) of the previous page's last order
+	public List<Order> findOrders(String username, Instant beforeCreatedAt, Long beforeId, int limit) {
+		String sql = "SELECT id, username, created_at, total FROM orders WHERE username = ?"
+				+ (beforeId == null ? "" : " AND (created_at < ? OR (created_at = ? AND id < ?))")
+				+ " ORDER BY created_at DESC, id DESC LIMIT ?";
+		Object[] args = beforeId == null
+				? new Object[] { username, limit }
+				: new Object[] { username, Timestamp.from(beforeCreatedAt), Timestamp.from(beforeCreatedAt), beforeId, limit };
+		return jdbcTemplate.query(sql, (rs, row) -> {
+			Order order = new Order();
+			order.setId(rs.getLong(1));
+			order.setUsername(rs.getString(2));
+			order.setCreatedAt(rs.getTimestamp(3).toInstant());
+			order.setTotal(rs.getBigDecimal(4));
+			return order;
+		}, args);
+	}
+
+	// Lines of the given orders in one IN query, in insertion order
+	public List<OrderLine> findLines(Collection<Long> orderIds) {
+		if (orderIds.isEmpty()) return List.of();
+		return namedJdbcTemplate.query("SELECT id, order_id, sweet_id, sweet_name, unit_price, quantity FROM order_lines"
+				+ " WHERE order_id IN (:ids) ORDER BY id", new MapSqlParameterSource("ids", orderIds), (rs, row) -> {
+			OrderLine line = new OrderLine();
+			line.setId(rs.getLong(1));
+			line.setOrderId(rs.getLong(2));
+			line.setSweetId(rs.getLong(3));
+			line.setSweetName(rs.getString(4));
+			line.setUnitPrice(rs.getBigDecimal(5));
+			line.setQuantity(rs.getInt(6));
+			return line;
+		});
+	}
+}
@@ -0,0 +1,10 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.entity.ReorderThreshold;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReorderThresholdRepository extends JpaRepository<ReorderThreshold, Long> {
+	Optional<ReorderThreshold> findBySweetId(Long sweetId);
+	Optional<ReorderThreshold> findByCategory(String category);
+}
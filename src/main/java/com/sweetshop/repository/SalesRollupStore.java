@@ -0,0 +1,48 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.entity.SalesRollup;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Plain JDBC access to hourly sales rollups. Callers own the transaction.
+@Repository
+public class SalesRollupStore {
+
+	private static final String INSERT = "INSERT INTO sales_rollups (sweet_id, category, hour_start, units, revenue)"
+			+ " VALUES (?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public SalesRollupStore(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public List<SalesRollup> findSince(Instant from) {
+		return jdbcTemplate.query("SELECT id, sweet_id, category, hour_start, units, revenue FROM sales_rollups"
+				+ " WHERE hour_start >= ? ORDER BY hour_start", (rs, row) -> {
+			SalesRollup rollup = new SalesRollup();
+			rollup.setId(rs.getLong(1));
+			rollup.setSweetId(rs.getLong(2));
+			rollup.setCategory(rs.getString(3));
+			rollup.setHourStart(rs.getTimestamp(4).toInstant());
+			rollup.setUnits(rs.getLong(5));
+			rollup.setRevenue(rs.getBigDecimal(6));
+			return rollup;
+		}, Timestamp.from(from));
+	}
+
+	// Replaces every rollup from the given hour on with the given rows, in one JDBC batch
+	public void replaceFrom(Instant from, List<SalesRollup> rollups) {
+		jdbcTemplate.update("DELETE FROM sales_rollups WHERE hour_start >= ?", Timestamp.from(from));
+		if (rollups.isEmpty()) return;
+		List<Object[]> args = new ArrayList<>(rollups.size());
+		for (SalesRollup r : rollups) {
+			args.add(new Object[] { r.getSweetId(), r.getCategory(), Timestamp.from(r.getHourStart()), r.getUnits(), r.getRevenue() });
+		}
+		jdbcTemplate.batchUpdate(INSERT, args);
+	}
+}
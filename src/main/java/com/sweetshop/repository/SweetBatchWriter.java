@@ -0,0 +1,101 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.entity.Sweet;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Plain JDBC batches for bulk catalog writes. Sweet ids are IDENTITY columns, which stops Hibernate
+// from batching inserts at all, so bulk paths bypass the entity manager. Callers own the transaction
+// and must publish change events themselves.
+@Repository
+public class SweetBatchWriter {
+
+	private static final String INSERT = "INSERT INTO sweets (name, category, price, quantity, version) VALUES (?, ?, ?, ?, 0)";
+	private static final String ADD_STOCK = "UPDATE sweets SET quantity = quantity + ?, version = version + 1 WHERE id = ?";
+	private static final String UPDATE = "UPDATE sweets SET name = ?, category = ?, price = ?, quantity = ?, version = version + 1 WHERE id = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+	public SweetBatchWriter(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	// Lowest id per exact name, for matching imported rows to existing sweets
+	public Map<String, Long> findIdsByName(Collection<String> names) {
+		Map<String, Long> ids = new HashMap<>();
+		if (names.isEmpty()) return ids;
+		namedJdbcTemplate.query("SELECT id, name FROM sweets WHERE name IN (:names)",
+				new MapSqlParameterSource("names", names),
+				rs -> { ids.merge(rs.getString(2), rs.getLong(1), Math::min); });
+		return ids;
+	}
+
+	// Inserts in one JDBC batch and sets the generated ids and initial version on the given sweets
+	public void insert(List<Sweet> sweets) {
+		if (sweets.isEmpty()) return;
+		for (Sweet sweet : sweets) sweet.setVersion(0L);
+		jdbcTemplate.execute((Connection con) -> {
+			try (PreparedStatement ps = con.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+				for (Sweet sweet : sweets) {
+					ps.setString(1, sweet.getName());
+					ps.setString(2, sweet.getCategory());
+					ps.setBigDecimal(3, sweet.getPrice());
+					ps.setInt(4, sweet.getQuantity());
+					ps.addBatch();
+				}
+				ps.executeBatch();
+				try (ResultSet keys = ps.getGeneratedKeys()) {
+					int i = 0;
+					while (keys.next() && i < sweets.size()) {
+						sweets.get(i++).setId(keys.getLong(1));
+					}
+					if (i != sweets.size()) {
+						throw new IllegalStateException("Driver returned " + i + " keys for " + sweets.size() + " inserts");
+					}
+				}
+			}
+			return null;
+		});
+	}
+
+	// Overwrites every column of existing sweets (matched by id) in one JDBC batch, then reads the
+	// bumped versions back onto the given sweets; the rows stay locked until the caller commits
+	public void update(List<Sweet> sweets) {
+		if (sweets.isEmpty()) return;
+		List<Object[]> args = new ArrayList<>(sweets.size());
+		Map<Long, Sweet> byId = new HashMap<>();
+		for (Sweet sweet : sweets) {
+			args.add(new Object[] { sweet.getName(), sweet.getCategory(), sweet.getPrice(), sweet.getQuantity(), sweet.getId() });
+			byId.put(sweet.getId(), sweet);
+		}
+		jdbcTemplate.batchUpdate(UPDATE, args);
+		namedJdbcTemplate.query("SELECT id, version FROM sweets WHERE id IN (:ids)",
+				new MapSqlParameterSource("ids", byId.keySet()),
+				rs -> { byId.get(rs.getLong(1)).setVersion(rs.getLong(2)); });
+	}
+
+	// Adds each delta to its sweet's quantity in one JDBC batch. Pass ids in a stable order so
+	// concurrent batches lock rows alike. Update counts are not returned: with rewritten batches
+	// MySQL may only report SUCCESS_NO_INFO.
+	public void addStock(List<Map.Entry<Long, Integer>> deltas) {
+		if (deltas.isEmpty()) return;
+		List<Object[]> args = new ArrayList<>(deltas.size());
+		for (Map.Entry<Long, Integer> delta : deltas) {
+			args.add(new Object[] { delta.getValue(), delta.getKey() });
+		}
+		jdbcTemplate.batchUpdate(ADD_STOCK, args);
+	}
+}
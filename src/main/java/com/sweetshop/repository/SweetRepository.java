@@ -2,19 +2,43 @@ package com.sweetshop.repository;
 
 import com.sweetshop.entity.Sweet;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface SweetRepository extends JpaRepository<Sweet, Long> {
+public interface SweetRepository extends JpaRepository<Sweet, Long>, JpaSpecificationExecutor<Sweet> {
 
-	@Query("SELECT s FROM Sweet s WHERE (:name IS NULL OR LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND (:category IS NULL OR LOWER(s.category) LIKE LOWER(CONCAT('%', :category, '%'))) AND (:minPrice IS NULL OR s.price >= :minPrice) AND (:maxPrice IS NULL OR s.price <= :maxPrice)")
-	List<Sweet> search(
-			@Param("name") String name,
-			@Param("category") String category,
-			@Param("minPrice") BigDecimal minPrice,
-			@Param("maxPrice") BigDecimal maxPrice);
-}
+	// Atomically take qty units if enough stock remains; returns 0 when the row is missing or short
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Sweet s SET s.quantity = s.quantity - :qty, s.version = s.version + 1 WHERE s.id = :id AND s.quantity >= :qty")
+	int decrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+	List<Sweet> findByCategory(String category);
+
+	@Query("SELECT s.id FROM Sweet s WHERE s.id IN :ids")
+	List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 
+	// Set-based repricing for bulk admin changes; callers reload the affected rows afterwards
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Sweet s SET s.price = :price, s.version = s.version + 1 WHERE s.id IN :ids")
+	int setPrice(@Param("ids") Collection<Long> ids, @Param("price") BigDecimal price);
 
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Sweet s SET s.price = :price, s.version = s.version + 1 WHERE s.category = :category")
+	int setCategoryPrice(@Param("category") String category, @Param("price") BigDecimal price);
+
+	// Multiply by factor, rounded to cents and never below one cent
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Sweet s SET s.price = CASE WHEN ROUND(s.price * :factor, 2) < 0.01 THEN 0.01"
+			+ " ELSE ROUND(s.price * :factor, 2) END, s.version = s.version + 1 WHERE s.id IN :ids")
+	int scalePrice(@Param("ids") Collection<Long> ids, @Param("factor") BigDecimal factor);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Sweet s SET s.price = CASE WHEN ROUND(s.price * :factor, 2) < 0.01 THEN 0.01"
+			+ " ELSE ROUND(s.price * :factor, 2) END, s.version = s.version + 1 WHERE s.category = :category")
+	int scaleCategoryPrice(@Param("category") String category, @Param("factor") BigDecimal factor);
+}
@@ -0,0 +1,46 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.entity.Sweet;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+// Criteria building blocks for catalog listing: the optional search filters and the keyset
+// "rows after this cursor" predicate used for stable pagination on (sort key, id)
+public final class SweetSpecifications {
+
+	private SweetSpecifications() {}
+
+	// Case-insensitive contains on name/category and an inclusive price range; null means "any"
+	public static Specification<Sweet> matches(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+		return (root, query, cb) -> {
+			List<Predicate> predicates = new ArrayList<>();
+			if (name != null) predicates.add(containsIgnoreCase(cb, root.get("name"), name));
+			if (category != null) predicates.add(containsIgnoreCase(cb, root.get("category"), category));
+			if (minPrice != null) predicates.add(cb.greaterThanOrEqualTo(root.get("price"), minPrice));
+			if (maxPrice != null) predicates.add(cb.lessThanOrEqualTo(root.get("price"), maxPrice));
+			return cb.and(predicates.toArray(new Predicate[0]));
+		};
+	}
+
+	// Rows strictly after (value, id) in the given order; a null value means "sorted by id only"
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static Specification<Sweet> after(String property, Comparable value, Long id, boolean descending) {
+		return (root, query, cb) -> {
+			Path<Long> idPath = root.get("id");
+			Predicate idAfter = descending ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id);
+			if (value == null) return idAfter;
+			Path<Comparable> key = root.get(property);
+			Predicate keyAfter = descending ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+			return cb.or(keyAfter, cb.and(cb.equal(key, value), idAfter));
+		};
+	}
+
+	private static Predicate containsIgnoreCase(CriteriaBuilder cb, Path<String> path, String text) {
+		return cb.like(cb.lower(path), "%" + text.toLowerCase() + "%");
+	}
+}
@@ -1,8 +1,11 @@
 package com.sweetshop.repository;
 
 import com.sweetshop.entity.User;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 	Optional<User> findByUsername(String username);
@@ -10,6 +13,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
 	Optional<User> findByUsernameOrEmail(String username, String email);
 	boolean existsByUsername(String username);
 	boolean existsByEmail(String email);
+
+	// Which of the two unique fields are already taken, in one query ("username" and/or "email")
+	@Query("SELECT CASE WHEN u.username = :username THEN 'username' ELSE 'email' END FROM User u"
+			+ " WHERE u.username = :username OR u.email = :email")
+	List<String> findTakenFields(@Param("username") String username, @Param("email") String email);
+
+	@Query("SELECT u.username FROM User u")
+	List<String> findAllUsernames();
+
+	@Query("SELECT u.email FROM User u")
+	List<String> findAllEmails();
+
+	@Query("SELECT u.tokenVersion FROM User u WHERE u.username = :username")
+	Optional<Integer> findTokenVersionByUsername(@Param("username") String username);
 }
 
 
@@ -0,0 +1,54 @@
+package com.sweetshop.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Small bounded map whose entries each carry their own expiry time. When full, expired entries are
+// dropped first and then arbitrary ones, which is good enough for the auth hot path.
+class ExpiringCache<K, V> {
+
+	private record Entry<V>(V value, long expiresAtMillis) {}
+
+	private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+	private final int maxEntries;
+
+	ExpiringCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	V get(K key, long nowMillis) {
+		Entry<V> entry = entries.get(key);
+		if (entry == null) return null;
+		if (entry.expiresAtMillis() <= nowMillis) {
+			entries.remove(key, entry);
+			return null;
+		}
+		return entry.value();
+	}
+
+	void put(K key, V value, long expiresAtMillis) {
+		if (maxEntries <= 0) return;
+		if (entries.size() >= maxEntries) {
+			evict(System.currentTimeMillis());
+		}
+		entries.put(key, new Entry<>(value, expiresAtMillis));
+	}
+
+	void remove(K key) {
+		entries.remove(key);
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	private void evict(long nowMillis) {
+		entries.values().removeIf(e -> e.expiresAtMillis() <= nowMillis);
+		Iterator<K> it = entries.keySet().iterator();
+		while (entries.size() >= maxEntries && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+}
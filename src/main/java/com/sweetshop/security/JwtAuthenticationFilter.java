@@ -1,27 +1,42 @@
 package com.sweetshop.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 	private final JwtService jwtService;
 	private final UserDetailsService userDetailsService;
+	private final UserAuthCache userAuthCache;
+	private final Timer parseTimer;
 
-	public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+	public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService, UserAuthCache userAuthCache) {
+		this(jwtService, userDetailsService, userAuthCache, null);
+	}
+
+	// parseTimer, when given, records the signature check and claims parse of every bearer token
+	public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService, UserAuthCache userAuthCache,
+			@Nullable Timer parseTimer) {
 		this.jwtService = jwtService;
 		this.userDetailsService = userDetailsService;
+		this.userAuthCache = userAuthCache;
+		this.parseTimer = parseTimer;
 	}
 
 	@Override
@@ -38,11 +53,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		}
 
 		jwt = authHeader.substring(7);
-		username = jwtService.extractUsername(jwt);
+		// Single signature check per request; subject and expiry come from the same claims
+		final Claims claims = parseTimer == null ? jwtService.parseClaims(jwt) : parseTimer.record(() -> jwtService.parseClaims(jwt));
+		username = claims.getSubject();
 
 		if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-			UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-			if (jwtService.isTokenValid(jwt, userDetails.getUsername())) {
+			UserDetails userDetails = resolveUser(claims, username);
+			if (userDetails != null && jwtService.isTokenValid(claims, userDetails.getUsername())) {
 				UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
 						userDetails,
 						null,
@@ -54,6 +71,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 		filterChain.doFilter(request, response);
 	}
-}
-
 
+	// Tokens carrying role and version are trusted as-is once the version is current; older tokens
+	// without those claims fall back to a (cached) user lookup
+	private UserDetails resolveUser(Claims claims, String username) {
+		String role = jwtService.extractRole(claims);
+		Integer version = jwtService.extractTokenVersion(claims);
+		if (role == null || version == null) {
+			return userAuthCache.loadUser(username, userDetailsService::loadUserByUsername);
+		}
+		if (!userAuthCache.isTokenVersionCurrent(username, version)) {
+			return null;
+		}
+		return new User(username, "", List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+	}
+}
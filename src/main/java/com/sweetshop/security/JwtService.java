@@ -1,6 +1,7 @@
 package com.sweetshop.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -16,18 +17,31 @@ import org.springframework.stereotype.Service;
 @Service
 public class JwtService {
 
-    @Value("${app.security.jwt.secret}")
-	private String secret;
+	static final String ROLE_CLAIM = "role";
+	static final String VERSION_CLAIM = "ver";
 
-	@Value("${app.security.jwt.expiration-ms:86400000}")
-	private long jwtExpirationMs;
+	private final long jwtExpirationMs;
+	// Key and parser are derived once; both are immutable and thread-safe
+	private final Key signInKey;
+	private final JwtParser parser;
+	private final ExpiringCache<String, Claims> verifiedTokens;
+
+	public JwtService(
+			@Value("${app.security.jwt.secret}") String secret,
+			@Value("${app.security.jwt.expiration-ms:86400000}") long jwtExpirationMs,
+			@Value("${app.security.jwt.cache-size:10000}") int cacheSize) {
+		this.jwtExpirationMs = jwtExpirationMs;
+		this.signInKey = deriveSignInKey(secret);
+		this.parser = Jwts.parserBuilder().setSigningKey(signInKey).build();
+		this.verifiedTokens = new ExpiringCache<>(cacheSize);
+	}
 
 	public String extractUsername(String token) {
 		return extractClaim(token, Claims::getSubject);
 	}
 
 	public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-		final Claims claims = extractAllClaims(token);
+		final Claims claims = parseClaims(token);
 		return claimsResolver.apply(claims);
 	}
 
@@ -38,32 +52,59 @@ public class JwtService {
 			.setSubject(username)
 			.setIssuedAt(now)
 			.setExpiration(expiry)
-			.signWith(getSignInKey(), SignatureAlgorithm.HS256)
+			.signWith(signInKey, SignatureAlgorithm.HS256)
 			.compact();
 	}
 
+	// Token that carries the role and the user's token version, so requests authenticate without a lookup
+	public String generateToken(String username, String role, int tokenVersion) {
+		Date now = new Date();
+		Date expiry = new Date(now.getTime() + jwtExpirationMs);
+		return Jwts.builder()
+			.setSubject(username)
+			.claim(ROLE_CLAIM, role)
+			.claim(VERSION_CLAIM, tokenVersion)
+			.setIssuedAt(now)
+			.setExpiration(expiry)
+			.signWith(signInKey, SignatureAlgorithm.HS256)
+			.compact();
+	}
+
+	public String extractRole(Claims claims) {
+		return claims.get(ROLE_CLAIM, String.class);
+	}
+
+	public Integer extractTokenVersion(Claims claims) {
+		return claims.get(VERSION_CLAIM, Integer.class);
+	}
+
 	public boolean isTokenValid(String token, String username) {
-		final String extractedUsername = extractUsername(token);
-		return (extractedUsername.equals(username) && !isTokenExpired(token));
+		return isTokenValid(parseClaims(token), username);
 	}
 
-	private boolean isTokenExpired(String token) {
-		return extractExpiration(token).before(new Date());
+	public boolean isTokenValid(Claims claims, String username) {
+		return (claims.getSubject().equals(username) && !isTokenExpired(claims));
 	}
 
-	private Date extractExpiration(String token) {
-		return extractClaim(token, Claims::getExpiration);
+	// Verify the signature once and reuse the claims for repeat tokens until they expire.
+	// Returned claims are shared between requests and must be treated as read-only.
+	public Claims parseClaims(String token) {
+		Claims cached = verifiedTokens.get(token, System.currentTimeMillis());
+		if (cached != null) {
+			return cached;
+		}
+		Claims claims = parser.parseClaimsJws(token).getBody();
+		if (claims.getExpiration() != null) {
+			verifiedTokens.put(token, claims, claims.getExpiration().getTime());
+		}
+		return claims;
 	}
 
-	private Claims extractAllClaims(String token) {
-		return Jwts.parserBuilder()
-			.setSigningKey(getSignInKey())
-			.build()
-			.parseClaimsJws(token)
-			.getBody();
+	private boolean isTokenExpired(Claims claims) {
+		return claims.getExpiration().before(new Date());
 	}
 
-    private Key getSignInKey() {
+    private static Key deriveSignInKey(String secret) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             byte[] keyBytes = digest.digest(secret.getBytes(StandardCharsets.UTF_8));
@@ -73,5 +114,3 @@ public class JwtService {
         }
     }
 }
-
-
@@ -0,0 +1,78 @@
+package com.sweetshop.security;
+
+import com.sweetshop.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Brute-force guard for POST /api/auth/login, checked before the user lookup and password hash.
+// Every attempt counts against the client IP; only failed attempts count against the account, and
+// a successful login clears them, so a user is not locked out by their own earlier sign-ins.
+@Component
+public class LoginThrottle {
+
+	private final SlidingWindowLimiter accounts;
+	private final SlidingWindowLimiter addresses;
+	private final LongAdder accountRejections = new LongAdder();
+	private final LongAdder addressRejections = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+
+	public LoginThrottle(@Value("${app.security.login-throttle.account.max-failures:5}") int maxFailures,
+			@Value("${app.security.login-throttle.account.window-ms:900000}") long accountWindowMs,
+			@Value("${app.security.login-throttle.ip.max-attempts:50}") int maxAttempts,
+			@Value("${app.security.login-throttle.ip.window-ms:60000}") long ipWindowMs,
+			@Value("${app.security.login-throttle.max-keys:100000}") int maxKeys,
+			MeterRegistry meterRegistry) {
+		this.accounts = new SlidingWindowLimiter(maxFailures, accountWindowMs, maxKeys);
+		this.addresses = new SlidingWindowLimiter(maxAttempts, ipWindowMs, maxKeys);
+		registerMetrics(meterRegistry);
+	}
+
+	// Throws TooManyRequestsException if either the IP or the account is over its limit
+	public void check(String usernameOrEmail, String clientIp) {
+		long now = System.currentTimeMillis();
+		long retryAfter = addresses.tryAcquire(clientIp, now);
+		if (retryAfter > 0) {
+			addressRejections.increment();
+			throw new TooManyRequestsException("Too many login attempts, try again later", retryAfter);
+		}
+		retryAfter = accounts.retryAfterSeconds(accountKey(usernameOrEmail), now);
+		if (retryAfter > 0) {
+			accountRejections.increment();
+			throw new TooManyRequestsException("Too many failed logins for this account, try again later", retryAfter);
+		}
+	}
+
+	public void recordFailure(String usernameOrEmail) {
+		failures.increment();
+		accounts.record(accountKey(usernameOrEmail), System.currentTimeMillis());
+	}
+
+	public void recordSuccess(String usernameOrEmail) {
+		accounts.reset(accountKey(usernameOrEmail));
+	}
+
+	private static String accountKey(String usernameOrEmail) {
+		return usernameOrEmail.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private void registerMetrics(MeterRegistry registry) {
+		FunctionCounter.builder("auth.login.throttled", accountRejections, LongAdder::doubleValue)
+				.tag("scope", "account").register(registry);
+		FunctionCounter.builder("auth.login.throttled", addressRejections, LongAdder::doubleValue)
+				.tag("scope", "ip").register(registry);
+		FunctionCounter.builder("auth.login.failures", failures, LongAdder::doubleValue).register(registry);
+		FunctionCounter.builder("auth.login.throttle.evictions", accounts, SlidingWindowLimiter::evictions)
+				.tag("scope", "account").register(registry);
+		FunctionCounter.builder("auth.login.throttle.evictions", addresses, SlidingWindowLimiter::evictions)
+				.tag("scope", "ip").register(registry);
+		Gauge.builder("auth.login.throttle.keys", accounts, SlidingWindowLimiter::size)
+				.tag("scope", "account").register(registry);
+		Gauge.builder("auth.login.throttle.keys", addresses, SlidingWindowLimiter::size)
+				.tag("scope", "ip").register(registry);
+	}
+}
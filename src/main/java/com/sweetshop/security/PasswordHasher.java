@@ -0,0 +1,104 @@
+package com.sweetshop.security;
+
+import com.sweetshop.exception.ServiceBusyException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+// Runs password hashing (BCrypt is deliberately slow) on a small CPU-sized pool instead of request
+// threads, so a login burst queues here rather than occupying the whole Tomcat pool. When the queue
+// is full, or a hash waits longer than the timeout, callers get a ServiceBusyException (503).
+@Component
+public class PasswordHasher {
+
+	private final PasswordEncoder passwordEncoder;
+	private final ThreadPoolExecutor executor;
+	private final long timeoutMs;
+	private final Timer encodeTimer;
+	private final Timer matchTimer;
+	private final LongAdder rejected = new LongAdder();
+
+	public PasswordHasher(PasswordEncoder passwordEncoder,
+			@Value("${app.security.password.threads:0}") int threads,
+			@Value("${app.security.password.queue-capacity:64}") int queueCapacity,
+			@Value("${app.security.password.timeout-ms:5000}") long timeoutMs,
+			MeterRegistry meterRegistry) {
+		if (queueCapacity < 1) throw new IllegalArgumentException("app.security.password.queue-capacity must be positive");
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		this.passwordEncoder = passwordEncoder;
+		this.timeoutMs = timeoutMs;
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), daemonThreads(), new ThreadPoolExecutor.AbortPolicy());
+		this.encodeTimer = Timer.builder("password.hash").tag("operation", "encode").register(meterRegistry);
+		this.matchTimer = Timer.builder("password.hash").tag("operation", "matches").register(meterRegistry);
+		Gauge.builder("password.hash.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+		Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+		FunctionCounter.builder("password.hash.rejected", rejected, LongAdder::doubleValue).register(meterRegistry);
+	}
+
+	public String encode(CharSequence rawPassword) {
+		return run(() -> passwordEncoder.encode(rawPassword), encodeTimer);
+	}
+
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchTimer);
+	}
+
+	// Hands the hash to the pool and waits for it; the timer covers the hash itself, not the queueing
+	private <T> T run(Callable<T> hash, Timer timer) {
+		Future<T> result;
+		try {
+			result = executor.submit(() -> timer.recordCallable(hash));
+		} catch (RejectedExecutionException e) {
+			throw busy();
+		}
+		try {
+			return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			result.cancel(true);
+			throw busy();
+		} catch (InterruptedException e) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			throw busy();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) throw cause;
+			throw new IllegalStateException("Password hashing failed", e.getCause());
+		}
+	}
+
+	private ServiceBusyException busy() {
+		rejected.increment();
+		return new ServiceBusyException("Too many concurrent sign-ins, please retry shortly", 1);
+	}
+
+	private static ThreadFactory daemonThreads() {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,133 @@
+package com.sweetshop.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Per-key event counts over a sliding window, approximated from two fixed buckets (the previous
+// bucket's count is weighted by how much of it still overlaps the window). Keys are spread over
+// lock stripes, each an LRU map capped at its share of maxKeys; evicting a key forgets its history.
+class SlidingWindowLimiter {
+
+	private static final int STRIPES = 16;
+
+	private static final class Window {
+		long bucket;
+		int previous;
+		int current;
+	}
+
+	private final int limit;
+	private final long windowMs;
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+	private final Map<String, Window>[] stripes;
+	private final LongAdder evictions = new LongAdder();
+
+	@SuppressWarnings("unchecked")
+	SlidingWindowLimiter(int limit, long windowMs, int maxKeys) {
+		if (limit < 1 || windowMs < 1) throw new IllegalArgumentException("Limit and window must be positive");
+		this.limit = limit;
+		this.windowMs = windowMs;
+		int perStripe = Math.max(1, maxKeys / STRIPES);
+		this.stripes = new Map[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			locks[i] = new ReentrantLock();
+			stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+					if (size() <= perStripe) return false;
+					evictions.increment();
+					return true;
+				}
+			};
+		}
+	}
+
+	// Seconds until the key is back under the limit, or 0 if it is under it now
+	long retryAfterSeconds(String key, long nowMillis) {
+		int stripe = stripe(key);
+		locks[stripe].lock();
+		try {
+			Window window = stripes[stripe].get(key);
+			return window == null ? 0 : retryAfter(window, nowMillis);
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	// Counts one event unless the key is already at the limit; returns the same as retryAfterSeconds
+	long tryAcquire(String key, long nowMillis) {
+		int stripe = stripe(key);
+		locks[stripe].lock();
+		try {
+			Window window = stripes[stripe].computeIfAbsent(key, k -> new Window());
+			long retryAfter = retryAfter(window, nowMillis);
+			if (retryAfter == 0) window.current++;
+			return retryAfter;
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	void record(String key, long nowMillis) {
+		int stripe = stripe(key);
+		locks[stripe].lock();
+		try {
+			Window window = stripes[stripe].computeIfAbsent(key, k -> new Window());
+			roll(window, nowMillis);
+			window.current++;
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	void reset(String key) {
+		int stripe = stripe(key);
+		locks[stripe].lock();
+		try {
+			stripes[stripe].remove(key);
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	int size() {
+		int size = 0;
+		for (int i = 0; i < STRIPES; i++) {
+			locks[i].lock();
+			try {
+				size += stripes[i].size();
+			} finally {
+				locks[i].unlock();
+			}
+		}
+		return size;
+	}
+
+	long evictions() {
+		return evictions.sum();
+	}
+
+	private long retryAfter(Window window, long nowMillis) {
+		roll(window, nowMillis);
+		long intoBucket = nowMillis % windowMs;
+		double count = window.previous * (double) (windowMs - intoBucket) / windowMs + window.current;
+		if (count < limit) return 0;
+		// Once the current bucket ends its count becomes the weighted one; close enough for a hint
+		return Math.max(1, (windowMs - intoBucket + 999) / 1000);
+	}
+
+	private void roll(Window window, long nowMillis) {
+		long bucket = nowMillis / windowMs;
+		if (bucket == window.bucket) return;
+		window.previous = bucket == window.bucket + 1 ? window.current : 0;
+		window.current = 0;
+		window.bucket = bucket;
+	}
+
+	private static int stripe(String key) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & (STRIPES - 1);
+	}
+}
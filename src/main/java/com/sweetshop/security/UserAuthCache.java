@@ -0,0 +1,55 @@
+package com.sweetshop.security;
+
+import com.sweetshop.repository.UserRepository;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+// Short-lived per-user state for the JWT filter: the current token version (bumped on role change
+// to revoke older tokens) and, for tokens issued without a role claim, the loaded UserDetails.
+// Steady-state requests hit neither the database nor the UserDetailsService.
+@Component
+public class UserAuthCache {
+
+	private final UserRepository userRepository;
+	private final long ttlMs;
+	private final ExpiringCache<String, Integer> tokenVersions;
+	private final ExpiringCache<String, UserDetails> userDetails;
+
+	public UserAuthCache(UserRepository userRepository,
+			@Value("${app.security.user-cache.ttl-ms:30000}") long ttlMs,
+			@Value("${app.security.user-cache.size:10000}") int size) {
+		this.userRepository = userRepository;
+		this.ttlMs = ttlMs;
+		this.tokenVersions = new ExpiringCache<>(size);
+		this.userDetails = new ExpiringCache<>(size);
+	}
+
+	// A token is current while its version matches the user's; unknown users never are
+	public boolean isTokenVersionCurrent(String username, int version) {
+		long now = System.currentTimeMillis();
+		Integer current = tokenVersions.get(username, now);
+		if (current == null) {
+			current = userRepository.findTokenVersionByUsername(username).orElse(null);
+			if (current == null) return false;
+			tokenVersions.put(username, current, now + ttlMs);
+		}
+		return current == version;
+	}
+
+	public UserDetails loadUser(String username, Function<String, UserDetails> loader) {
+		long now = System.currentTimeMillis();
+		UserDetails cached = userDetails.get(username, now);
+		if (cached != null) return cached;
+		UserDetails loaded = loader.apply(username);
+		userDetails.put(username, loaded, now + ttlMs);
+		return loaded;
+	}
+
+	// Called after a role change is committed so this instance sees it at once; others within the TTL
+	public void invalidate(String username) {
+		tokenVersions.remove(username);
+		userDetails.remove(username);
+	}
+}
@@ -0,0 +1,64 @@
+package com.sweetshop.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Thread-safe Bloom filter over strings: mightContain never returns false for an added value, and
+// returns true for an absent one with roughly the configured probability. Values cannot be removed.
+final class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bitCount;
+	private final int hashCount;
+
+	BloomFilter(long expectedEntries, double falsePositiveRate) {
+		if (expectedEntries < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("Bloom filter needs expectedEntries >= 1 and 0 < falsePositiveRate < 1");
+		}
+		double ln2 = Math.log(2);
+		long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+		this.bitCount = Math.max(64, (bits + 63) / 64 * 64);
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * ln2));
+		this.words = new AtomicLongArray((int) (bitCount / 64));
+	}
+
+	void put(String value) {
+		long hash = hash64(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+			long mask = 1L << bit;
+			int word = (int) (bit >>> 6);
+			long current = words.get(word);
+			while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+				current = words.get(word);
+			}
+		}
+	}
+
+	boolean mightContain(String value) {
+		long hash = hash64(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+		}
+		return true;
+	}
+
+	// FNV-1a over the UTF-16 chars, then the MurmurHash3 finalizer to spread the high bits
+	private static long hash64(String value) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			h ^= value.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
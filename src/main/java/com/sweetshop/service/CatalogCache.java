@@ -0,0 +1,193 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Read-through cache for catalog reads (list, search, pages). Each cached query keeps only the ids
+// it returned; the sweets themselves are held once in a shared map, so a stock change can patch a
+// single entry in place. Catalog edits (create/update/delete) drop every query, because they can
+// change which sweets match a filter or where they sort. Quantity is neither filtered nor sorted
+// on, so purchases and restocks either patch the shared entry (quantity-updates=in-place) or also
+// drop everything (quantity-updates=invalidate). Cached sweets are shared: callers must not mutate them.
+@Component
+@ConditionalOnProperty(name = "app.catalog-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogCache {
+
+	public enum Kind { ALL, SEARCH, PAGE }
+
+	// Everything a catalog read depends on; filters must already be sanitized
+	public record Query(Kind kind, String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+			SweetSort sort, boolean descending, String cursor, int limit) {
+
+		public static Query all() {
+			return new Query(Kind.ALL, null, null, null, null, null, false, null, 0);
+		}
+
+		public static Query search(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+			return new Query(Kind.SEARCH, name, category, minPrice, maxPrice, null, false, null, 0);
+		}
+
+		public static Query page(String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+				SweetSort sort, boolean descending, String cursor, int limit) {
+			return new Query(Kind.PAGE, name, category, minPrice, maxPrice, sort, descending, cursor, limit);
+		}
+	}
+
+	private record Entry(List<Long> ids, String nextCursor, long expiresAt) { }
+
+	private final long ttlMs;
+	private final int maxQueries;
+	private final boolean inPlaceQuantities;
+	private final Map<Query, Entry> queries = new ConcurrentHashMap<>();
+	private final Map<Long, Sweet> sweets = new ConcurrentHashMap<>();
+	// Highest inventory sequence applied per sweet (memory mode only); outlives invalidations so a late
+	// event can't overwrite a reload either
+	private final Map<Long, Long> sequences = new ConcurrentHashMap<>();
+	// Bumped by every change; a loader that started before a change must not store its result
+	private long generation;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	public CatalogCache(@Value("${app.catalog-cache.ttl-ms:30000}") long ttlMs,
+			@Value("${app.catalog-cache.max-entries:1000}") int maxQueries,
+			@Value("${app.catalog-cache.quantity-updates:in-place}") String quantityUpdates,
+			MeterRegistry meterRegistry) {
+		if (!"in-place".equals(quantityUpdates) && !"invalidate".equals(quantityUpdates)) {
+			throw new IllegalArgumentException("app.catalog-cache.quantity-updates must be in-place or invalidate");
+		}
+		this.ttlMs = ttlMs;
+		this.maxQueries = Math.max(1, maxQueries);
+		this.inPlaceQuantities = "in-place".equals(quantityUpdates);
+		registerMetrics(meterRegistry);
+	}
+
+	public SweetPage getOrLoad(Query query, Supplier<SweetPage> loader) {
+		long now = System.currentTimeMillis();
+		Entry entry = queries.get(query);
+		if (entry != null && entry.expiresAt() > now) {
+			List<Sweet> items = resolve(entry.ids());
+			if (items != null) {
+				hits.increment();
+				return new SweetPage(items, entry.nextCursor());
+			}
+		}
+		misses.increment();
+		long startedAt = currentGeneration();
+		SweetPage page = loader.get();
+		store(query, page, startedAt, now);
+		return page;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSweetChanged(SweetChangedEvent event) {
+		if (event.isStockChange() && inPlaceQuantities) {
+			updateStock(event);
+		} else {
+			if (event.getKind() == SweetChangedEvent.Kind.DELETED) sequences.remove(event.getSweetId());
+			invalidateAll();
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		queries.clear();
+		sweets.clear();
+		invalidations.increment();
+	}
+
+	// Number of cached queries
+	public int size() {
+		return queries.size();
+	}
+
+	// The whole row is replaced, not just the quantity, so the cached version moves with the stock write.
+	// Listeners run after commit on each request's thread, so an older event can arrive last; it is
+	// dropped rather than overwriting the newer row.
+	private synchronized void updateStock(SweetChangedEvent event) {
+		generation++;
+		Sweet sweet = event.getSweet();
+		if (event.getSequence() > 0) {
+			Long applied = sequences.get(sweet.getId());
+			if (applied != null && event.getSequence() < applied) return;
+			sequences.put(sweet.getId(), event.getSequence());
+		}
+		sweets.computeIfPresent(sweet.getId(), (key, cached) -> isStale(event, cached) ? cached : SweetMapper.copy(sweet));
+	}
+
+	// In memory mode the version only moves on flush, so the sequence check above orders those events
+	private static boolean isStale(SweetChangedEvent event, Sweet cached) {
+		if (event.getSequence() > 0) return false;
+		Long version = event.getSweet().getVersion();
+		return version != null && cached.getVersion() != null && version < cached.getVersion();
+	}
+
+	private synchronized long currentGeneration() {
+		return generation;
+	}
+
+	private synchronized void store(Query query, SweetPage page, long startedAt, long now) {
+		if (generation != startedAt) return;
+		if (!queries.containsKey(query) && queries.size() >= maxQueries) {
+			evict(now);
+		}
+		List<Long> ids = new ArrayList<>(page.getItems().size());
+		for (Sweet sweet : page.getItems()) {
+			ids.add(sweet.getId());
+			sweets.put(sweet.getId(), SweetMapper.copy(sweet));
+		}
+		queries.put(query, new Entry(ids, page.getNextCursor(), now + ttlMs));
+	}
+
+	// Drop expired queries first; if none were, drop arbitrary ones until there is room
+	private void evict(long now) {
+		int before = queries.size();
+		queries.values().removeIf(e -> e.expiresAt() <= now);
+		Iterator<Query> it = queries.keySet().iterator();
+		while (queries.size() >= maxQueries && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+		evictions.add(before - queries.size());
+	}
+
+	// Null when a sweet was dropped since the query was cached, so the caller reloads
+	private List<Sweet> resolve(List<Long> ids) {
+		List<Sweet> items = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			Sweet sweet = sweets.get(id);
+			if (sweet == null) return null;
+			items.add(sweet);
+		}
+		return items;
+	}
+
+	private void registerMetrics(MeterRegistry registry) {
+		FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue)
+				.tag("cache", "catalog").tag("result", "hit").register(registry);
+		FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue)
+				.tag("cache", "catalog").tag("result", "miss").register(registry);
+		FunctionCounter.builder("cache.evictions", evictions, LongAdder::doubleValue)
+				.tag("cache", "catalog").register(registry);
+		FunctionCounter.builder("cache.invalidations", invalidations, LongAdder::doubleValue)
+				.tag("cache", "catalog").register(registry);
+		Gauge.builder("cache.size", queries, Map::size)
+				.tag("cache", "catalog").register(registry);
+	}
+}
@@ -0,0 +1,264 @@
+package com.sweetshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Pushes committed catalog changes to Server-Sent Events subscribers. Changes are coalesced per
+// sweet until the next tick (interval-ms), so a burst of purchases on one sweet becomes a single
+// "changed" event carrying its latest state. Each tick, one producer serializes every event once
+// and appends it to each subscriber's bounded buffer; a small sender pool drains the buffers to the
+// sockets. A subscriber whose buffer would overflow is too slow and is disconnected rather than
+// being allowed to grow without bound; its client reconnects and re-reads the catalog. Idle
+// subscribers hold no buffer and no thread. There is no replay: Last-Event-ID is not honoured.
+@Component
+public class CatalogChangeStream {
+
+	// One SSE event; a null name marks a keep-alive comment
+	record Frame(String id, String name, String data) {}
+
+	// Where a subscriber's frames go; an SseEmitter in production
+	interface Sink {
+		void send(Frame frame) throws IOException;
+		void close();
+	}
+
+	private final ObjectMapper objectMapper;
+	private final int bufferSize;
+	private final int maxSubscribers;
+	private final long timeoutMs;
+	private final ExecutorService senders;
+	// Latest change per sweet since the last tick
+	private final Map<Long, SweetChangedEvent> pending = new ConcurrentHashMap<>();
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final Counter changes;
+	private final Counter events;
+	private final Counter dropped;
+
+	public CatalogChangeStream(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+			@Value("${app.catalog-stream.buffer-size:64}") int bufferSize,
+			@Value("${app.catalog-stream.max-subscribers:10000}") int maxSubscribers,
+			@Value("${app.catalog-stream.timeout-ms:1800000}") long timeoutMs,
+			@Value("${app.catalog-stream.senders:2}") int senders) {
+		if (bufferSize < 1) throw new IllegalArgumentException("app.catalog-stream.buffer-size must be positive");
+		this.objectMapper = objectMapper;
+		this.bufferSize = bufferSize;
+		this.maxSubscribers = maxSubscribers;
+		this.timeoutMs = timeoutMs;
+		AtomicInteger threadIndex = new AtomicInteger();
+		this.senders = Executors.newFixedThreadPool(Math.max(1, senders), r -> {
+			Thread t = new Thread(r, "catalog-stream-" + threadIndex.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+		this.changes = meterRegistry.counter("catalog.stream.changes");
+		this.events = meterRegistry.counter("catalog.stream.events");
+		this.dropped = meterRegistry.counter("catalog.stream.dropped");
+		Gauge.builder("catalog.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+	}
+
+	public SseEmitter subscribe() {
+		SseEmitter emitter = new SseEmitter(timeoutMs);
+		Subscriber subscriber = subscribe(new EmitterSink(emitter));
+		emitter.onCompletion(() -> remove(subscriber));
+		emitter.onTimeout(() -> remove(subscriber));
+		emitter.onError(e -> remove(subscriber));
+		return emitter;
+	}
+
+	Subscriber subscribe(Sink sink) {
+		if (subscribers.size() >= maxSubscribers) {
+			throw new ServiceBusyException("Too many catalog stream subscribers", 5);
+		}
+		Subscriber subscriber = new Subscriber(sink);
+		subscribers.add(subscriber);
+		return subscriber;
+	}
+
+	int subscriberCount() {
+		return subscribers.size();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSweetChanged(SweetChangedEvent event) {
+		pending.put(event.getSweetId(), event);
+		changes.increment();
+	}
+
+	// The single producer: turn the coalesced changes into frames and fan them out
+	@Scheduled(fixedDelayString = "${app.catalog-stream.interval-ms:250}")
+	public void publishPending() {
+		if (pending.isEmpty()) return;
+		List<Frame> frames = new ArrayList<>();
+		for (Long id : pending.keySet()) {
+			SweetChangedEvent event = pending.remove(id);
+			if (event != null) frames.add(toFrame(event));
+		}
+		events.increment(frames.size());
+		fanOut(frames);
+	}
+
+	// Comments keep idle connections open through proxies and reveal clients that went away
+	@Scheduled(fixedDelayString = "${app.catalog-stream.heartbeat-ms:30000}")
+	public void heartbeat() {
+		fanOut(List.of(new Frame(null, null, null)));
+	}
+
+	@PreDestroy
+	public void close() {
+		for (Subscriber subscriber : subscribers) subscriber.sink.close();
+		subscribers.clear();
+		senders.shutdownNow();
+	}
+
+	private void fanOut(List<Frame> frames) {
+		if (frames.isEmpty()) return;
+		for (Subscriber subscriber : subscribers) {
+			if (subscriber.offer(frames)) {
+				subscriber.scheduleDrain();
+			} else {
+				dropped.increment();
+				remove(subscriber);
+				subscriber.sink.close();
+			}
+		}
+	}
+
+	private Frame toFrame(SweetChangedEvent event) {
+		String id = Long.toString(sequence.incrementAndGet());
+		try {
+			if (event.getKind() == SweetChangedEvent.Kind.DELETED) {
+				return new Frame(id, "deleted", objectMapper.writeValueAsString(Map.of("id", event.getSweetId())));
+			}
+			return new Frame(id, "changed", objectMapper.writeValueAsString(SweetMapper.toResponse(event.getSweet())));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize catalog change", e);
+		}
+	}
+
+	private void remove(Subscriber subscriber) {
+		subscriber.closed = true;
+		subscribers.remove(subscriber);
+	}
+
+	final class Subscriber {
+		private final Sink sink;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final AtomicBoolean draining = new AtomicBoolean();
+		// Allocated on the first frame and released once drained, so idle subscribers cost no buffer
+		private ArrayDeque<Frame> buffer;
+		private volatile boolean closed;
+
+		private Subscriber(Sink sink) {
+			this.sink = sink;
+		}
+
+		// False when the frames do not fit, i.e. the client is not keeping up
+		boolean offer(List<Frame> frames) {
+			lock.lock();
+			try {
+				if (closed) return true;
+				int buffered = buffer == null ? 0 : buffer.size();
+				if (buffered + frames.size() > bufferSize) return false;
+				if (buffer == null) buffer = new ArrayDeque<>(Math.min(bufferSize, Math.max(frames.size(), 4)));
+				buffer.addAll(frames);
+				return true;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		int buffered() {
+			lock.lock();
+			try {
+				return buffer == null ? 0 : buffer.size();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void scheduleDrain() {
+			if (draining.compareAndSet(false, true)) {
+				senders.execute(this::drain);
+			}
+		}
+
+		// At most one sender drains a subscriber at a time; frames go out in order, outside the lock
+		private void drain() {
+			while (true) {
+				Frame frame = poll();
+				if (frame == null) {
+					draining.set(false);
+					// A frame offered after the last poll but before the flag cleared would otherwise wait a tick
+					if (buffered() == 0 || !draining.compareAndSet(false, true)) return;
+					continue;
+				}
+				if (closed) continue;
+				try {
+					sink.send(frame);
+				} catch (IOException | RuntimeException e) {
+					remove(this);
+					sink.close();
+				}
+			}
+		}
+
+		private Frame poll() {
+			lock.lock();
+			try {
+				if (buffer == null) return null;
+				Frame frame = buffer.poll();
+				if (buffer.isEmpty()) buffer = null;
+				return frame;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private static final class EmitterSink implements Sink {
+		private final SseEmitter emitter;
+
+		EmitterSink(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void send(Frame frame) throws IOException {
+			if (frame.name() == null) {
+				emitter.send(SseEmitter.event().comment("keep-alive"));
+			} else {
+				emitter.send(SseEmitter.event().id(frame.id()).name(frame.name()).data(frame.data()));
+			}
+		}
+
+		@Override
+		public void close() {
+			emitter.complete();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset cursor: the sort it was issued for plus the last row's (sort value, id).
+// Encoded as base64url so clients treat it as a token rather than something to edit.
+final class CatalogCursor {
+
+	final SweetSort sort;
+	final boolean descending;
+	final Comparable<?> value;
+	final Long id;
+
+	private CatalogCursor(SweetSort sort, boolean descending, Comparable<?> value, Long id) {
+		this.sort = sort;
+		this.descending = descending;
+		this.value = value;
+		this.id = id;
+	}
+
+	static String encode(SweetSort sort, boolean descending, Sweet last) {
+		return encode(sort, descending, sort.valueOf(last), last.getId());
+	}
+
+	static String encode(SweetSort sort, boolean descending, Comparable<?> lastValue, Long lastId) {
+		String value = sort == SweetSort.ID ? "" : String.valueOf(lastValue);
+		String raw = sort.name() + "|" + (descending ? "d" : "a") + "|" + lastId + "|" + value;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static CatalogCursor decode(String token, SweetSort sort, boolean descending) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			// Limit 4 keeps any '|' inside a name as part of the value
+			String[] parts = raw.split("\\|", 4);
+			if (parts.length != 4 || SweetSort.valueOf(parts[0]) != sort || descending != "d".equals(parts[1])) {
+				throw new IllegalArgumentException("Cursor was issued for a different sort");
+			}
+			Comparable<?> value = sort == SweetSort.ID ? null : sort.parse(parts[3]);
+			return new CatalogCursor(sort, descending, value, Long.valueOf(parts[2]));
+		} catch (IllegalArgumentException ex) {
+			throw new IllegalArgumentException("Invalid cursor: " + ex.getMessage(), ex);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.sweetshop.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sweetshop.dto.SweetResponse;
+import com.sweetshop.entity.Sweet;
+import jakarta.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Writes the whole catalog straight from a forward-only result stream to the caller's output, one
+// row at a time. Each entity is detached once written, so memory stays flat however big the catalog is.
+// Connector/J buffers a whole result set unless the statement's fetch size is Integer.MIN_VALUE, so
+// the export asks for that on its own query; the pool keeps ordinary client-side statements.
+@Service
+public class CatalogExportService {
+
+	public enum Format {
+		NDJSON("application/x-ndjson"), CSV("text/csv");
+
+		private final String contentType;
+
+		Format(String contentType) {
+			this.contentType = contentType;
+		}
+
+		public String contentType() { return contentType; }
+
+		public static Format from(String value) {
+			try {
+				return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Format must be ndjson or csv");
+			}
+		}
+	}
+
+	private static final int FETCH_SIZE = 500;
+
+	private final EntityManager entityManager;
+	private final ObjectWriter rowWriter;
+	private final StripedInventory inventory;
+
+	public CatalogExportService(EntityManager entityManager, ObjectMapper objectMapper) {
+		this(entityManager, objectMapper, null);
+	}
+
+	// inventory is only present when app.inventory.mode=memory; its live counts replace the stored quantity
+	@Autowired
+	public CatalogExportService(EntityManager entityManager, ObjectMapper objectMapper, @Nullable StripedInventory inventory) {
+		this.entityManager = entityManager;
+		// Flushing after every row would turn each line into its own socket write
+		this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.inventory = inventory;
+	}
+
+	// Returns the number of rows written; the output is flushed but not closed
+	@Transactional(readOnly = true)
+	public long export(Format format, OutputStream out) throws IOException {
+		try (Stream<Sweet> rows = streamAllOrderedById()) {
+			return format == Format.NDJSON ? writeNdjson(rows.iterator(), out) : writeCsv(rows.iterator(), out);
+		}
+	}
+
+	// Forward-only, read-only scan; must run inside the export's transaction and be closed
+	private Stream<Sweet> streamAllOrderedById() {
+		return entityManager.createQuery("SELECT s FROM Sweet s ORDER BY s.id", Sweet.class)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, isMySql() ? Integer.MIN_VALUE : FETCH_SIZE)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.setHint(HibernateHints.HINT_CACHEABLE, false)
+				.getResultStream();
+	}
+
+	private boolean isMySql() {
+		Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+				.getJdbcServices().getDialect();
+		return dialect instanceof MySQLDialect;
+	}
+
+	private long writeNdjson(Iterator<Sweet> rows, OutputStream out) throws IOException {
+		long count = 0;
+		try (JsonGenerator json = rowWriter.getFactory().createGenerator(out)) {
+			json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			json.setRootValueSeparator(new SerializedString("\n"));
+			while (rows.hasNext()) {
+				Sweet sweet = rows.next();
+				SweetResponse row = SweetMapper.toResponse(sweet);
+				row.setQuantity(quantityOf(sweet));
+				rowWriter.writeValue(json, row);
+				release(sweet);
+				count++;
+			}
+			if (count > 0) json.writeRaw('\n');
+		}
+		return count;
+	}
+
+	private long writeCsv(Iterator<Sweet> rows, OutputStream out) throws IOException {
+		long count = 0;
+		Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+		csv.write("id,name,category,price,quantity\n");
+		while (rows.hasNext()) {
+			Sweet sweet = rows.next();
+			csv.write(String.valueOf(sweet.getId()));
+			csv.write(',');
+			writeCsvField(csv, sweet.getName());
+			csv.write(',');
+			writeCsvField(csv, sweet.getCategory());
+			csv.write(',');
+			csv.write(sweet.getPrice().toPlainString());
+			csv.write(',');
+			csv.write(String.valueOf(quantityOf(sweet)));
+			csv.write('\n');
+			release(sweet);
+			count++;
+		}
+		csv.flush();
+		return count;
+	}
+
+	// RFC 4180: quote fields containing separators, quotes or line breaks, doubling inner quotes
+	static void writeCsvField(Writer csv, String value) throws IOException {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			csv.write(value);
+			return;
+		}
+		csv.write('"');
+		csv.write(value.replace("\"", "\"\""));
+		csv.write('"');
+	}
+
+	private int quantityOf(Sweet sweet) {
+		Integer live = inventory == null ? null : inventory.peek(sweet.getId());
+		return live != null ? live : sweet.getQuantity();
+	}
+
+	// Read-only entities carry no snapshot, but the persistence context still holds them until detached
+	private void release(Sweet sweet) {
+		entityManager.detach(sweet);
+	}
+}
@@ -0,0 +1,157 @@
+package com.sweetshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.dto.SweetResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Pre-encoded JSON bodies for unfiltered catalog pages. Every committed sweet change bumps the
+// catalog version; a snapshot is rebuilt when it is older than the current version, so repeated
+// GETs skip the mapping and Jackson work. Changes committed by other instances raise no event here,
+// so snapshots are also rebuilt once they reach max-age-ms. ETags hash the encoded bytes, so they
+// are strong and stay stable across restarts and instances serving the same data.
+@Component
+public class CatalogSnapshots {
+
+	// Bodies smaller than this are sent as-is; gzip would barely help or even grow them
+	private static final int GZIP_MIN_BYTES = 1024;
+
+	public record Key(SweetSort sort, boolean descending, String cursor, int limit) { }
+
+	public static final class Snapshot {
+		private final long version;
+		private final long builtAt;
+		private final byte[] json;
+		private final byte[] gzip;
+		private final String etag;
+		private final String nextCursor;
+
+		Snapshot(long version, long builtAt, byte[] json, byte[] gzip, String etag, String nextCursor) {
+			this.version = version;
+			this.builtAt = builtAt;
+			this.json = json;
+			this.gzip = gzip;
+			this.etag = etag;
+			this.nextCursor = nextCursor;
+		}
+
+		public byte[] getJson() { return json; }
+		// Null when the body is too small to be worth compressing
+		public byte[] getGzip() { return gzip; }
+		public String getNextCursor() { return nextCursor; }
+
+		// Each encoding is a different representation, so it gets its own strong tag
+		public String etag(boolean gzipped) {
+			return gzipped ? "\"" + etag + "-gz\"" : "\"" + etag + "\"";
+		}
+
+		// If-None-Match check; either encoding's tag counts as a match since the content is the same
+		public boolean matches(String ifNoneMatch) {
+			if (ifNoneMatch == null) return false;
+			for (String candidate : ifNoneMatch.split(",")) {
+				String tag = candidate.trim();
+				if (tag.startsWith("W/")) tag = tag.substring(2);
+				if (tag.equals("*") || tag.equals(etag(false)) || tag.equals(etag(true))) return true;
+			}
+			return false;
+		}
+	}
+
+	private final SweetService sweetService;
+	private final ObjectMapper objectMapper;
+	private final boolean gzipEnabled;
+	private final int maxSnapshots;
+	private final long maxAgeMs;
+	private final AtomicLong version = new AtomicLong();
+	private final Map<Key, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+	public CatalogSnapshots(SweetService sweetService, ObjectMapper objectMapper,
+			@Value("${app.catalog-snapshot.gzip:true}") boolean gzipEnabled,
+			@Value("${app.catalog-snapshot.max-entries:256}") int maxSnapshots,
+			@Value("${app.catalog-snapshot.max-age-ms:${app.catalog-cache.ttl-ms:30000}}") long maxAgeMs) {
+		this.sweetService = sweetService;
+		this.objectMapper = objectMapper;
+		this.gzipEnabled = gzipEnabled;
+		this.maxSnapshots = Math.max(1, maxSnapshots);
+		this.maxAgeMs = maxAgeMs;
+	}
+
+	public Snapshot get(Key key) {
+		long current = version.get();
+		long now = System.currentTimeMillis();
+		Snapshot snapshot = snapshots.get(key);
+		if (snapshot != null && isCurrent(snapshot, current, now)) return snapshot;
+		// Tagged with the version read before loading: a write during the load leaves it outdated
+		snapshot = encode(current, now, sweetService.page(null, null, null, null,
+				key.sort(), key.descending(), key.cursor(), key.limit()));
+		if (snapshots.size() >= maxSnapshots && !snapshots.containsKey(key)) {
+			evictOutdated(current, now);
+		}
+		snapshots.put(key, snapshot);
+		return snapshot;
+	}
+
+	// Any change alters some page's quantity, price or membership
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSweetChanged(SweetChangedEvent event) {
+		version.incrementAndGet();
+	}
+
+	private boolean isCurrent(Snapshot snapshot, long current, long now) {
+		return snapshot.version == current && now - snapshot.builtAt < maxAgeMs;
+	}
+
+	private void evictOutdated(long current, long now) {
+		snapshots.values().removeIf(s -> !isCurrent(s, current, now));
+		Iterator<Key> it = snapshots.keySet().iterator();
+		while (snapshots.size() >= maxSnapshots && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	private Snapshot encode(long atVersion, long now, SweetPage page) {
+		List<SweetResponse> body = page.getItems().stream().map(SweetMapper::toResponse).toList();
+		byte[] json;
+		try {
+			json = objectMapper.writeValueAsBytes(body);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not encode catalog snapshot", e);
+		}
+		byte[] gzip = gzipEnabled && json.length >= GZIP_MIN_BYTES ? gzip(json) : null;
+		return new Snapshot(atVersion, now, json, gzip, hash(json), page.getNextCursor());
+	}
+
+	private static byte[] gzip(byte[] data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+		try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+			gz.write(data);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static String hash(byte[] data) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+			return HexFormat.of().formatHex(digest, 0, 16);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.sweetshop.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Minimal streaming RFC 4180 reader: comma separated, optional double quotes with "" escapes,
+// quoted fields may span lines, CRLF or LF record ends. Reads one record at a time.
+class CsvRecordReader {
+
+	private final Reader in;
+	private int peeked = -2;
+
+	CsvRecordReader(Reader in) {
+		this.in = in;
+	}
+
+	// Next record's fields, or null at end of input; blank lines are skipped
+	List<String> next() throws IOException {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		boolean any = false;
+		while (true) {
+			int c = read();
+			if (c == -1) {
+				if (quoted) throw new IllegalArgumentException("Unterminated quoted CSV field");
+				if (!any && field.length() == 0) return null;
+				return finish(fields, field);
+			}
+			if (quoted) {
+				if (c == '"') {
+					if (peek() == '"') {
+						read();
+						field.append('"');
+					} else {
+						quoted = false;
+					}
+				} else {
+					field.append((char) c);
+				}
+				continue;
+			}
+			if (c == '"' && field.length() == 0) {
+				quoted = true;
+				any = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+				any = true;
+			} else if (c == '\r' || c == '\n') {
+				if (c == '\r' && peek() == '\n') read();
+				if (!any && field.length() == 0 && fields.isEmpty()) continue;
+				return finish(fields, field);
+			} else {
+				field.append((char) c);
+				any = true;
+			}
+		}
+	}
+
+	private static List<String> finish(List<String> fields, StringBuilder field) {
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private int read() throws IOException {
+		if (peeked != -2) {
+			int c = peeked;
+			peeked = -2;
+			return c;
+		}
+		return in.read();
+	}
+
+	private int peek() throws IOException {
+		if (peeked == -2) peeked = in.read();
+		return peeked;
+	}
+}
@@ -0,0 +1,245 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.InventoryMovement;
+import com.sweetshop.entity.InventorySnapshot;
+import com.sweetshop.repository.InventoryLedgerStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Append-only audit of every committed stock change. Committed purchases, restocks and absolute
+// quantity writes are queued in memory and appended to inventory_movements in JDBC batches, either
+// when batch-size entries are waiting or every flush-interval-ms. Compaction periodically folds the
+// new movements into one inventory_snapshots row per touched sweet, so the stock at any instant is
+// the latest snapshot taken by then plus the short tail of movements after it. Like the in-memory
+// inventory, entries still queued when the process crashes are lost.
+@Component
+public class InventoryLedger {
+
+	private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+
+	private final InventoryLedgerStore store;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final int maxQueued;
+	private final Queue<InventoryMovement> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	// Drained but not yet written; retried first on the next flush so append order is kept
+	private final List<InventoryMovement> pending = new ArrayList<>();
+	// Serializes flushes and compaction, which relies on no movement being appended while it runs
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	private final Counter appended;
+	private final Counter snapshotsWritten;
+	private final Timer flushTimer;
+	private final Timer compactTimer;
+
+	public InventoryLedger(InventoryLedgerStore store, PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry,
+			@Value("${app.inventory.ledger.batch-size:500}") int batchSize,
+			@Value("${app.inventory.ledger.max-queued:50000}") int maxQueued) {
+		if (batchSize < 1) throw new IllegalArgumentException("app.inventory.ledger.batch-size must be positive");
+		this.store = store;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+		this.maxQueued = Math.max(maxQueued, batchSize);
+		this.appended = meterRegistry.counter("inventory.ledger.appended");
+		this.snapshotsWritten = meterRegistry.counter("inventory.ledger.snapshots");
+		this.flushTimer = meterRegistry.timer("inventory.ledger.flush");
+		this.compactTimer = meterRegistry.timer("inventory.ledger.compact");
+		Gauge.builder("inventory.ledger.queued", queued, AtomicInteger::get).register(meterRegistry);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSweetChanged(SweetChangedEvent event) {
+		InventoryMovement.Kind kind;
+		switch (event.getKind()) {
+			case PURCHASED: kind = InventoryMovement.Kind.PURCHASE; break;
+			case RESTOCKED: kind = InventoryMovement.Kind.RESTOCK; break;
+			case CREATED:
+			case UPDATED: kind = InventoryMovement.Kind.ADJUSTMENT; break;
+			default: return;
+		}
+		record(event.getSweetId(), kind, event.getQuantityChange(), event.getSweet().getQuantity(), currentUser(), Instant.now());
+	}
+
+	// Queue one movement. A full batch is written by the recording thread if no flush is running;
+	// past max-queued the caller waits for a flush, so a stalled database cannot exhaust the heap.
+	public void record(Long sweetId, InventoryMovement.Kind kind, int quantityChange, int quantityAfter,
+			String username, Instant occurredAt) {
+		InventoryMovement movement = new InventoryMovement();
+		movement.setSweetId(sweetId);
+		movement.setKind(kind);
+		movement.setQuantityChange(quantityChange);
+		movement.setQuantityAfter(quantityAfter);
+		movement.setUsername(username);
+		movement.setOccurredAt(occurredAt);
+		queue.add(movement);
+		int size = queued.incrementAndGet();
+		if (size >= maxQueued) {
+			flush();
+		} else if (size >= batchSize && writeLock.tryLock()) {
+			try {
+				flushLocked();
+			} finally {
+				writeLock.unlock();
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.inventory.ledger.flush-interval-ms:500}")
+	@PreDestroy
+	public void flush() {
+		writeLock.lock();
+		try {
+			flushLocked();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	// Fold every movement appended since the last compaction into fresh per-sweet snapshots
+	@Scheduled(initialDelayString = "${app.inventory.ledger.snapshot-interval-ms:60000}",
+			fixedDelayString = "${app.inventory.ledger.snapshot-interval-ms:60000}")
+	public void compact() {
+		writeLock.lock();
+		try {
+			flushLocked();
+			compactTimer.record(this::compactLocked);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	// Stock of a sweet at the given instant: latest snapshot taken by then, plus the movements after it
+	public int stockAt(Long sweetId, Instant at) {
+		flush();
+		InventorySnapshot snapshot = store.findSnapshot(sweetId, at);
+		List<InventoryMovement> tail = store.findTail(sweetId, snapshot == null ? 0 : snapshot.getLastMovementId(), at);
+		if (snapshot == null && tail.isEmpty()) {
+			throw new java.util.NoSuchElementException("No inventory history for sweet " + sweetId + " at " + at);
+		}
+		Integer balance = snapshot == null ? null : snapshot.getQuantity();
+		for (InventoryMovement movement : tail) {
+			balance = apply(balance, movement);
+		}
+		return balance;
+	}
+
+	// Newest first; pass the last id of a page as beforeId to get the next one
+	public List<InventoryMovement> movements(Long sweetId, Long beforeId, int limit) {
+		flush();
+		return store.findMovements(sweetId, beforeId, limit);
+	}
+
+	private void flushLocked() {
+		// While the database is failing pending stops growing at max-queued and the queue backs up instead
+		int drained = 0;
+		for (InventoryMovement m; pending.size() < maxQueued && (m = queue.poll()) != null; ) {
+			pending.add(m);
+			drained++;
+		}
+		queued.addAndGet(-drained);
+		if (pending.isEmpty()) return;
+		try {
+			flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+				for (int from = 0; from < pending.size(); from += batchSize) {
+					store.append(pending.subList(from, Math.min(pending.size(), from + batchSize)));
+				}
+			}));
+			appended.increment(pending.size());
+			pending.clear();
+		} catch (RuntimeException ex) {
+			log.warn("Inventory ledger flush failed, will retry {} pending movements", pending.size(), ex);
+		}
+	}
+
+	// Streams the new movements once, keeping only a running fold per touched sweet; the starting
+	// balances are looked up afterwards for the sweets whose fold still depends on one
+	private void compactLocked() {
+		long from = store.findCompactedUpTo();
+		long upTo = store.findLastMovementId();
+		if (upTo <= from) return;
+		Map<Long, Fold> folds = new HashMap<>();
+		store.forEachMovement(from, upTo, movement -> folds.computeIfAbsent(movement.getSweetId(), id -> new Fold()).add(movement));
+		List<Long> needBase = folds.entrySet().stream().filter(e -> e.getValue().absolute == null).map(Map.Entry::getKey).toList();
+		Map<Long, Integer> bases = store.findLatestQuantities(needBase);
+		Instant now = Instant.now();
+		List<InventorySnapshot> snapshots = new ArrayList<>(folds.size());
+		for (Map.Entry<Long, Fold> fold : folds.entrySet()) {
+			InventorySnapshot snapshot = new InventorySnapshot();
+			snapshot.setSweetId(fold.getKey());
+			snapshot.setQuantity(fold.getValue().balance(bases.get(fold.getKey())));
+			snapshot.setLastMovementId(upTo);
+			snapshot.setTakenAt(now);
+			snapshots.add(snapshot);
+		}
+		transactionTemplate.executeWithoutResult(status -> store.appendSnapshots(snapshots));
+		snapshotsWritten.increment(snapshots.size());
+	}
+
+	// Movements of one sweet folded without knowing its starting balance: an adjustment fixes the
+	// balance outright, relative movements before any adjustment accumulate on top of the base
+	private static final class Fold {
+		Integer absolute;
+		int delta;
+		int impliedBase;
+		boolean seen;
+
+		void add(InventoryMovement movement) {
+			if (!seen) {
+				impliedBase = movement.getQuantityAfter() - movement.getQuantityChange();
+				seen = true;
+			}
+			if (movement.getKind() == InventoryMovement.Kind.ADJUSTMENT) {
+				absolute = movement.getQuantityAfter();
+			} else if (absolute != null) {
+				absolute += movement.getQuantityChange();
+			} else {
+				delta += movement.getQuantityChange();
+			}
+		}
+
+		int balance(Integer base) {
+			if (absolute != null) return absolute;
+			return (base != null ? base : impliedBase) + delta;
+		}
+	}
+
+	// Relative movements need a starting balance; with no snapshot or adjustment before them (sweets
+	// that predate the ledger) it is taken from the first movement's recorded after-quantity
+	private static Integer apply(Integer balance, InventoryMovement movement) {
+		if (movement.getKind() == InventoryMovement.Kind.ADJUSTMENT || balance == null) {
+			return movement.getQuantityAfter();
+		}
+		return balance + movement.getQuantityChange();
+	}
+
+	private static String currentUser() {
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (auth == null || auth instanceof AnonymousAuthenticationToken) return null;
+		return auth.getName();
+	}
+}
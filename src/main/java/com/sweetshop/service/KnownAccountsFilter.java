@@ -0,0 +1,82 @@
+package com.sweetshop.service;
+
+import com.sweetshop.repository.UserRepository;
+import java.util.List;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Bloom filter of every username and email, so availability checks and registrations of names
+// nobody has are answered without a query. A "might exist" answer still goes to the database.
+// Values are lower-cased (MySQL's unique indexes are case-insensitive), which can only add false
+// positives. Registrations on this instance are added at once; the periodic rebuild picks up other
+// instances' users. Until the first build every value might exist.
+@Component
+public class KnownAccountsFilter {
+
+	private static final Logger log = LoggerFactory.getLogger(KnownAccountsFilter.class);
+
+	private final UserRepository userRepository;
+	private final long expectedEntries;
+	private final double falsePositiveRate;
+	private volatile BloomFilter filter;
+	// Filter being rebuilt; registrations during the rebuild go into it too so the swap loses none
+	private volatile BloomFilter building;
+
+	public KnownAccountsFilter(UserRepository userRepository,
+			@Value("${app.users.bloom.expected-entries:1000000}") long expectedEntries,
+			@Value("${app.users.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+		this.userRepository = userRepository;
+		this.expectedEntries = expectedEntries;
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${app.users.bloom.rebuild-interval-ms:300000}",
+			fixedDelayString = "${app.users.bloom.rebuild-interval-ms:300000}")
+	public synchronized void rebuild() {
+		long start = System.nanoTime();
+		BloomFilter next = new BloomFilter(expectedEntries, falsePositiveRate);
+		building = next;
+		List<String> usernames = userRepository.findAllUsernames();
+		List<String> emails = userRepository.findAllEmails();
+		usernames.forEach(username -> next.put(usernameKey(username)));
+		emails.forEach(email -> next.put(emailKey(email)));
+		filter = next;
+		building = null;
+		log.info("Account filter rebuilt with {} users in {} ms", usernames.size(), (System.nanoTime() - start) / 1_000_000);
+	}
+
+	public boolean mightHaveUsername(String username) {
+		BloomFilter current = filter;
+		return current == null || current.mightContain(usernameKey(username));
+	}
+
+	public boolean mightHaveEmail(String email) {
+		BloomFilter current = filter;
+		return current == null || current.mightContain(emailKey(email));
+	}
+
+	// Reads building before filter: a rebuild that already swapped has a filter containing this add
+	public void add(String username, String email) {
+		for (BloomFilter target : new BloomFilter[] { building, filter }) {
+			if (target != null) {
+				target.put(usernameKey(username));
+				target.put(emailKey(email));
+			}
+		}
+	}
+
+	private static String usernameKey(String username) {
+		return "u:" + username.toLowerCase(Locale.ROOT);
+	}
+
+	private static String emailKey(String email) {
+		return "e:" + email.toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,110 @@
+package com.sweetshop.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Indexed binary min-heap of sweet ids keyed on an int (quantity minus reorder threshold). The
+// position map makes changing or removing any sweet's key O(log n) instead of a linear search, and
+// the k smallest keys can be read without touching the rest of the heap. Not thread-safe; the
+// owner serializes access.
+final class LowStockHeap {
+
+	private long[] ids = new long[16];
+	private int[] keys = new int[16];
+	private int size;
+	// Sweet id -> its slot in ids/keys
+	private final Map<Long, Integer> positions = new HashMap<>();
+
+	int size() {
+		return size;
+	}
+
+	Integer key(long id) {
+		Integer pos = positions.get(id);
+		return pos == null ? null : keys[pos];
+	}
+
+	// Inserts the id or moves it to its new key
+	void put(long id, int key) {
+		Integer pos = positions.get(id);
+		if (pos == null) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			place(size, id, key);
+			siftUp(size++);
+			return;
+		}
+		int old = keys[pos];
+		keys[pos] = key;
+		if (key < old) siftUp(pos); else siftDown(pos);
+	}
+
+	void remove(long id) {
+		Integer pos = positions.remove(id);
+		if (pos == null) return;
+		int last = --size;
+		if (pos == last) return;
+		// The last entry fills the hole and may belong above or below it
+		long moved = ids[last];
+		place(pos, moved, keys[last]);
+		siftDown(pos);
+		siftUp(positions.get(moved));
+	}
+
+	// Ids with key <= bound, smallest key first, at most limit of them. Only those entries and their
+	// direct children are visited: O(k log k) for k results, independent of the heap size.
+	List<Long> atMost(int bound, int limit) {
+		List<Long> result = new ArrayList<>(Math.min(limit, size));
+		if (size == 0 || keys[0] > bound) return result;
+		PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> Integer.compare(keys[a], keys[b]));
+		frontier.add(0);
+		while (!frontier.isEmpty() && result.size() < limit) {
+			int pos = frontier.poll();
+			result.add(ids[pos]);
+			for (int child = 2 * pos + 1; child <= 2 * pos + 2 && child < size; child++) {
+				if (keys[child] <= bound) frontier.add(child);
+			}
+		}
+		return result;
+	}
+
+	private void siftUp(int pos) {
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (keys[parent] <= keys[pos]) return;
+			swap(pos, parent);
+			pos = parent;
+		}
+	}
+
+	private void siftDown(int pos) {
+		while (true) {
+			int smallest = pos;
+			int left = 2 * pos + 1;
+			if (left < size && keys[left] < keys[smallest]) smallest = left;
+			if (left + 1 < size && keys[left + 1] < keys[smallest]) smallest = left + 1;
+			if (smallest == pos) return;
+			swap(pos, smallest);
+			pos = smallest;
+		}
+	}
+
+	private void swap(int a, int b) {
+		long id = ids[a];
+		int key = keys[a];
+		place(a, ids[b], keys[b]);
+		place(b, id, key);
+	}
+
+	private void place(int pos, long id, int key) {
+		ids[pos] = id;
+		keys[pos] = key;
+		positions.put(id, pos);
+	}
+}
@@ -0,0 +1,259 @@
+package com.sweetshop.service;
+
+import com.sweetshop.dto.LowStockItem;
+import com.sweetshop.entity.ReorderThreshold;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.ReorderThresholdRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Keeps every sweet in an indexed min-heap keyed on quantity minus its reorder threshold, updated
+// from committed stock and catalog changes, so the low-stock list is read from the top of the heap
+// instead of scanning the catalog. The catalog is read once at startup; after that only events move
+// the heap. A sweet crossing from above its threshold to at or below it raises an alert: a WARN log
+// line and the low.stock.alerts counter, which a Prometheus rule can page on.
+@Component
+public class LowStockWatcher {
+
+	private static final Logger log = LoggerFactory.getLogger(LowStockWatcher.class);
+
+	// What the low-stock list shows for a sweet; version and sequence guard against events applied out
+	// of order
+	private record Tracked(String name, String category, int quantity, Long version, long sequence) {}
+
+	private final ReorderThresholdRepository thresholdRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int defaultThreshold;
+	// Everything below is guarded by lock; each change is O(log n) in the number of sweets
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LowStockHeap heap = new LowStockHeap();
+	private final Map<Long, Tracked> tracked = new HashMap<>();
+	private final Map<Long, Integer> sweetThresholds = new HashMap<>();
+	private final Map<String, Integer> categoryThresholds = new HashMap<>();
+	private final AtomicInteger low = new AtomicInteger();
+
+	private final Counter alerts;
+
+	public LowStockWatcher(ReorderThresholdRepository thresholdRepository,
+			JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+			@Value("${app.low-stock.default-threshold:5}") int defaultThreshold) {
+		if (defaultThreshold < 0) throw new IllegalArgumentException("app.low-stock.default-threshold must not be negative");
+		this.thresholdRepository = thresholdRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		// Deletes also run from an after-commit listener, where the finished transaction is still bound
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.defaultThreshold = defaultThreshold;
+		this.alerts = meterRegistry.counter("low.stock.alerts");
+		Gauge.builder("low.stock.sweets", low, AtomicInteger::get).register(meterRegistry);
+	}
+
+	// Seeds thresholds and stock once; sweets already low at startup are listed but not alerted
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		List<ReorderThreshold> thresholds = thresholdRepository.findAll();
+		lock.lock();
+		try {
+			for (ReorderThreshold t : thresholds) {
+				if (t.getSweetId() != null) sweetThresholds.put(t.getSweetId(), t.getThreshold());
+				else categoryThresholds.put(t.getCategory(), t.getThreshold());
+			}
+			jdbcTemplate.query("SELECT id, name, category, quantity, version FROM sweets", rs -> {
+				long id = rs.getLong(1);
+				track(id, new Tracked(rs.getString(2), rs.getString(3), rs.getInt(4), rs.getLong(5), 0), false);
+			});
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSweetChanged(SweetChangedEvent event) {
+		lock.lock();
+		try {
+			if (event.getKind() == SweetChangedEvent.Kind.DELETED) {
+				untrack(event.getSweetId());
+				sweetThresholds.remove(event.getSweetId());
+			} else {
+				onSaved(event);
+			}
+		} finally {
+			lock.unlock();
+		}
+		// The sweet's own threshold goes with it, so a reused id or a restart doesn't pick it up
+		if (event.getKind() == SweetChangedEvent.Kind.DELETED) {
+			transactionTemplate.executeWithoutResult(status ->
+					thresholdRepository.findBySweetId(event.getSweetId()).ifPresent(thresholdRepository::delete));
+		}
+	}
+
+	private void onSaved(SweetChangedEvent event) {
+		Sweet sweet = event.getSweet();
+		Tracked previous = tracked.get(sweet.getId());
+		if (previous != null && isStale(event, previous)) return;
+		// Catalog edits carry no sequence; keep the last one so later stock events still compare on it
+		long sequence = event.getSequence() > 0 || previous == null ? event.getSequence() : previous.sequence();
+		track(sweet.getId(), new Tracked(sweet.getName(), sweet.getCategory(), sweet.getQuantity(), sweet.getVersion(), sequence), true);
+	}
+
+	// Listeners run after commit, so two racing purchases can arrive newest first. In memory mode the
+	// version only moves on flush, so stock events are compared on the inventory's sequence instead.
+	private static boolean isStale(SweetChangedEvent event, Tracked previous) {
+		if (event.getSequence() > 0 && previous.sequence() > 0) return event.getSequence() < previous.sequence();
+		Long version = event.getSweet().getVersion();
+		return version != null && previous.version() != null && version < previous.version();
+	}
+
+	// Sweets at or below their threshold, the furthest below first
+	public List<LowStockItem> lowStock(int limit) {
+		if (limit < 1) throw new IllegalArgumentException("Limit must be positive");
+		lock.lock();
+		try {
+			List<Long> ids = heap.atMost(0, limit);
+			List<LowStockItem> items = new ArrayList<>(ids.size());
+			for (Long id : ids) {
+				Tracked t = tracked.get(id);
+				items.add(new LowStockItem(id, t.name(), t.category(), t.quantity(), thresholdOf(id, t.category())));
+			}
+			return items;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void setSweetThreshold(Long sweetId, int threshold) {
+		checkThreshold(threshold);
+		transactionTemplate.executeWithoutResult(status -> {
+			// Locks the sweet's row until the threshold commits: a concurrent delete either wins first and
+			// this fails, or waits and then removes the new threshold from its DELETED listener
+			if (jdbcTemplate.queryForList("SELECT id FROM sweets WHERE id = ? FOR UPDATE", Long.class, sweetId).isEmpty()) {
+				throw new java.util.NoSuchElementException("Sweet not found");
+			}
+			ReorderThreshold row = thresholdRepository.findBySweetId(sweetId).orElseGet(ReorderThreshold::new);
+			row.setSweetId(sweetId);
+			row.setThreshold(threshold);
+			thresholdRepository.save(row);
+		});
+		lock.lock();
+		try {
+			sweetThresholds.put(sweetId, threshold);
+			rekey(sweetId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void clearSweetThreshold(Long sweetId) {
+		transactionTemplate.executeWithoutResult(status -> thresholdRepository.findBySweetId(sweetId).ifPresent(thresholdRepository::delete));
+		lock.lock();
+		try {
+			sweetThresholds.remove(sweetId);
+			rekey(sweetId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void setCategoryThreshold(String category, int threshold) {
+		checkThreshold(threshold);
+		String key = categoryKey(category);
+		transactionTemplate.executeWithoutResult(status -> {
+			ReorderThreshold row = thresholdRepository.findByCategory(key).orElseGet(ReorderThreshold::new);
+			row.setCategory(key);
+			row.setThreshold(threshold);
+			thresholdRepository.save(row);
+		});
+		lock.lock();
+		try {
+			categoryThresholds.put(key, threshold);
+			rekeyCategory(key);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void clearCategoryThreshold(String category) {
+		String key = categoryKey(category);
+		transactionTemplate.executeWithoutResult(status -> thresholdRepository.findByCategory(key).ifPresent(thresholdRepository::delete));
+		lock.lock();
+		try {
+			categoryThresholds.remove(key);
+			rekeyCategory(key);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void track(long id, Tracked t, boolean alert) {
+		Integer before = heap.key(id);
+		int threshold = thresholdOf(id, t.category());
+		int key = t.quantity() - threshold;
+		tracked.put(id, t);
+		heap.put(id, key);
+		boolean wasLow = before != null && before <= 0;
+		if (key <= 0 && !wasLow) {
+			low.incrementAndGet();
+			if (alert) {
+				alerts.increment();
+				log.warn("Low stock: sweet {} ({}) has {} left, reorder threshold {}", id, t.name(), t.quantity(), threshold);
+			}
+		} else if (key > 0 && wasLow) {
+			low.decrementAndGet();
+		}
+	}
+
+	private void untrack(Long id) {
+		Integer before = heap.key(id);
+		if (before == null) return;
+		if (before <= 0) low.decrementAndGet();
+		heap.remove(id);
+		tracked.remove(id);
+	}
+
+	private void rekey(Long id) {
+		Tracked t = tracked.get(id);
+		if (t != null) track(id, t, true);
+	}
+
+	// A category threshold applies to every sweet in it without its own; one pass over tracked sweets
+	private void rekeyCategory(String key) {
+		for (Map.Entry<Long, Tracked> e : new ArrayList<>(tracked.entrySet())) {
+			if (key.equals(categoryKey(e.getValue().category()))) track(e.getKey(), e.getValue(), true);
+		}
+	}
+
+	private int thresholdOf(long id, String category) {
+		Integer own = sweetThresholds.get(id);
+		if (own != null) return own;
+		return categoryThresholds.getOrDefault(categoryKey(category), defaultThreshold);
+	}
+
+	private static void checkThreshold(int threshold) {
+		if (threshold < 0) throw new IllegalArgumentException("Threshold must not be negative");
+	}
+
+	private static String categoryKey(String category) {
+		if (category == null || category.isBlank()) throw new IllegalArgumentException("Category is required");
+		return category.trim().toLowerCase(Locale.ROOT);
+	}
+}
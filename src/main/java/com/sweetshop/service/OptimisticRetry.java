@@ -0,0 +1,80 @@
+package com.sweetshop.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Runs read-modify-write work on versioned sweets in its own transaction and, when the commit hits
+// a version conflict, re-runs it from the read with jittered exponential backoff. Must be called
+// outside any transaction, otherwise a retry would reuse the failed one. Conflicts that remain
+// after the last attempt propagate (409). Meters: optimistic.lock.attempts{operation, outcome}
+// with outcome committed or conflict, and optimistic.lock.exhausted{operation}.
+@Component
+public class OptimisticRetry {
+
+	private final TransactionTemplate transactions;
+	private final MeterRegistry meterRegistry;
+	private final int maxAttempts;
+	private final long backoffMs;
+
+	public OptimisticRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+			@Value("${app.sweets.optimistic-retry.max-attempts:4}") int maxAttempts,
+			@Value("${app.sweets.optimistic-retry.backoff-ms:10}") long backoffMs) {
+		if (maxAttempts < 1) throw new IllegalArgumentException("app.sweets.optimistic-retry.max-attempts must be positive");
+		this.transactions = new TransactionTemplate(transactionManager);
+		this.meterRegistry = meterRegistry;
+		this.maxAttempts = maxAttempts;
+		this.backoffMs = backoffMs;
+	}
+
+	public <T> T run(String operation, Supplier<T> work) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				T result = transactions.execute(status -> work.get());
+				attempts(operation, "committed").increment();
+				return result;
+			} catch (OptimisticLockingFailureException e) {
+				attempts(operation, "conflict").increment();
+				if (attempt >= maxAttempts) {
+					meterRegistry.counter("optimistic.lock.exhausted", "operation", operation).increment();
+					throw e;
+				}
+				backoff(attempt);
+			}
+		}
+	}
+
+	// A single attempt, for conditional writes where the caller wants the conflict reported
+	public <T> T once(String operation, Supplier<T> work) {
+		try {
+			T result = transactions.execute(status -> work.get());
+			attempts(operation, "committed").increment();
+			return result;
+		} catch (OptimisticLockingFailureException e) {
+			attempts(operation, "conflict").increment();
+			throw e;
+		}
+	}
+
+	private Counter attempts(String operation, String outcome) {
+		return meterRegistry.counter("optimistic.lock.attempts", "operation", operation, "outcome", outcome);
+	}
+
+	// backoffMs, 2x, 4x, ... each scaled by a random factor in [0.5, 1.5) so retries spread out
+	private void backoff(int attempt) {
+		long delay = (long) (backoffMs * (1L << Math.min(attempt - 1, 10)) * (0.5 + ThreadLocalRandom.current().nextDouble()));
+		if (delay <= 0) return;
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while backing off after a version conflict", e);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Order;
+import com.sweetshop.entity.OrderLine;
+import com.sweetshop.repository.OrderHistoryStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Per-user order history kept off the purchase path: committed purchases and checkouts are queued
+// in memory and written as JDBC batches (orders, then their lines) when batch-size orders are
+// waiting or every flush-interval-ms. Reads flush first, so a buyer always sees their own order.
+// Orders still queued when the process crashes are lost, as with the inventory ledger.
+@Component
+public class OrderHistory {
+
+	public static final int MAX_PAGE_SIZE = 100;
+
+	private static final Logger log = LoggerFactory.getLogger(OrderHistory.class);
+
+	// An order with its lines, newest first in a page
+	public record Entry(Order order, List<OrderLine> lines) {}
+
+	public record Page(List<Entry> items, String nextCursor) {}
+
+	private final OrderHistoryStore store;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+	private final int maxQueued;
+	private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	// Drained but not yet written; retried first on the next flush
+	private final List<Entry> pending = new ArrayList<>();
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private final Counter recorded;
+	private final Timer flushTimer;
+
+	public OrderHistory(OrderHistoryStore store, PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry,
+			@Value("${app.orders.batch-size:200}") int batchSize,
+			@Value("${app.orders.max-queued:20000}") int maxQueued) {
+		if (batchSize < 1) throw new IllegalArgumentException("app.orders.batch-size must be positive");
+		this.store = store;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+		this.maxQueued = Math.max(maxQueued, batchSize);
+		this.recorded = meterRegistry.counter("orders.recorded");
+		this.flushTimer = meterRegistry.timer("orders.flush");
+		Gauge.builder("orders.queued", queued, AtomicInteger::get).register(meterRegistry);
+	}
+
+	// Orders need an owner; purchases made without an authenticated user are not recorded
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onOrderPlaced(OrderPlacedEvent event) {
+		String username = currentUser();
+		if (username == null) return;
+		record(username, event.getLines(), Instant.now());
+	}
+
+	public void record(String username, List<OrderPlacedEvent.Line> lines, Instant createdAt) {
+		Order order = new Order();
+		order.setUsername(username);
+		order.setCreatedAt(createdAt);
+		BigDecimal total = BigDecimal.ZERO;
+		List<OrderLine> orderLines = new ArrayList<>(lines.size());
+		for (OrderPlacedEvent.Line line : lines) {
+			OrderLine orderLine = new OrderLine();
+			orderLine.setSweetId(line.sweet().getId());
+			orderLine.setSweetName(line.sweet().getName());
+			orderLine.setUnitPrice(line.sweet().getPrice());
+			orderLine.setQuantity(line.quantity());
+			orderLines.add(orderLine);
+			total = total.add(line.sweet().getPrice().multiply(BigDecimal.valueOf(line.quantity())));
+		}
+		order.setTotal(total);
+		queue.add(new Entry(order, orderLines));
+		int size = queued.incrementAndGet();
+		if (size >= maxQueued) {
+			flush();
+		} else if (size >= batchSize && flushLock.tryLock()) {
+			try {
+				flushLocked();
+			} finally {
+				flushLock.unlock();
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${app.orders.flush-interval-ms:250}")
+	@PreDestroy
+	public void flush() {
+		flushLock.lock();
+		try {
+			flushLocked();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	// One keyset page of a user's orders, newest first, with their lines
+	public Page history(String username, String cursor, int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		Instant beforeCreatedAt = null;
+		Long beforeId = null;
+		if (cursor != null && !cursor.isBlank()) {
+			String[] parts = decode(cursor);
+			beforeCreatedAt = Instant.parse(parts[0]);
+			beforeId = Long.valueOf(parts[1]);
+		}
+		flush();
+		// One extra row tells whether another page exists without a count query
+		List<Order> orders = store.findOrders(username, beforeCreatedAt, beforeId, limit + 1);
+		String next = null;
+		if (orders.size() > limit) {
+			orders = orders.subList(0, limit);
+			Order last = orders.get(limit - 1);
+			next = encode(last.getCreatedAt() + "|" + last.getId());
+		}
+		Map<Long, List<OrderLine>> lines = new HashMap<>();
+		for (OrderLine line : store.findLines(orders.stream().map(Order::getId).toList())) {
+			lines.computeIfAbsent(line.getOrderId(), id -> new ArrayList<>()).add(line);
+		}
+		List<Entry> items = new ArrayList<>(orders.size());
+		for (Order order : orders) {
+			items.add(new Entry(order, lines.getOrDefault(order.getId(), List.of())));
+		}
+		return new Page(items, next);
+	}
+
+	private void flushLocked() {
+		// While the database is failing pending stops growing at max-queued and the queue backs up instead
+		int drained = 0;
+		for (Entry e; pending.size() < maxQueued && (e = queue.poll()) != null; ) {
+			pending.add(e);
+			drained++;
+		}
+		queued.addAndGet(-drained);
+		if (pending.isEmpty()) return;
+		try {
+			flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+				for (int from = 0; from < pending.size(); from += batchSize) {
+					write(pending.subList(from, Math.min(pending.size(), from + batchSize)));
+				}
+			}));
+			recorded.increment(pending.size());
+			pending.clear();
+		} catch (RuntimeException ex) {
+			// Ids assigned by the failed attempt were rolled back; the retry inserts the orders afresh
+			for (Entry entry : pending) entry.order().setId(null);
+			log.warn("Order history flush failed, will retry {} pending orders", pending.size(), ex);
+		}
+	}
+
+	private void write(List<Entry> batch) {
+		List<Order> orders = new ArrayList<>(batch.size());
+		for (Entry entry : batch) orders.add(entry.order());
+		store.insertOrders(orders);
+		List<OrderLine> lines = new ArrayList<>();
+		for (Entry entry : batch) {
+			for (OrderLine line : entry.lines()) {
+				line.setOrderId(entry.order().getId());
+				lines.add(line);
+			}
+		}
+		store.insertLines(lines);
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String[] decode(String cursor) {
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+			if (parts.length != 2) throw new IllegalArgumentException("malformed");
+			Instant.parse(parts[0]);
+			Long.parseLong(parts[1]);
+			return parts;
+		} catch (RuntimeException ex) {
+			throw new IllegalArgumentException("Invalid cursor", ex);
+		}
+	}
+
+	private static String currentUser() {
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (auth == null || auth instanceof AnonymousAuthenticationToken) return null;
+		return auth.getName();
+	}
+}
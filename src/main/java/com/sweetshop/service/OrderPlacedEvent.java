@@ -0,0 +1,30 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Published by SweetService once per successful purchase or checkout, inside its transaction.
+// Listeners use @TransactionalEventListener(fallbackExecution = true) so rolled-back baskets never show up.
+public class OrderPlacedEvent {
+
+	// Detached copy of the sweet as sold, with the quantity bought
+	public record Line(Sweet sweet, int quantity) {}
+
+	private final List<Line> lines;
+
+	private OrderPlacedEvent(List<Line> lines) {
+		this.lines = lines;
+	}
+
+	static OrderPlacedEvent of(List<Sweet> sweets, Map<Long, Integer> quantities) {
+		List<Line> lines = new ArrayList<>(sweets.size());
+		for (Sweet sweet : sweets) {
+			lines.add(new Line(SweetMapper.copy(sweet), quantities.get(sweet.getId())));
+		}
+		return new OrderPlacedEvent(List.copyOf(lines));
+	}
+
+	public List<Line> getLines() { return lines; }
+}
@@ -0,0 +1,265 @@
+package com.sweetshop.service;
+
+import com.sweetshop.dto.SalesPoint;
+import com.sweetshop.dto.SalesRanking;
+import com.sweetshop.entity.SalesRollup;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SalesRollupStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Units sold and revenue per sweet, per category and overall, kept incrementally from committed
+// orders in per-minute, per-hour and per-day ring buffers (see SalesSeries). Time series and top-N
+// queries read only those rings, so their cost depends on the number of sweets and the requested
+// window, never on how many sales have been made. Hourly rollups are written to sales_rollups
+// every persist-interval-ms (and on shutdown) and loaded back at startup to refill the hour and day
+// rings; minute resolution starts empty after a restart.
+@Component
+public class SalesAnalytics {
+
+	public enum Granularity {
+		MINUTE(60_000L), HOUR(3_600_000L), DAY(86_400_000L);
+
+		final long millis;
+
+		Granularity(long millis) {
+			this.millis = millis;
+		}
+	}
+
+	public enum Dimension { SWEET, CATEGORY }
+
+	public enum Metric { UNITS, REVENUE }
+
+	private static final Logger log = LoggerFactory.getLogger(SalesAnalytics.class);
+
+	private final SalesRollupStore store;
+	private final TransactionTemplate transactionTemplate;
+	private final int minutes;
+	private final int hours;
+	private final int days;
+	private final Map<Long, Rollup> bySweet = new ConcurrentHashMap<>();
+	private final Map<String, Rollup> byCategory = new ConcurrentHashMap<>();
+	private final Rollup total;
+	// Serializes load and persist; persistedFrom is the first hour the next persist rewrites
+	private final ReentrantLock persistLock = new ReentrantLock();
+	private long persistedFrom = -1;
+
+	public SalesAnalytics(SalesRollupStore store, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+			@Value("${app.analytics.minutes:120}") int minutes,
+			@Value("${app.analytics.hours:72}") int hours,
+			@Value("${app.analytics.days:90}") int days) {
+		if (minutes < 1 || hours < 2 || days < 1) {
+			throw new IllegalArgumentException("app.analytics.minutes/days must be positive and hours at least 2");
+		}
+		this.store = store;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.minutes = minutes;
+		this.hours = hours;
+		this.days = days;
+		this.total = new Rollup(null, "all");
+		Gauge.builder("sales.analytics.tracked", bySweet, Map::size).tag("dimension", "sweet").register(meterRegistry);
+		Gauge.builder("sales.analytics.tracked", byCategory, Map::size).tag("dimension", "category").register(meterRegistry);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onOrderPlaced(OrderPlacedEvent event) {
+		long now = System.currentTimeMillis();
+		for (OrderPlacedEvent.Line line : event.getLines()) {
+			Sweet sweet = line.sweet();
+			record(sweet.getId(), sweet.getName(), sweet.getCategory(), line.quantity(),
+					sweet.getPrice().movePointRight(2).longValueExact() * line.quantity(), now);
+		}
+	}
+
+	void record(Long sweetId, String name, String category, long units, long cents, long timeMillis) {
+		Rollup sweet = bySweet.computeIfAbsent(sweetId, id -> new Rollup(id, name));
+		sweet.name = name;
+		sweet.category = category;
+		sweet.add(timeMillis, units, cents);
+		byCategory.computeIfAbsent(category.toLowerCase(Locale.ROOT), key -> new Rollup(null, category)).add(timeMillis, units, cents);
+		total.add(timeMillis, units, cents);
+	}
+
+	// The last `points` buckets ending with the current one, oldest first, for one sweet, one
+	// category or (both null) the whole shop
+	public List<SalesPoint> series(Granularity granularity, int points, Long sweetId, String category) {
+		return series(granularity, points, sweetId, category, System.currentTimeMillis());
+	}
+
+	List<SalesPoint> series(Granularity granularity, int points, Long sweetId, String category, long nowMillis) {
+		checkWindow(granularity, points);
+		Rollup rollup = sweetId != null ? bySweet.get(sweetId)
+				: category != null ? byCategory.get(category.toLowerCase(Locale.ROOT)) : total;
+		long last = Math.floorDiv(nowMillis, granularity.millis);
+		List<SalesPoint> series = new ArrayList<>(points);
+		for (long b = last - points + 1; b <= last; b++) {
+			SalesSeries ring = rollup == null ? null : rollup.series(granularity);
+			long units = ring == null ? 0 : ring.units(b);
+			long cents = ring == null ? 0 : ring.cents(b);
+			series.add(new SalesPoint(Instant.ofEpochMilli(b * granularity.millis), units, BigDecimal.valueOf(cents, 2)));
+		}
+		return series;
+	}
+
+	// Best `limit` sweets or categories over the last `points` buckets, highest first
+	public List<SalesRanking> top(Granularity granularity, int points, Dimension dimension, Metric metric, int limit) {
+		return top(granularity, points, dimension, metric, limit, System.currentTimeMillis());
+	}
+
+	List<SalesRanking> top(Granularity granularity, int points, Dimension dimension, Metric metric, int limit, long nowMillis) {
+		checkWindow(granularity, points);
+		if (limit < 1) throw new IllegalArgumentException("Limit must be positive");
+		long last = Math.floorDiv(nowMillis, granularity.millis);
+		Comparator<SalesRanking> order = metric == Metric.UNITS
+				? Comparator.comparingLong(SalesRanking::getUnits)
+				: Comparator.comparing(SalesRanking::getRevenue);
+		// Min-heap of the best `limit` seen so far
+		PriorityQueue<SalesRanking> best = new PriorityQueue<>(limit + 1, order);
+		long[] sum = new long[2];
+		for (Rollup rollup : (dimension == Dimension.SWEET ? bySweet : byCategory).values()) {
+			rollup.series(granularity).sum(last - points + 1, last, sum);
+			if (sum[0] == 0 && sum[1] == 0) continue;
+			best.add(new SalesRanking(rollup.id, rollup.name, sum[0], BigDecimal.valueOf(sum[1], 2)));
+			if (best.size() > limit) best.poll();
+		}
+		List<SalesRanking> ranked = new ArrayList<>(best);
+		ranked.sort(order.reversed());
+		return ranked;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		load(System.currentTimeMillis());
+	}
+
+	void load(long nowMillis) {
+		persistLock.lock();
+		try {
+			long currentHour = Math.floorDiv(nowMillis, Granularity.HOUR.millis);
+			long from = Math.floorDiv(nowMillis, Granularity.DAY.millis) - days + 1;
+			long maxHour = -1;
+			for (SalesRollup row : store.findSince(Instant.ofEpochMilli(from * Granularity.DAY.millis))) {
+				long time = row.getHourStart().toEpochMilli();
+				long cents = row.getRevenue().movePointRight(2).longValueExact();
+				Rollup sweet = bySweet.computeIfAbsent(row.getSweetId(), id -> new Rollup(id, "#" + id));
+				if (sweet.category == null) sweet.category = row.getCategory();
+				sweet.addHistory(time, row.getUnits(), cents);
+				byCategory.computeIfAbsent(row.getCategory().toLowerCase(Locale.ROOT), key -> new Rollup(null, row.getCategory()))
+						.addHistory(time, row.getUnits(), cents);
+				total.addHistory(time, row.getUnits(), cents);
+				maxHour = Math.max(maxHour, Math.floorDiv(time, Granularity.HOUR.millis));
+			}
+			// The newest persisted hour may have been partial; it is rewritten with whatever it gains now
+			persistedFrom = maxHour >= 0 ? Math.min(maxHour, currentHour) : currentHour;
+		} finally {
+			persistLock.unlock();
+		}
+	}
+
+	// Rewrite every hour from the last persisted one up to the current, still open, hour
+	@Scheduled(initialDelayString = "${app.analytics.persist-interval-ms:300000}",
+			fixedDelayString = "${app.analytics.persist-interval-ms:300000}")
+	@PreDestroy
+	public void persist() {
+		persist(System.currentTimeMillis());
+	}
+
+	void persist(long nowMillis) {
+		persistLock.lock();
+		try {
+			if (persistedFrom < 0) return;
+			long currentHour = Math.floorDiv(nowMillis, Granularity.HOUR.millis);
+			// Hours that already left the ring cannot be rewritten; whatever was stored for them stays
+			long from = Math.max(persistedFrom, currentHour - hours + 1);
+			List<SalesRollup> rows = new ArrayList<>();
+			for (Rollup sweet : bySweet.values()) {
+				for (long h = from; h <= currentHour; h++) {
+					long units = sweet.hourSeries.units(h);
+					long cents = sweet.hourSeries.cents(h);
+					if (units == 0 && cents == 0) continue;
+					SalesRollup row = new SalesRollup();
+					row.setSweetId(sweet.id);
+					row.setCategory(sweet.category);
+					row.setHourStart(Instant.ofEpochMilli(h * Granularity.HOUR.millis));
+					row.setUnits(units);
+					row.setRevenue(BigDecimal.valueOf(cents, 2));
+					rows.add(row);
+				}
+			}
+			transactionTemplate.executeWithoutResult(status ->
+					store.replaceFrom(Instant.ofEpochMilli(from * Granularity.HOUR.millis), rows));
+			persistedFrom = currentHour;
+		} catch (RuntimeException ex) {
+			log.warn("Persisting sales rollups failed, will retry", ex);
+		} finally {
+			persistLock.unlock();
+		}
+	}
+
+	private void checkWindow(Granularity granularity, int points) {
+		int max = switch (granularity) {
+			case MINUTE -> minutes;
+			case HOUR -> hours;
+			case DAY -> days;
+		};
+		if (points < 1 || points > max) {
+			throw new IllegalArgumentException("Points must be between 1 and " + max + " for " + granularity.name().toLowerCase(Locale.ROOT));
+		}
+	}
+
+	// Rings for one sweet, one category or the whole shop
+	private final class Rollup {
+		final Long id;
+		volatile String name;
+		volatile String category;
+		final SalesSeries minuteSeries = new SalesSeries(Granularity.MINUTE.millis, minutes);
+		final SalesSeries hourSeries = new SalesSeries(Granularity.HOUR.millis, hours);
+		final SalesSeries daySeries = new SalesSeries(Granularity.DAY.millis, days);
+
+		Rollup(Long id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		void add(long timeMillis, long units, long cents) {
+			minuteSeries.add(timeMillis, units, cents);
+			addHistory(timeMillis, units, cents);
+		}
+
+		// Hour and day only: used for persisted rollups, which carry no minute detail
+		void addHistory(long timeMillis, long units, long cents) {
+			hourSeries.add(timeMillis, units, cents);
+			daySeries.add(timeMillis, units, cents);
+		}
+
+		SalesSeries series(Granularity granularity) {
+			return switch (granularity) {
+				case MINUTE -> minuteSeries;
+				case HOUR -> hourSeries;
+				case DAY -> daySeries;
+			};
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.sweetshop.service;
+
+import java.util.Arrays;
+
+// Fixed-size ring of time buckets holding units sold and revenue in cents. Slot i holds bucket
+// number b where b % size == i; each slot remembers its bucket number, so a stale slot reads as
+// empty and is reset lazily on the next write instead of by a sweeper. Memory and query cost
+// depend only on the ring size, never on how much history has gone through it.
+final class SalesSeries {
+
+	private final long bucketMillis;
+	private final long[] buckets;
+	private final long[] units;
+	private final long[] cents;
+
+	SalesSeries(long bucketMillis, int size) {
+		this.bucketMillis = bucketMillis;
+		this.buckets = new long[size];
+		this.units = new long[size];
+		this.cents = new long[size];
+		Arrays.fill(buckets, -1);
+	}
+
+	long bucketOf(long timeMillis) {
+		return Math.floorDiv(timeMillis, bucketMillis);
+	}
+
+	long bucketMillis() {
+		return bucketMillis;
+	}
+
+	int size() {
+		return buckets.length;
+	}
+
+	synchronized void add(long timeMillis, long unitCount, long centAmount) {
+		long bucket = bucketOf(timeMillis);
+		int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+		if (buckets[slot] != bucket) {
+			// An older bucket than the slot holds has already fallen out of the window
+			if (buckets[slot] > bucket) return;
+			buckets[slot] = bucket;
+			units[slot] = 0;
+			cents[slot] = 0;
+		}
+		units[slot] += unitCount;
+		cents[slot] += centAmount;
+	}
+
+	// Units and cents of the given bucket, or zeros when it is not (or no longer) held
+	synchronized long units(long bucket) {
+		int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+		return buckets[slot] == bucket ? units[slot] : 0;
+	}
+
+	synchronized long cents(long bucket) {
+		int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+		return buckets[slot] == bucket ? cents[slot] : 0;
+	}
+
+	// Totals over buckets [first, last]; out: {units, cents}
+	synchronized void sum(long first, long last, long[] out) {
+		long u = 0;
+		long c = 0;
+		for (long b = Math.max(first, last - buckets.length + 1); b <= last; b++) {
+			int slot = (int) Math.floorMod(b, (long) buckets.length);
+			if (buckets[slot] == b) {
+				u += units[slot];
+				c += cents[slot];
+			}
+		}
+		out[0] = u;
+		out[1] = c;
+	}
+}
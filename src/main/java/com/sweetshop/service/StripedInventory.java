@@ -0,0 +1,255 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Opt-in (app.inventory.mode=memory) stock engine for flash sales: purchases and restocks only touch
+// striped in-memory counters, and a background task writes the net change per sweet to the sweets
+// table in one JDBC batch. Counters are seeded from the database on first use, so after a restart
+// stock resumes from the last flushed value; changes made since that flush are lost on a crash.
+@Component
+@ConditionalOnProperty(name = "app.inventory.mode", havingValue = "memory")
+public class StripedInventory {
+
+	private static final Logger log = LoggerFactory.getLogger(StripedInventory.class);
+
+	private final SweetRepository sweetRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int stripes;
+	private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+	// Deltas of dropped or failed-to-write counters, waiting for the next flush; guarded by flushLock
+	private final Map<Long, Long> unflushed = new ConcurrentHashMap<>();
+	// Per sweet, how many quantity readings stock() has handed out; kept across evictions
+	private final Map<Long, AtomicLong> sequences = new ConcurrentHashMap<>();
+	// A lock rather than synchronized: flush does JDBC work, which would pin a virtual thread's carrier
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	public StripedInventory(SweetRepository sweetRepository,
+			JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager,
+			@Value("${app.inventory.stripes:0}") int stripes) {
+		this.sweetRepository = sweetRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		int wanted = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+		this.stripes = wanted <= 1 ? 1 : Integer.highestOneBit(wanted - 1) << 1;
+	}
+
+	// Counters are not transactional: inside a transaction, a rollback hands the units back
+	public boolean tryTake(Long id, int qty) {
+		if (!take(id, qty)) return false;
+		onRollback(() -> put(id, qty));
+		return true;
+	}
+
+	// Rolled back by taking the units out again, unless buyers have already taken them
+	public void add(Long id, int qty) {
+		put(id, qty);
+		onRollback(() -> {
+			if (!take(id, qty)) log.warn("Rolled-back restock of {} units for sweet {} was already sold", qty, id);
+		});
+	}
+
+	// A quantity reading and its place among the readings of the same sweet
+	public record Stock(int quantity, long sequence) {}
+
+	public int available(Long id) {
+		return (int) counter(id).available();
+	}
+
+	// Flushes don't bump the version per purchase, so stock events are ordered by this instead. The
+	// sequence only advances if no other reading got in between, so a higher sequence is always a
+	// later reading even though listeners may receive them in another order.
+	public Stock stock(Long id) {
+		AtomicLong sequence = sequences.computeIfAbsent(id, key -> new AtomicLong());
+		while (true) {
+			long before = sequence.get();
+			int quantity = available(id);
+			if (sequence.compareAndSet(before, before + 1)) return new Stock(quantity, before + 1);
+		}
+	}
+
+	// Live quantity for sweets that have a counter; null when the database value is current
+	public Integer peek(Long id) {
+		StripedStockCounter counter = counters.get(id);
+		return counter == null ? null : (int) counter.available();
+	}
+
+	// Write a sweet's pending change and forget it, so the next use reloads it from the database. The
+	// counter is retired first: a purchase still holding it fails over to the reloaded counter instead
+	// of taking stock that would never be flushed. Takes a pooled connection, so call it before opening
+	// a transaction, never from inside one.
+	public void evict(Long id) {
+		writeLocked(() -> {
+			long delta = detach(id);
+			return delta == 0 ? List.of() : List.<Object[]>of(new Object[] { delta, id });
+		});
+	}
+
+	// Runs after commit while the request still holds its connection, so nothing is written here: the
+	// counter's delta moves to unflushed and goes out with the next flush. A counter seeded while the
+	// edit was open started from the old quantity; dropping it makes the next use reload the new one.
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSweetChanged(SweetChangedEvent event) {
+		Long id = event.getSweetId();
+		if (event.getKind() == SweetChangedEvent.Kind.UPDATED) {
+			flushLock.lock();
+			try {
+				long delta = detach(id);
+				if (delta != 0) unflushed.merge(id, delta, Long::sum);
+			} finally {
+				flushLock.unlock();
+			}
+		} else if (event.getKind() == SweetChangedEvent.Kind.DELETED) {
+			flushLock.lock();
+			try {
+				detach(id);
+			} finally {
+				flushLock.unlock();
+			}
+			sequences.remove(id);
+		}
+	}
+
+	// Write every pending net change to the database in a single batched transaction
+	@Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:250}")
+	@PreDestroy
+	public void flush() {
+		if (unflushed.isEmpty() && counters.values().stream().noneMatch(StripedStockCounter::hasDelta)) return;
+		try {
+			writeLocked(this::drainAll);
+		} catch (RuntimeException ex) {
+			log.warn("Inventory flush failed, will retry the pending deltas", ex);
+		}
+	}
+
+	private List<Object[]> drainAll() {
+		List<Object[]> batch = new ArrayList<>();
+		for (Map.Entry<Long, Long> e : unflushed.entrySet()) {
+			batch.add(new Object[] { e.getValue(), e.getKey() });
+		}
+		unflushed.clear();
+		for (Map.Entry<Long, StripedStockCounter> e : counters.entrySet()) {
+			long delta = e.getValue().drainDelta();
+			if (delta != 0) {
+				batch.add(new Object[] { delta, e.getKey() });
+			}
+		}
+		return batch;
+	}
+
+	// Under flushLock: retire and forget the sweet's counter, returning everything not yet written
+	private long detach(Long id) {
+		long delta = unflushed.getOrDefault(id, 0L);
+		unflushed.remove(id);
+		StripedStockCounter counter = counters.remove(id);
+		if (counter != null) {
+			counter.retire();
+			delta += counter.drainDelta();
+		}
+		return delta;
+	}
+
+	// Purchases that need a cold counter wait on flushLock while holding a pooled connection, so whoever
+	// holds the lock must never wait for one: the connection is taken first (the transaction opens it),
+	// then the lock, which is released only after the commit so a seed never reads a half-written row.
+	// A failed write leaves its deltas in unflushed for the next round.
+	private void writeLocked(Supplier<List<Object[]>> drain) {
+		transactionTemplate.executeWithoutResult(status -> {
+			flushLock.lock();
+			List<Object[]> batch;
+			try {
+				batch = drain.get();
+			} catch (RuntimeException ex) {
+				flushLock.unlock();
+				throw ex;
+			}
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int completion) {
+					try {
+						if (completion != STATUS_COMMITTED) {
+							for (Object[] row : batch) unflushed.merge((Long) row[1], (Long) row[0], Long::sum);
+						}
+					} finally {
+						flushLock.unlock();
+					}
+				}
+			});
+			if (!batch.isEmpty()) {
+				jdbcTemplate.batchUpdate("UPDATE sweets SET quantity = quantity + ?, version = version + 1 WHERE id = ?", batch);
+			}
+		});
+	}
+
+	// A counter retired by evict() is being replaced; retry on its successor
+	private boolean take(Long id, int qty) {
+		while (true) {
+			StripedStockCounter.Take result = counter(id).tryTake(qty);
+			if (result != StripedStockCounter.Take.RETIRED) return result == StripedStockCounter.Take.TAKEN;
+			Thread.onSpinWait();
+		}
+	}
+
+	private void put(Long id, int qty) {
+		while (!counter(id).add(qty)) {
+			Thread.onSpinWait();
+		}
+	}
+
+	private static void onRollback(Runnable undo) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status == STATUS_ROLLED_BACK) undo.run();
+			}
+		});
+	}
+
+	// Seeded outside computeIfAbsent so the database read never runs under a map bin lock, but under
+	// the flush lock: a seed read racing evict() could otherwise predate its write and be installed
+	// after the evicted counter is gone, resurrecting stock that was already sold. Callers are inside
+	// a transaction, so the read uses the connection they already hold.
+	private StripedStockCounter counter(Long id) {
+		StripedStockCounter counter = counters.get(id);
+		if (counter != null) return counter;
+		flushLock.lock();
+		try {
+			counter = counters.get(id);
+			if (counter != null) return counter;
+			int stored = sweetRepository.findById(id)
+					.map(Sweet::getQuantity)
+					.orElseThrow(() -> new java.util.NoSuchElementException("Sweet not found"));
+			// Stock moved by counters that were dropped but not yet written is still owed to the row
+			counter = new StripedStockCounter(stripes, stored + unflushed.getOrDefault(id, 0L));
+			counters.put(id, counter);
+			return counter;
+		} finally {
+			flushLock.unlock();
+		}
+	}
+}
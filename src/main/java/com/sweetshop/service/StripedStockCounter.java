@@ -0,0 +1,138 @@
+package com.sweetshop.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Stock of one sweet split across cache-line padded stripes so concurrent buyers rarely CAS the same
+// word. Each stripe only ever moves from a non-negative value to another non-negative value, so the
+// total can never go below zero. A retired counter refuses further changes, and retire() waits for
+// changes already under way, so the delta drained afterwards is final.
+class StripedStockCounter {
+
+	enum Take { TAKEN, SHORT, RETIRED }
+
+	// Eight longs per 64-byte line: slot 0 holds available units, slot 1 the not-yet-flushed delta,
+	// slot 2 the changes in progress on this stripe
+	private static final int PAD = 8;
+
+	private final AtomicLongArray cells;
+	private final int mask;
+	private volatile boolean retired;
+
+	StripedStockCounter(int stripes, long initial) {
+		if (Integer.bitCount(stripes) != 1) {
+			throw new IllegalArgumentException("Stripe count must be a power of two");
+		}
+		this.cells = new AtomicLongArray(stripes * PAD);
+		this.mask = stripes - 1;
+		long share = initial / stripes;
+		for (int i = 0; i < stripes; i++) {
+			cells.set(i * PAD, share);
+		}
+		cells.addAndGet(0, initial - share * stripes);
+	}
+
+	// Reserve qty units, gathering from several stripes if needed; all-or-nothing
+	Take tryTake(long qty) {
+		int home = homeStripe();
+		if (!enter(home)) return Take.RETIRED;
+		try {
+			return take(home, qty) ? Take.TAKEN : Take.SHORT;
+		} finally {
+			exit(home);
+		}
+	}
+
+	private boolean take(int home, long qty) {
+		long remaining = qty;
+		for (int n = 0; n <= mask && remaining > 0; n++) {
+			int slot = ((home + n) & mask) * PAD;
+			while (true) {
+				long current = cells.get(slot);
+				if (current == 0) break;
+				long taken = Math.min(current, remaining);
+				if (cells.compareAndSet(slot, current, current - taken)) {
+					remaining -= taken;
+					break;
+				}
+			}
+		}
+		if (remaining > 0) {
+			// Not enough in total: hand back what was gathered so other buyers can see it again
+			long gathered = qty - remaining;
+			if (gathered > 0) cells.addAndGet(home * PAD, gathered);
+			return false;
+		}
+		cells.addAndGet(home * PAD + 1, -qty);
+		return true;
+	}
+
+	// False when retired: the caller must apply the change to the counter that replaced this one
+	boolean add(long qty) {
+		int home = homeStripe();
+		if (!enter(home)) return false;
+		try {
+			cells.addAndGet(home * PAD, qty);
+			cells.addAndGet(home * PAD + 1, qty);
+			return true;
+		} finally {
+			exit(home);
+		}
+	}
+
+	// Refuse new changes and wait out the ones in progress; after this drainDelta() is final
+	void retire() {
+		retired = true;
+		for (int i = 0; i <= mask; i++) {
+			while (cells.get(i * PAD + 2) != 0) Thread.onSpinWait();
+		}
+	}
+
+	boolean isRetired() {
+		return retired;
+	}
+
+	long available() {
+		long sum = 0;
+		for (int i = 0; i <= mask; i++) {
+			sum += cells.get(i * PAD);
+		}
+		return sum;
+	}
+
+	// Collect and clear the net change since the last flush
+	long drainDelta() {
+		long sum = 0;
+		for (int i = 0; i <= mask; i++) {
+			sum += cells.getAndSet(i * PAD + 1, 0);
+		}
+		return sum;
+	}
+
+	// Cheap check so an idle flush doesn't open a transaction
+	boolean hasDelta() {
+		for (int i = 0; i <= mask; i++) {
+			if (cells.get(i * PAD + 1) != 0) return true;
+		}
+		return false;
+	}
+
+	// Announce the change before checking the flag, and retire() sets the flag before checking the
+	// announcements, so either the change sees the counter retired or retire() waits for it
+	private boolean enter(int home) {
+		cells.incrementAndGet(home * PAD + 2);
+		if (retired) {
+			cells.decrementAndGet(home * PAD + 2);
+			return false;
+		}
+		return true;
+	}
+
+	private void exit(int home) {
+		cells.decrementAndGet(home * PAD + 2);
+	}
+
+	private int homeStripe() {
+		long id = Thread.currentThread().getId();
+		return (int) (id ^ (id >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,139 @@
+package com.sweetshop.service;
+
+import com.sweetshop.dto.BulkUpdateResult;
+import com.sweetshop.dto.PriceChangeRequest;
+import com.sweetshop.dto.RestockItem;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetBatchWriter;
+import com.sweetshop.repository.SweetRepository;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Admin operations that touch many sweets at once. Each runs as one transaction of set-based
+// UPDATE statements, then reloads the affected rows in a single query to publish change events.
+@Service
+public class SweetBulkUpdateService {
+
+	private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+	private final SweetRepository sweetRepository;
+	private final SweetBatchWriter batchWriter;
+	private final ApplicationEventPublisher events;
+	private final StripedInventory inventory;
+
+	public SweetBulkUpdateService(SweetRepository sweetRepository, SweetBatchWriter batchWriter,
+			ApplicationEventPublisher events) {
+		this(sweetRepository, batchWriter, events, null);
+	}
+
+	// inventory is only present when app.inventory.mode=memory; restocks then go to its counters
+	@Autowired
+	public SweetBulkUpdateService(SweetRepository sweetRepository, SweetBatchWriter batchWriter,
+			ApplicationEventPublisher events, @Nullable StripedInventory inventory) {
+		this.sweetRepository = sweetRepository;
+		this.batchWriter = batchWriter;
+		this.events = events;
+		this.inventory = inventory;
+	}
+
+	// Add every delta in one batch; repeated ids are summed and unknown ids reported, not fatal
+	@Transactional
+	public BulkUpdateResult restock(List<RestockItem> items) {
+		SortedMap<Long, Integer> deltas = new TreeMap<>();
+		for (RestockItem item : items) {
+			if (item.getQuantity() == null || item.getQuantity() <= 0) {
+				throw new IllegalArgumentException("Quantity must be positive");
+			}
+			deltas.merge(item.getSweetId(), item.getQuantity(), SweetBulkUpdateService::addLines);
+		}
+		List<Long> missing = retainExisting(deltas.keySet());
+		if (inventory != null) {
+			deltas.forEach(inventory::add);
+		} else {
+			batchWriter.addStock(new ArrayList<>(deltas.entrySet()));
+		}
+		for (Sweet sweet : sweetRepository.findAllById(deltas.keySet())) {
+			if (inventory == null) {
+				events.publishEvent(SweetChangedEvent.stock(SweetChangedEvent.Kind.RESTOCKED, sweet, deltas.get(sweet.getId())));
+				continue;
+			}
+			StripedInventory.Stock stock = inventory.stock(sweet.getId());
+			events.publishEvent(SweetChangedEvent.stock(SweetChangedEvent.Kind.RESTOCKED,
+					SweetMapper.copyWithQuantity(sweet, stock.quantity()), deltas.get(sweet.getId()), stock.sequence()));
+		}
+		return new BulkUpdateResult(deltas.size(), missing);
+	}
+
+	// Repeated lines for one sweet are a client error when their total doesn't fit an int
+	private static int addLines(int a, int b) {
+		try {
+			return Math.addExact(a, b);
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("Quantity too large");
+		}
+	}
+
+	// Set or scale the price of the listed sweets or of one whole category
+	@Transactional
+	public BulkUpdateResult changePrices(PriceChangeRequest request) {
+		String category = request.getCategory() == null || request.getCategory().isBlank() ? null : request.getCategory().trim();
+		boolean byIds = request.getSweetIds() != null && !request.getSweetIds().isEmpty();
+		if ((category != null) == byIds) {
+			throw new IllegalArgumentException("Specify either sweetIds or category");
+		}
+		boolean absolute = request.getMode() == PriceChangeRequest.Mode.ABSOLUTE;
+		BigDecimal value = request.getValue();
+		if (absolute) {
+			value = value.setScale(2, RoundingMode.HALF_UP);
+			if (value.signum() <= 0) throw new IllegalArgumentException("Price must be positive");
+		} else {
+			if (value.compareTo(HUNDRED.negate()) <= 0) {
+				throw new IllegalArgumentException("Percentage must be greater than -100");
+			}
+			value = BigDecimal.ONE.add(value.divide(HUNDRED, MathContext.DECIMAL64));
+		}
+
+		int updated;
+		List<Sweet> changed;
+		List<Long> missing = List.of();
+		if (byIds) {
+			SortedSet<Long> ids = new TreeSet<>(request.getSweetIds());
+			missing = retainExisting(ids);
+			updated = ids.isEmpty() ? 0 : absolute ? sweetRepository.setPrice(ids, value) : sweetRepository.scalePrice(ids, value);
+			changed = sweetRepository.findAllById(ids);
+		} else {
+			updated = absolute ? sweetRepository.setCategoryPrice(category, value) : sweetRepository.scaleCategoryPrice(category, value);
+			changed = sweetRepository.findByCategory(category);
+		}
+		for (Sweet sweet : changed) {
+			events.publishEvent(SweetChangedEvent.of(SweetChangedEvent.Kind.REPRICED, sweet));
+		}
+		return new BulkUpdateResult(updated, missing);
+	}
+
+	// Drops unknown ids from the set and returns them
+	private List<Long> retainExisting(Set<Long> ids) {
+		if (ids.isEmpty()) return List.of();
+		Set<Long> existing = new HashSet<>(sweetRepository.findExistingIds(ids));
+		List<Long> missing = new ArrayList<>();
+		for (Long id : ids) {
+			if (!existing.contains(id)) missing.add(id);
+		}
+		ids.retainAll(existing);
+		return missing;
+	}
+}
@@ -0,0 +1,54 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+
+// Published by SweetService for every catalog or stock change. Listeners use
+// @TransactionalEventListener(fallbackExecution = true) so they only see committed changes.
+public class SweetChangedEvent {
+
+	public enum Kind { CREATED, UPDATED, REPRICED, DELETED, PURCHASED, RESTOCKED }
+
+	private final Kind kind;
+	private final Long sweetId;
+	private final Sweet sweet;
+	private final int quantityChange;
+	private final long sequence;
+
+	private SweetChangedEvent(Kind kind, Long sweetId, Sweet sweet, int quantityChange, long sequence) {
+		this.kind = kind;
+		this.sweetId = sweetId;
+		this.sweet = sweet;
+		this.quantityChange = quantityChange;
+		this.sequence = sequence;
+	}
+
+	static SweetChangedEvent of(Kind kind, Sweet sweet) {
+		return new SweetChangedEvent(kind, sweet.getId(), SweetMapper.copy(sweet), 0, 0);
+	}
+
+	static SweetChangedEvent stock(Kind kind, Sweet sweet, int quantityChange) {
+		return stock(kind, sweet, quantityChange, 0);
+	}
+
+	static SweetChangedEvent stock(Kind kind, Sweet sweet, int quantityChange, long sequence) {
+		return new SweetChangedEvent(kind, sweet.getId(), SweetMapper.copy(sweet), quantityChange, sequence);
+	}
+
+	static SweetChangedEvent deleted(Long sweetId) {
+		return new SweetChangedEvent(Kind.DELETED, sweetId, null, 0, 0);
+	}
+
+	public Kind getKind() { return kind; }
+	public Long getSweetId() { return sweetId; }
+	// Detached snapshot after the change; null for DELETED
+	public Sweet getSweet() { return sweet; }
+	// Units added (restock) or removed (negative, purchase); 0 for catalog edits
+	public int getQuantityChange() { return quantityChange; }
+	// In memory mode, orders the quantity readings of one sweet's stock changes (see StripedInventory.stock);
+	// 0 when the quantity came from the database, where the version orders changes instead
+	public long getSequence() { return sequence; }
+
+	public boolean isStockChange() {
+		return kind == Kind.PURCHASED || kind == Kind.RESTOCKED;
+	}
+}
@@ -0,0 +1,193 @@
+package com.sweetshop.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.dto.ImportResult;
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetBatchWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Bulk catalog import from a JSON array or CSV upload. Input is parsed record by record, checked
+// against the SweetRequest constraints, and written in chunks of JDBC batches; each chunk is its own
+// transaction, so a malformed upload keeps the chunks committed before the error. Rows are matched
+// to existing sweets by name (per the database collation): matches are overwritten, the rest inserted.
+@Service
+public class SweetImportService {
+
+	static final int MAX_REPORTED_ERRORS = 100;
+	private static final List<String> CSV_COLUMNS = List.of("name", "category", "price", "quantity");
+
+	private final SweetBatchWriter batchWriter;
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+	private final TransactionTemplate transactionTemplate;
+	private final ApplicationEventPublisher events;
+	private final int chunkSize;
+	private final StripedInventory inventory;
+
+	// inventory is only present when app.inventory.mode=memory; pending stock is stored before overwrites
+	public SweetImportService(SweetBatchWriter batchWriter, ObjectMapper objectMapper, Validator validator,
+			PlatformTransactionManager transactionManager, ApplicationEventPublisher events,
+			@Value("${app.import.chunk-size:500}") int chunkSize, @Nullable StripedInventory inventory) {
+		this.batchWriter = batchWriter;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.events = events;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.inventory = inventory;
+	}
+
+	public ImportResult importJson(InputStream in) throws IOException {
+		Chunk chunk = new Chunk();
+		long row = 0;
+		try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new IllegalArgumentException("Expected a JSON array of sweets");
+			}
+			for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+				if (token == null) throw new IllegalArgumentException("Unexpected end of JSON after row " + row);
+				row++;
+				JsonNode node = parser.readValueAsTree();
+				try {
+					chunk.add(row, objectMapper.treeToValue(node, SweetRequest.class));
+				} catch (JsonProcessingException e) {
+					chunk.reject(row, "Invalid row: " + e.getOriginalMessage());
+				}
+			}
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Malformed JSON after row " + row + ": " + e.getOriginalMessage());
+		}
+		return chunk.finish();
+	}
+
+	public ImportResult importCsv(InputStream in) throws IOException {
+		CsvRecordReader csv = new CsvRecordReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+		List<String> header = csv.next();
+		if (header == null) throw new IllegalArgumentException("CSV upload is empty");
+		Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < header.size(); i++) {
+			columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+		}
+		for (String column : CSV_COLUMNS) {
+			if (!columns.containsKey(column)) throw new IllegalArgumentException("CSV header is missing column: " + column);
+		}
+
+		Chunk chunk = new Chunk();
+		long row = 0;
+		for (List<String> record = csv.next(); record != null; record = csv.next()) {
+			row++;
+			SweetRequest request = new SweetRequest();
+			try {
+				request.setName(field(record, columns, "name"));
+				request.setCategory(field(record, columns, "category"));
+				String price = field(record, columns, "price");
+				request.setPrice(price == null ? null : new BigDecimal(price));
+				String quantity = field(record, columns, "quantity");
+				request.setQuantity(quantity == null ? null : Integer.valueOf(quantity));
+			} catch (NumberFormatException e) {
+				chunk.reject(row, "Invalid number in row");
+				continue;
+			}
+			chunk.add(row, request);
+		}
+		return chunk.finish();
+	}
+
+	private static String field(List<String> record, Map<String, Integer> columns, String column) {
+		int index = columns.get(column);
+		if (index >= record.size()) return null;
+		String value = record.get(index).trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	// Collects valid rows until a chunk is full, then writes it
+	private class Chunk {
+		private final ImportResult result = new ImportResult();
+		private final Map<String, SweetRequest> pending = new LinkedHashMap<>();
+
+		void add(long row, SweetRequest request) {
+			Set<ConstraintViolation<SweetRequest>> violations = validator.validate(request);
+			if (!violations.isEmpty()) {
+				ConstraintViolation<SweetRequest> first = violations.iterator().next();
+				reject(row, first.getPropertyPath() + ": " + first.getMessage());
+				return;
+			}
+			String key = request.getName().toLowerCase(Locale.ROOT);
+			// A repeated name must see the earlier row as existing, so write what came before it
+			if (pending.containsKey(key) || pending.size() >= chunkSize) flush();
+			pending.put(key, request);
+		}
+
+		void reject(long row, String message) {
+			result.setFailed(result.getFailed() + 1);
+			if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+				result.getErrors().add(new ImportResult.RowError(row, message));
+			}
+		}
+
+		ImportResult finish() {
+			flush();
+			return result;
+		}
+
+		private void flush() {
+			if (pending.isEmpty()) return;
+			// Rows about to be overwritten get their pending in-memory stock stored first, before the
+			// chunk's transaction opens, since evicting takes a connection of its own
+			if (inventory != null) {
+				List<String> names = pending.values().stream().map(SweetRequest::getName).toList();
+				batchWriter.findIdsByName(names).values().forEach(inventory::evict);
+			}
+			transactionTemplate.executeWithoutResult(status -> write(new ArrayList<>(pending.values())));
+			pending.clear();
+		}
+
+		private void write(List<SweetRequest> requests) {
+			List<String> names = new ArrayList<>(requests.size());
+			for (SweetRequest request : requests) names.add(request.getName());
+			Map<String, Long> existing = new HashMap<>();
+			batchWriter.findIdsByName(names).forEach((name, id) ->
+					existing.merge(name.toLowerCase(Locale.ROOT), id, Math::min));
+
+			List<Sweet> inserts = new ArrayList<>();
+			List<Sweet> updates = new ArrayList<>();
+			for (SweetRequest request : requests) {
+				Sweet sweet = SweetMapper.toEntity(request);
+				sweet.setId(existing.get(request.getName().toLowerCase(Locale.ROOT)));
+				(sweet.getId() == null ? inserts : updates).add(sweet);
+			}
+			batchWriter.update(updates);
+			batchWriter.insert(inserts);
+
+			for (Sweet sweet : updates) events.publishEvent(SweetChangedEvent.of(SweetChangedEvent.Kind.UPDATED, sweet));
+			for (Sweet sweet : inserts) events.publishEvent(SweetChangedEvent.of(SweetChangedEvent.Kind.CREATED, sweet));
+			result.setUpdated(result.getUpdated() + updates.size());
+			result.setInserted(result.getInserted() + inserts.size());
+		}
+	}
+}
@@ -32,8 +32,26 @@ public class SweetMapper {
 		response.setCategory(sweetEntity.getCategory());
 		response.setPrice(sweetEntity.getPrice());
 		response.setQuantity(sweetEntity.getQuantity());
+		response.setVersion(sweetEntity.getVersion());
 		return response;
 	}
-}
 
+	// Detached copy of an entity, safe to hold after its persistence context is gone
+	public static Sweet copy(Sweet sweetEntity) {
+		Sweet copy = copyWithQuantity(sweetEntity, 0);
+		copy.setQuantity(sweetEntity.getQuantity());
+		return copy;
+	}
 
+	// Detached copy of an entity with a different quantity (used for live in-memory stock)
+	public static Sweet copyWithQuantity(Sweet sweetEntity, int quantity) {
+		Sweet copy = new Sweet();
+		copy.setId(sweetEntity.getId());
+		copy.setName(sweetEntity.getName());
+		copy.setCategory(sweetEntity.getCategory());
+		copy.setPrice(sweetEntity.getPrice());
+		copy.setQuantity(quantity);
+		copy.setVersion(sweetEntity.getVersion());
+		return copy;
+	}
+}
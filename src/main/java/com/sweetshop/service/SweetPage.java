@@ -0,0 +1,18 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import java.util.List;
+
+// One page of the catalog plus the opaque cursor for the next one (null on the last page)
+public class SweetPage {
+	private final List<Sweet> items;
+	private final String nextCursor;
+
+	public SweetPage(List<Sweet> items, String nextCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<Sweet> getItems() { return items; }
+	public String getNextCursor() { return nextCursor; }
+}
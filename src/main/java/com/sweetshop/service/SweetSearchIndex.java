@@ -0,0 +1,335 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// In-process catalog search so the search box never issues a LIKE '%..%' table scan.
+// Name and category are indexed as character trigrams (posting lists of int ordinals), and a
+// (price, id) sorted set answers price ranges. Matches are verified against the stored text, so
+// results are the same as the SQL "contains" filter, then ranked or sorted in memory.
+// The index follows writes made through SweetService on this instance and is rebuilt from the
+// database on startup and periodically to pick up anything else.
+@Component
+@ConditionalOnProperty(name = "app.search.index.enabled", havingValue = "true", matchIfMissing = true)
+public class SweetSearchIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(SweetSearchIndex.class);
+
+	// What a search returns per match: the id plus the value it was ordered by (for the cursor)
+	public record Hit(Long id, Comparable<?> sortValue) {}
+
+	private record Doc(int ordinal, Long id, String nameLower, String categoryLower, BigDecimal price) {}
+
+	private record PriceKey(BigDecimal price, Long id) {}
+
+	private static final Comparator<PriceKey> PRICE_ORDER =
+			Comparator.comparing(PriceKey::price).thenComparing(PriceKey::id);
+
+	private final SweetRepository sweetRepository;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Ordinals only grow; an updated or deleted sweet leaves a null slot and stale postings that
+	// verification skips, and the next rebuild compacts them away
+	private final List<Doc> docs = new ArrayList<>();
+	private final Map<Long, Doc> byId = new HashMap<>();
+	private final Map<String, IntList> nameGrams = new HashMap<>();
+	private final Map<String, IntList> categoryGrams = new HashMap<>();
+	private final NavigableSet<PriceKey> prices = new TreeSet<>(PRICE_ORDER);
+	private volatile boolean ready;
+	// Latest state (null = deleted) of sweets written while rebuildFromDatabase is loading, else null
+	private Map<Long, Sweet> changedDuringLoad;
+
+	public SweetSearchIndex(SweetRepository sweetRepository) {
+		this.sweetRepository = sweetRepository;
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${app.search.index.rebuild-interval-ms:300000}",
+			fixedDelayString = "${app.search.index.rebuild-interval-ms:300000}")
+	public void rebuildFromDatabase() {
+		long start = System.nanoTime();
+		// The load runs outside the lock, so writes that land meanwhile are journaled and replayed
+		// over the snapshot; otherwise a sweet deleted during the load would come back until next time
+		lock.writeLock().lock();
+		try {
+			changedDuringLoad = new HashMap<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		List<Sweet> all;
+		try {
+			all = sweetRepository.findAll();
+		} catch (RuntimeException ex) {
+			lock.writeLock().lock();
+			try {
+				changedDuringLoad = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			throw ex;
+		}
+		rebuild(all);
+		log.info("Search index rebuilt with {} sweets in {} ms", all.size(), (System.nanoTime() - start) / 1_000_000);
+	}
+
+	public void rebuild(Iterable<Sweet> sweets) {
+		lock.writeLock().lock();
+		try {
+			docs.clear();
+			byId.clear();
+			nameGrams.clear();
+			categoryGrams.clear();
+			prices.clear();
+			for (Sweet sweet : sweets) {
+				add(sweet);
+			}
+			if (changedDuringLoad != null) {
+				changedDuringLoad.forEach((id, sweet) -> {
+					removeLocked(id);
+					if (sweet != null) add(sweet);
+				});
+				changedDuringLoad = null;
+			}
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void upsert(Sweet sweet) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(sweet.getId());
+			add(sweet);
+			if (changedDuringLoad != null) changedDuringLoad.put(sweet.getId(), sweet);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long id) {
+		lock.writeLock().lock();
+		try {
+			removeLocked(id);
+			if (changedDuringLoad != null) changedDuringLoad.put(id, null);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onSweetChanged(SweetChangedEvent event) {
+		switch (event.getKind()) {
+			case CREATED, UPDATED, REPRICED -> upsert(event.getSweet());
+			case DELETED -> remove(event.getSweetId());
+			default -> { }
+		}
+	}
+
+	// Up to limit matches after the cursor position, in the requested order. RELEVANCE puts the
+	// best match first: exact name, then name prefix, word prefix, and plain substring.
+	public List<Hit> search(String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+			SweetSort sort, boolean descending, Comparable<?> afterValue, Long afterId, int limit) {
+		String nameQuery = name == null ? null : name.toLowerCase(Locale.ROOT);
+		String categoryQuery = category == null ? null : category.toLowerCase(Locale.ROOT);
+		List<Hit> matches = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			for (Doc doc : candidates(nameQuery, categoryQuery, minPrice, maxPrice)) {
+				if (nameQuery != null && !doc.nameLower().contains(nameQuery)) continue;
+				if (categoryQuery != null && !doc.categoryLower().contains(categoryQuery)) continue;
+				if (minPrice != null && doc.price().compareTo(minPrice) < 0) continue;
+				if (maxPrice != null && doc.price().compareTo(maxPrice) > 0) continue;
+				matches.add(new Hit(doc.id(), sortValue(doc, sort, nameQuery, categoryQuery)));
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		Comparator<Hit> order = hitOrder(descending);
+		if (afterId != null) {
+			// Sorting by id carries no separate value in the cursor
+			Hit cursor = new Hit(afterId, afterValue != null ? afterValue : afterId);
+			matches.removeIf(hit -> order.compare(hit, cursor) <= 0);
+		}
+		if (matches.size() <= limit) {
+			matches.sort(order);
+			return matches;
+		}
+		// Only the first page is needed: keep the best `limit` hits in a bounded heap instead of sorting all
+		PriorityQueue<Hit> top = new PriorityQueue<>(limit, order.reversed());
+		for (Hit hit : matches) {
+			if (top.size() < limit) {
+				top.offer(hit);
+			} else if (order.compare(hit, top.peek()) < 0) {
+				top.poll();
+				top.offer(hit);
+			}
+		}
+		List<Hit> page = new ArrayList<>(top);
+		page.sort(order);
+		return page;
+	}
+
+	private Iterable<Doc> candidates(String nameQuery, String categoryQuery, BigDecimal minPrice, BigDecimal maxPrice) {
+		if (nameQuery != null && nameQuery.length() >= 3) return fromPostings(nameGrams, nameQuery);
+		if (categoryQuery != null && categoryQuery.length() >= 3) return fromPostings(categoryGrams, categoryQuery);
+		if (minPrice != null || maxPrice != null) {
+			List<Doc> inRange = new ArrayList<>();
+			for (PriceKey key : priceRange(minPrice, maxPrice)) {
+				inRange.add(byId.get(key.id()));
+			}
+			return inRange;
+		}
+		// Queries shorter than a trigram cannot use the postings; scan the live documents
+		return byId.values();
+	}
+
+	private NavigableSet<PriceKey> priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+		if (prices.isEmpty()) return prices;
+		PriceKey from = minPrice == null ? prices.first() : new PriceKey(minPrice, Long.MIN_VALUE);
+		PriceKey to = maxPrice == null ? prices.last() : new PriceKey(maxPrice, Long.MAX_VALUE);
+		if (PRICE_ORDER.compare(from, to) > 0) return new TreeSet<>(PRICE_ORDER);
+		return prices.subSet(from, true, to, true);
+	}
+
+	// Intersect the posting lists of every trigram in the query, smallest first
+	private List<Doc> fromPostings(Map<String, IntList> grams, String query) {
+		List<IntList> lists = new ArrayList<>();
+		for (String gram : trigrams(query)) {
+			IntList postings = grams.get(gram);
+			if (postings == null) return List.of();
+			lists.add(postings);
+		}
+		lists.sort(Comparator.comparingInt(IntList::size));
+		int[] result = lists.get(0).toArray();
+		for (int i = 1; i < lists.size() && result.length > 0; i++) {
+			result = lists.get(i).intersect(result);
+		}
+		List<Doc> found = new ArrayList<>(result.length);
+		for (int ordinal : result) {
+			Doc doc = docs.get(ordinal);
+			if (doc != null) found.add(doc);
+		}
+		return found;
+	}
+
+	private Comparable<?> sortValue(Doc doc, SweetSort sort, String nameQuery, String categoryQuery) {
+		return switch (sort) {
+			case ID -> doc.id();
+			case NAME -> doc.nameLower();
+			case CATEGORY -> doc.categoryLower();
+			case PRICE -> doc.price();
+			// Negated so that ascending order lists the best match first
+			case RELEVANCE -> -(score(doc.nameLower(), nameQuery) + 0.5 * score(doc.categoryLower(), categoryQuery));
+		};
+	}
+
+	private static double score(String text, String query) {
+		if (query == null) return 0;
+		if (text.equals(query)) return 4;
+		if (text.startsWith(query)) return 3;
+		int at = text.indexOf(query, 1);
+		while (at > 0) {
+			if (text.charAt(at - 1) == ' ') return 2;
+			at = text.indexOf(query, at + 1);
+		}
+		return 1;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Comparator<Hit> hitOrder(boolean descending) {
+		Comparator<Hit> order = Comparator.comparing(hit -> (Comparable) hit.sortValue());
+		order = order.thenComparing(Hit::id);
+		return descending ? order.reversed() : order;
+	}
+
+	private void add(Sweet sweet) {
+		Doc doc = new Doc(docs.size(), sweet.getId(),
+				sweet.getName().toLowerCase(Locale.ROOT),
+				sweet.getCategory().toLowerCase(Locale.ROOT),
+				sweet.getPrice());
+		docs.add(doc);
+		byId.put(doc.id(), doc);
+		for (String gram : trigrams(doc.nameLower())) {
+			nameGrams.computeIfAbsent(gram, g -> new IntList()).add(doc.ordinal());
+		}
+		for (String gram : trigrams(doc.categoryLower())) {
+			categoryGrams.computeIfAbsent(gram, g -> new IntList()).add(doc.ordinal());
+		}
+		prices.add(new PriceKey(doc.price(), doc.id()));
+	}
+
+	private void removeLocked(Long id) {
+		Doc old = byId.remove(id);
+		if (old == null) return;
+		docs.set(old.ordinal(), null);
+		prices.remove(new PriceKey(old.price(), old.id()));
+	}
+
+	private static Set<String> trigrams(String text) {
+		Set<String> grams = new LinkedHashSet<>();
+		for (int i = 0; i + 3 <= text.length(); i++) {
+			grams.add(text.substring(i, i + 3));
+		}
+		return grams;
+	}
+
+	// Append-only sorted int list; ordinals are assigned in increasing order so appends keep it sorted
+	private static final class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		void add(int value) {
+			if (size > 0 && values[size - 1] == value) return;
+			if (size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		int size() {
+			return size;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+		// Merge-intersect with another sorted array
+		int[] intersect(int[] other) {
+			int[] out = new int[Math.min(size, other.length)];
+			int i = 0, j = 0, n = 0;
+			while (i < size && j < other.length) {
+				if (values[i] < other[j]) i++;
+				else if (values[i] > other[j]) j++;
+				else { out[n++] = values[i]; i++; j++; }
+			}
+			return Arrays.copyOf(out, n);
+		}
+	}
+}
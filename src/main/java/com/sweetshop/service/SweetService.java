@@ -1,48 +1,180 @@
 package com.sweetshop.service;
 
+import com.sweetshop.dto.CheckoutItem;
 import com.sweetshop.dto.SweetRequest;
 import com.sweetshop.entity.Sweet;
+import com.sweetshop.exception.PreconditionFailedException;
 import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.repository.SweetSpecifications;
+import io.micrometer.core.annotation.Timed;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Timed("service.method")
 public class SweetService {
 
+	public static final int MAX_PAGE_SIZE = 200;
+
 	private final SweetRepository sweetRepository;
+	private final ApplicationEventPublisher events;
+	private final StripedInventory inventory;
+	private final SweetSearchIndex searchIndex;
+	private final CatalogCache catalogCache;
+	private final OptimisticRetry retry;
+
+	public SweetService(SweetRepository sweetRepository, ApplicationEventPublisher events) {
+		this(sweetRepository, events, null, null, null, null);
+	}
 
-	public SweetService(SweetRepository sweetRepository) {
+	// inventory is only present when app.inventory.mode=memory; otherwise stock lives in the database.
+	// searchIndex is absent when app.search.index.enabled=false; searches then run as SQL.
+	// catalogCache is absent when app.catalog-cache.enabled=false.
+	// retry is absent outside a full context; writes then run once in the caller's transaction.
+	@Autowired
+	public SweetService(SweetRepository sweetRepository, ApplicationEventPublisher events,
+			@Nullable StripedInventory inventory, @Nullable SweetSearchIndex searchIndex,
+			@Nullable CatalogCache catalogCache, @Nullable OptimisticRetry retry) {
 		this.sweetRepository = sweetRepository;
+		this.events = events;
+		this.inventory = inventory;
+		this.searchIndex = searchIndex;
+		this.catalogCache = catalogCache;
+		this.retry = retry;
+	}
+
+	// One sweet with live stock; its version doubles as the ETag for conditional updates
+	public Sweet get(Long id) {
+		Sweet sweet = sweetRepository.findById(id)
+				.orElseThrow(() -> new java.util.NoSuchElementException("Sweet not found"));
+		if (inventory == null) return sweet;
+		Integer quantity = inventory.peek(id);
+		return quantity == null ? sweet : SweetMapper.copyWithQuantity(sweet, quantity);
 	}
 
 	@Transactional
 	public Sweet create(SweetRequest request) {
 		Sweet sweet = SweetMapper.toEntity(request);
-		return sweetRepository.save(sweet);
+		Sweet saved = sweetRepository.save(sweet);
+		events.publishEvent(SweetChangedEvent.of(SweetChangedEvent.Kind.CREATED, saved));
+		return saved;
 	}
 
     // Fetch all sweets currently in catalog (no filters)
     public List<Sweet> listAll() {
-        return sweetRepository.findAll();
+        return cached(CatalogCache.Query.all(), () -> new SweetPage(sweetRepository.findAll(), null)).getItems();
     }
 
-    // Support optional text filters and price range; nulls are ignored in the repository query
+    // Support optional text filters and price range; nulls are ignored. Ranked when the index is up.
     public List<Sweet> search(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
-        return sweetRepository.search(
-                sanitize(name),
-                sanitize(category),
-                minPrice,
-                maxPrice);
+        String nameFilter = sanitize(name);
+        String categoryFilter = sanitize(category);
+        return cached(CatalogCache.Query.search(nameFilter, categoryFilter, minPrice, maxPrice),
+                () -> new SweetPage(loadSearch(nameFilter, categoryFilter, minPrice, maxPrice), null)).getItems();
+    }
+
+    // One keyset page of the (optionally filtered) catalog ordered by (sort key, id)
+    public SweetPage page(String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+            SweetSort sort, boolean descending, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String nameFilter = sanitize(name);
+        String categoryFilter = sanitize(category);
+        return cached(CatalogCache.Query.page(nameFilter, categoryFilter, minPrice, maxPrice, sort, descending, cursor, limit),
+                () -> loadPage(nameFilter, categoryFilter, minPrice, maxPrice, sort, descending, cursor, limit));
+    }
+
+    // Read through the catalog cache when enabled; live stock is overlaid after the cache so
+    // in-memory inventory changes never need to invalidate it
+    private SweetPage cached(CatalogCache.Query query, java.util.function.Supplier<SweetPage> loader) {
+        SweetPage page = catalogCache == null ? loader.get() : catalogCache.getOrLoad(query, loader);
+        return new SweetPage(withLiveStock(page.getItems()), page.getNextCursor());
+    }
+
+    private List<Sweet> loadSearch(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (isIndexed()) {
+            return loadInOrder(searchIndex.search(name, category, minPrice, maxPrice,
+                    SweetSort.RELEVANCE, false, null, null, Integer.MAX_VALUE));
+        }
+        return sweetRepository.findAll(SweetSpecifications.matches(name, category, minPrice, maxPrice));
+    }
+
+    private SweetPage loadPage(String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+            SweetSort sort, boolean descending, String cursor, int limit) {
+        boolean filtered = name != null || category != null || minPrice != null || maxPrice != null;
+        if (filtered && isIndexed()) {
+            return indexedPage(name, category, minPrice, maxPrice, sort, descending, cursor, limit);
+        }
+        // Relevance needs the index; without it fall back to a stable id order
+        if (sort == SweetSort.RELEVANCE) sort = SweetSort.ID;
+        Specification<Sweet> spec = SweetSpecifications.matches(name, category, minPrice, maxPrice);
+        if (cursor != null && !cursor.isBlank()) {
+            CatalogCursor after = CatalogCursor.decode(cursor, sort, descending);
+            spec = spec.and(SweetSpecifications.after(sort.property(), after.value, after.id, descending));
+        }
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort order = sort == SweetSort.ID
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sort.property()).and(Sort.by(direction, "id"));
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<Sweet> rows = sweetRepository.findBy(spec, q -> q.sortBy(order).limit(limit + 1).all());
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            next = CatalogCursor.encode(sort, descending, rows.get(limit - 1));
+        }
+        return new SweetPage(rows, next);
     }
 
-	@Transactional
     public Sweet update(Long id, SweetRequest request) {
+        return update(id, request, null);
+    }
+
+    // Without an expected version a conflicting concurrent write is retried from a fresh read (last
+    // writer wins field by field). With one, the caller asked for a conditional write: a mismatch,
+    // or a commit that loses the race, is reported as 412 instead of being retried.
+    public Sweet update(Long id, SweetRequest request, @Nullable Long expectedVersion) {
+        // The edit sets an absolute quantity: store pending in-memory stock first, or it would land on
+        // top. Before the transaction opens, since evicting takes a connection of its own.
+        if (inventory != null) inventory.evict(id);
+        if (expectedVersion == null) {
+            return optimistically("update", () -> updateOnce(id, request, null));
+        }
+        try {
+            return retry == null ? updateOnce(id, request, expectedVersion)
+                    : retry.once("update", () -> updateOnce(id, request, expectedVersion));
+        } catch (OptimisticLockingFailureException e) {
+            throw new PreconditionFailedException("Sweet " + id + " was modified concurrently");
+        }
+    }
+
+    private Sweet updateOnce(Long id, SweetRequest request, @Nullable Long expectedVersion) {
         Sweet sweet = sweetRepository.findById(id)
                 .orElseThrow(() -> new java.util.NoSuchElementException("Sweet not found"));
+        if (expectedVersion != null && !expectedVersion.equals(sweet.getVersion())) {
+            throw new PreconditionFailedException("Sweet " + id + " is at version " + sweet.getVersion()
+                    + ", not " + expectedVersion);
+        }
         SweetMapper.updateEntity(sweet, request);
-        return sweetRepository.save(sweet);
+        // Flushed so the version is bumped before the event copies the row
+        Sweet saved = sweetRepository.saveAndFlush(sweet);
+        events.publishEvent(SweetChangedEvent.of(SweetChangedEvent.Kind.UPDATED, saved));
+        return saved;
     }
 
 	@Transactional
@@ -51,27 +183,186 @@ public class SweetService {
 			throw new java.util.NoSuchElementException("Sweet not found");
 		}
 		sweetRepository.deleteById(id);
+		events.publishEvent(SweetChangedEvent.deleted(id));
 	}
 
 	@Transactional
     public Sweet purchase(Long id) {
-        Sweet sweet = sweetRepository.findById(id)
-                .orElseThrow(() -> new java.util.NoSuchElementException("Sweet not found"));
-        if (sweet.getQuantity() <= 0) {
-            throw new IllegalArgumentException("Out of stock");
+        return purchase(id, 1);
+    }
+
+    // Single conditional UPDATE so concurrent buyers never oversell or hold a row lock across a read
+	@Transactional
+    public Sweet purchase(Long id, int qty) {
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive");
+        Sweet sweet;
+        long sequence = 0;
+        if (inventory != null) {
+            if (!inventory.tryTake(id, qty)) throw new IllegalArgumentException("Out of stock");
+            StripedInventory.Stock stock = inventory.stock(id);
+            sweet = liveCopy(id, stock);
+            sequence = stock.sequence();
+        } else {
+            if (sweetRepository.decrementStock(id, qty) == 0) {
+                // Nothing changed: tell apart a missing sweet from insufficient stock
+                if (!sweetRepository.existsById(id)) {
+                    throw new java.util.NoSuchElementException("Sweet not found");
+                }
+                throw new IllegalArgumentException("Out of stock");
+            }
+            sweet = sweetRepository.findById(id)
+                    .orElseThrow(() -> new java.util.NoSuchElementException("Sweet not found"));
         }
-        sweet.setQuantity(sweet.getQuantity() - 1);
-        return sweetRepository.save(sweet);
+        events.publishEvent(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, sweet, -qty, sequence));
+        events.publishEvent(OrderPlacedEvent.of(List.of(sweet), Map.of(id, qty)));
+        return sweet;
     }
 
+    // Buy a whole basket atomically; lines are merged per sweet and applied in id order so
+    // concurrent baskets always take row locks in the same sequence and cannot deadlock
 	@Transactional
+    public List<Sweet> checkout(List<CheckoutItem> items) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (CheckoutItem item : items) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            quantities.merge(item.getSweetId(), item.getQuantity(), SweetService::addLines);
+        }
+        Map<Long, Long> sequences = new HashMap<>();
+        List<Sweet> purchased = inventory != null ? checkoutInMemory(quantities, sequences) : checkoutInDatabase(quantities);
+        for (Sweet sweet : purchased) {
+            events.publishEvent(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, sweet,
+                    -quantities.get(sweet.getId()), sequences.getOrDefault(sweet.getId(), 0L)));
+        }
+        events.publishEvent(OrderPlacedEvent.of(purchased, quantities));
+        return purchased;
+    }
+
+    // Repeated lines for one sweet are a client error when their total doesn't fit an int
+    private static int addLines(int a, int b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Quantity too large");
+        }
+    }
+
+    private List<Sweet> checkoutInDatabase(SortedMap<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            if (sweetRepository.decrementStock(line.getKey(), line.getValue()) == 0) {
+                // Throwing rolls back every line already reserved in this transaction
+                if (!sweetRepository.existsById(line.getKey())) {
+                    throw new java.util.NoSuchElementException("Sweet not found");
+                }
+                throw new IllegalArgumentException("Out of stock for sweet " + line.getKey());
+            }
+        }
+        List<Sweet> purchased = new ArrayList<>(sweetRepository.findAllById(quantities.keySet()));
+        purchased.sort(Comparator.comparing(Sweet::getId));
+        return purchased;
+    }
+
+	// Read-modify-write on the row, so it runs under the version check and is retried on conflict
 	public Sweet restock(Long id, int qty) {
 		if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive");
-		Sweet sweet = sweetRepository.findById(id).orElseThrow(() -> new java.util.NoSuchElementException("Sweet not found"));
-		sweet.setQuantity(sweet.getQuantity() + qty);
-		return sweetRepository.save(sweet);
+		return optimistically("restock", () -> restockOnce(id, qty));
 	}
 
+	private Sweet restockOnce(Long id, int qty) {
+		Sweet saved;
+		long sequence = 0;
+		if (inventory != null) {
+			inventory.add(id, qty);
+			StripedInventory.Stock stock = inventory.stock(id);
+			saved = liveCopy(id, stock);
+			sequence = stock.sequence();
+		} else {
+			Sweet sweet = sweetRepository.findById(id).orElseThrow(() -> new java.util.NoSuchElementException("Sweet not found"));
+			sweet.setQuantity(sweet.getQuantity() + qty);
+			saved = sweetRepository.saveAndFlush(sweet);
+		}
+		events.publishEvent(SweetChangedEvent.stock(SweetChangedEvent.Kind.RESTOCKED, saved, qty, sequence));
+		return saved;
+	}
+
+    private Sweet optimistically(String operation, java.util.function.Supplier<Sweet> work) {
+        return retry == null ? work.get() : retry.run(operation, work);
+    }
+
+    private boolean isIndexed() {
+        return searchIndex != null && searchIndex.isReady();
+    }
+
+    // Page through index hits with the same cursor format as the SQL path, then load just that page
+    private SweetPage indexedPage(String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+            SweetSort sort, boolean descending, String cursor, int limit) {
+        Comparable<?> afterValue = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            CatalogCursor after = CatalogCursor.decode(cursor, sort, descending);
+            afterValue = after.value;
+            afterId = after.id;
+        }
+        List<SweetSearchIndex.Hit> hits = searchIndex.search(name, category, minPrice, maxPrice,
+                sort, descending, afterValue, afterId, limit + 1);
+        String next = null;
+        if (hits.size() > limit) {
+            hits = hits.subList(0, limit);
+            SweetSearchIndex.Hit last = hits.get(limit - 1);
+            next = CatalogCursor.encode(sort, descending, last.sortValue(), last.id());
+        }
+        return new SweetPage(loadInOrder(hits), next);
+    }
+
+    // One IN query for the page, returned in hit order; rows deleted meanwhile are skipped
+    private List<Sweet> loadInOrder(List<SweetSearchIndex.Hit> hits) {
+        Map<Long, Sweet> byId = new HashMap<>();
+        for (Sweet sweet : sweetRepository.findAllById(hits.stream().map(SweetSearchIndex.Hit::id).toList())) {
+            byId.put(sweet.getId(), sweet);
+        }
+        List<Sweet> ordered = new ArrayList<>(hits.size());
+        for (SweetSearchIndex.Hit hit : hits) {
+            Sweet sweet = byId.get(hit.id());
+            if (sweet != null) ordered.add(sweet);
+        }
+        return ordered;
+    }
+
+    // Take every line from the in-memory counters; throwing rolls back the transaction, which hands
+    // the earlier lines back to the counters. Each line's inventory sequence goes into sequences.
+    private List<Sweet> checkoutInMemory(SortedMap<Long, Integer> quantities, Map<Long, Long> sequences) {
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            if (!inventory.tryTake(line.getKey(), line.getValue())) {
+                throw new IllegalArgumentException("Out of stock for sweet " + line.getKey());
+            }
+        }
+        List<Sweet> purchased = new ArrayList<>();
+        for (Long id : quantities.keySet()) {
+            StripedInventory.Stock stock = inventory.stock(id);
+            purchased.add(liveCopy(id, stock));
+            sequences.put(id, stock.sequence());
+        }
+        return purchased;
+    }
+
+    // Detached copy carrying the in-memory quantity, so the managed entity is never dirtied
+    private Sweet liveCopy(Long id, StripedInventory.Stock stock) {
+        Sweet sweet = sweetRepository.findById(id)
+                .orElseThrow(() -> new java.util.NoSuchElementException("Sweet not found"));
+        return SweetMapper.copyWithQuantity(sweet, stock.quantity());
+    }
+
+    private List<Sweet> withLiveStock(List<Sweet> sweets) {
+        if (inventory == null) return sweets;
+        List<Sweet> live = new ArrayList<>(sweets.size());
+        for (Sweet sweet : sweets) {
+            Integer quantity = inventory.peek(sweet.getId());
+            live.add(quantity == null ? sweet : SweetMapper.copyWithQuantity(sweet, quantity));
+        }
+        return live;
+    }
+
     // Normalize empty strings to null for repository query parameters
     private String sanitize(String value) {
         if (value == null) return null;
@@ -0,0 +1,53 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.function.Function;
+
+// Catalog orderings supported by keyset pagination; id is always the tie-breaker.
+// RELEVANCE is only meaningful for text searches answered by SweetSearchIndex.
+public enum SweetSort {
+	ID("id", Sweet::getId),
+	NAME("name", Sweet::getName),
+	CATEGORY("category", Sweet::getCategory),
+	PRICE("price", Sweet::getPrice),
+	RELEVANCE(null, sweet -> null);
+
+	private final String property;
+	private final Function<Sweet, Comparable<?>> extractor;
+
+	SweetSort(String property, Function<Sweet, Comparable<?>> extractor) {
+		this.property = property;
+		this.extractor = extractor;
+	}
+
+	public String property() { return property; }
+
+	Comparable<?> valueOf(Sweet sweet) {
+		return extractor.apply(sweet);
+	}
+
+	// Turn the textual cursor value back into the type of this sort key
+	Comparable<?> parse(String raw) {
+		return switch (this) {
+			case ID -> Long.valueOf(raw);
+			case PRICE -> new BigDecimal(raw);
+			case RELEVANCE -> Double.valueOf(raw);
+			default -> raw;
+		};
+	}
+
+	public static SweetSort from(String value) {
+		return from(value, ID);
+	}
+
+	public static SweetSort from(String value, SweetSort defaultSort) {
+		if (value == null || value.isBlank()) return defaultSort;
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException ex) {
+			throw new IllegalArgumentException("Unsupported sort: " + value);
+		}
+	}
+}
@@ -5,44 +5,76 @@ import com.sweetshop.dto.RegisterRequest;
 import com.sweetshop.entity.Role;
 import com.sweetshop.entity.User;
 import com.sweetshop.repository.UserRepository;
+import com.sweetshop.security.PasswordHasher;
+import com.sweetshop.security.UserAuthCache;
+import io.micrometer.core.annotation.Timed;
 import java.util.Collection;
 import java.util.List;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Timed("service.method")
 public class UserService implements UserDetailsService {
 
 	private final UserRepository userRepository;
-	private final PasswordEncoder passwordEncoder;
+	private final PasswordHasher passwordHasher;
+	private final UserAuthCache userAuthCache;
+	private final KnownAccountsFilter knownAccounts;
 
-	public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+	public UserService(UserRepository userRepository, PasswordHasher passwordHasher, UserAuthCache userAuthCache,
+			KnownAccountsFilter knownAccounts) {
 		this.userRepository = userRepository;
-		this.passwordEncoder = passwordEncoder;
+		this.passwordHasher = passwordHasher;
+		this.userAuthCache = userAuthCache;
+		this.knownAccounts = knownAccounts;
 	}
 
-	@Transactional
-    // Create a fresh user account after basic uniqueness checks
+    // Create a fresh user account. The unique indexes on users are the real check: the insert is
+    // the only query unless the account filter says a name might be taken, and a conflict (or a
+    // race with another registration) costs one more query to say which field clashed. Not one
+    // transaction: the hash would otherwise hold a pooled connection while it waits for the hasher.
     public User registerNewUser(RegisterRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new IllegalArgumentException("Username already taken");
-        }
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("Email already registered");
+        String username = request.getUsername();
+        String email = request.getEmail();
+        if (knownAccounts.mightHaveUsername(username) || knownAccounts.mightHaveEmail(email)) {
+            rejectTaken(username, email);
         }
         User newUser = new User();
-        newUser.setUsername(request.getUsername());
-        newUser.setEmail(request.getEmail());
-        newUser.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+        newUser.setUsername(username);
+        newUser.setEmail(email);
+        newUser.setPasswordHash(passwordHasher.encode(request.getPassword()));
         Role assignedRole = request.getRole() != null ? request.getRole() : Role.USER;
         newUser.setRole(assignedRole);
-        return userRepository.save(newUser);
+        User saved;
+        try {
+            saved = userRepository.save(newUser);
+        } catch (DataIntegrityViolationException e) {
+            rejectTaken(username, email);
+            throw e;
+        }
+        knownAccounts.add(username, email);
+        return saved;
+    }
+
+    // Bloom-filter answer first; only a "might be taken" needs the database
+    public boolean isUsernameAvailable(String username) {
+        return !knownAccounts.mightHaveUsername(username) || !userRepository.existsByUsername(username);
+    }
+
+    private void rejectTaken(String username, String email) {
+        List<String> taken = userRepository.findTakenFields(username, email);
+        if (taken.contains("username")) {
+            throw new IllegalArgumentException("Username already taken");
+        }
+        if (taken.contains("email")) {
+            throw new IllegalArgumentException("Email already registered");
+        }
     }
 
     // Validate credentials and return the authenticated domain user
@@ -50,12 +82,24 @@ public class UserService implements UserDetailsService {
         User foundUser = userRepository
                 .findByUsernameOrEmail(request.getUsernameOrEmail(), request.getUsernameOrEmail())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        if (!passwordEncoder.matches(request.getPassword(), foundUser.getPasswordHash())) {
+        if (!passwordHasher.matches(request.getPassword(), foundUser.getPasswordHash())) {
             throw new IllegalArgumentException("Invalid credentials");
         }
         return foundUser;
     }
 
+    // Change a user's role and revoke every token issued under the old one
+    public User changeRole(String username, Role role) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new java.util.NoSuchElementException("User not found"));
+        user.setRole(role);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User saved = userRepository.save(user);
+        // save() has committed by now, so a reload after this sees the new version
+        userAuthCache.invalidate(username);
+        return saved;
+    }
+
 	@Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository
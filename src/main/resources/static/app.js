@@ -43,8 +43,22 @@ async function api(path, options = {}) {
     throw new Error(msg);
   }
   const contentType = res.headers.get('content-type') || '';
-  if (contentType.includes('application/json')) return res.json();
-  return res.text();
+  const body = contentType.includes('application/json') ? await res.json() : await res.text();
+  if (options.paged) return { data: body, nextCursor: res.headers.get('X-Next-Cursor') };
+  return body;
+}
+
+// Catalog endpoints are keyset-paginated; follow X-Next-Cursor until the last page
+async function apiAllPages(path) {
+  const all = [];
+  let cursor = null;
+  do {
+    const sep = path.includes('?') ? '&' : '?';
+    const page = await api(`${path}${sep}limit=200${cursor ? `&cursor=${encodeURIComponent(cursor)}` : ''}`, { paged: true });
+    if (Array.isArray(page.data)) all.push(...page.data);
+    cursor = page.nextCursor;
+  } while (cursor);
+  return all;
 }
 
 document.getElementById('login-form').addEventListener('submit', async (e) => {
@@ -83,7 +97,7 @@ logoutBtn.addEventListener('click', () => {
 async function loadSweets() {
   sweetsList.innerHTML = 'Loading...';
   try {
-    const data = await api('/api/sweets');
+    const data = await apiAllPages('/api/sweets');
     if (!Array.isArray(data)) { sweetsList.textContent = 'No data'; return; }
     if (data.length === 0) { sweetsList.textContent = 'No sweets available'; return; }
     sweetsList.innerHTML = '';
@@ -55,8 +55,12 @@ class SweetIntegrationTest {
 		JsonNode sweet = objectMapper.readTree(created.getResponse().getContentAsString());
 		long id = sweet.get("id").asLong();
 
-		mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + adminToken))
-				.andExpect(status().isOk());
+		MvcResult listed = mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + adminToken))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("ETag")).andReturn();
+		mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + adminToken)
+				.header("If-None-Match", listed.getResponse().getHeader("ETag")))
+				.andExpect(status().isNotModified());
 
 		mockMvc.perform(get("/api/sweets/search").header("Authorization", "Bearer " + adminToken)
 				.param("name", "ladoo")).andExpect(status().isOk());
@@ -76,6 +80,14 @@ class SweetIntegrationTest {
 		mockMvc.perform(post("/api/sweets/" + id + "/restock").header("Authorization", "Bearer " + adminToken).param("qty", "3"))
 				.andExpect(status().isOk());
 
+		String checkoutBody = "{\n" +
+				"  \"items\": [{ \"sweetId\": " + id + ", \"quantity\": 2 }]\n" +
+				"}";
+		mockMvc.perform(post("/api/orders/checkout").header("Authorization", "Bearer " + adminToken)
+				.contentType(MediaType.APPLICATION_JSON).content(checkoutBody))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].quantity").value(6));
+
 		mockMvc.perform(delete("/api/sweets/" + id).header("Authorization", "Bearer " + adminToken))
 				.andExpect(status().isNoContent());
 
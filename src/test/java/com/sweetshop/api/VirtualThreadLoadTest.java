@@ -0,0 +1,95 @@
+package com.sweetshop.api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Load test for VIRTUAL_THREADS=true: Tomcat is capped at 20 worker threads, yet 200 concurrent
+// requests that each block for a while must all be in flight at once. With platform threads the
+// peak would stop at the pool size. Runs against embedded H2 and only on a Java 21+ runtime.
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.threads.virtual.enabled=true",
+		"server.tomcat.threads.max=" + VirtualThreadLoadTest.TOMCAT_THREADS,
+		"spring.datasource.url=jdbc:h2:mem:virtual-threads;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false"
+})
+@Import(VirtualThreadLoadTest.BlockingEndpoint.class)
+class VirtualThreadLoadTest {
+
+	static final int TOMCAT_THREADS = 20;
+	private static final int CONCURRENT_REQUESTS = 200;
+	private static final long BLOCK_MS = 1000;
+
+	private static final AtomicInteger inFlight = new AtomicInteger();
+	private static final AtomicInteger peak = new AtomicInteger();
+
+	@LocalServerPort private int port;
+	@Autowired private ObjectMapper objectMapper;
+
+	@Test
+	void concurrency_is_not_bounded_by_the_tomcat_pool() throws Exception {
+		HttpClient client = HttpClient.newHttpClient();
+		String token = register(client);
+
+		HttpRequest slow = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/test/blocking"))
+				.header("Authorization", "Bearer " + token).build();
+		List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+		for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+			responses.add(client.sendAsync(slow, HttpResponse.BodyHandlers.ofString()));
+		}
+		for (CompletableFuture<HttpResponse<String>> response : responses) {
+			assertEquals(200, response.get().statusCode());
+		}
+
+		assertTrue(peak.get() > TOMCAT_THREADS * 2,
+				"peak concurrency " + peak.get() + " should exceed the " + TOMCAT_THREADS + "-thread pool");
+	}
+
+	private String register(HttpClient client) throws Exception {
+		String body = "{\"username\":\"load\",\"email\":\"load@example.com\",\"password\":\"Password@123\",\"role\":\"USER\"}";
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/register"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode());
+		return objectMapper.readTree(response.body()).get("token").asText();
+	}
+
+	// Stands in for a slow downstream call (database under load, remote service)
+	@TestConfiguration
+	@RestController
+	static class BlockingEndpoint {
+		@GetMapping("/test/blocking")
+		String block() throws InterruptedException {
+			peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(BLOCK_MS);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			return Thread.currentThread().toString();
+		}
+	}
+}
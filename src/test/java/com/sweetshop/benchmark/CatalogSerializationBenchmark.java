@@ -0,0 +1,72 @@
+package com.sweetshop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.dto.SweetResponse;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.service.SweetMapper;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// Turning one catalog page into bytes, the work CatalogSnapshots does once per page and the
+// controller used to do per request: SweetMapper.toResponse over the page, then Jackson encoding.
+// The ObjectMapper is built like Boot's so the numbers match the running application.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogSerializationBenchmark {
+
+	@Param({ "20", "200" })
+	public int pageSize;
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private List<Sweet> page;
+	private List<SweetResponse> responses;
+
+	@Setup
+	public void setup() {
+		page = new ArrayList<>(pageSize);
+		for (int i = 1; i <= pageSize; i++) {
+			Sweet sweet = new Sweet();
+			sweet.setId((long) i);
+			sweet.setName("Kaju Katli " + i);
+			sweet.setCategory(i % 2 == 0 ? "Indian" : "Western");
+			sweet.setPrice(BigDecimal.valueOf(250 + i, 2));
+			sweet.setQuantity(i % 40);
+			page.add(sweet);
+		}
+		responses = map();
+	}
+
+	@Benchmark
+	public SweetResponse toResponse() {
+		return SweetMapper.toResponse(page.get(0));
+	}
+
+	@Benchmark
+	public List<SweetResponse> mapPage() {
+		return map();
+	}
+
+	@Benchmark
+	public byte[] serializePage() throws Exception {
+		return objectMapper.writeValueAsBytes(responses);
+	}
+
+	@Benchmark
+	public byte[] mapAndSerializePage() throws Exception {
+		return objectMapper.writeValueAsBytes(map());
+	}
+
+	private List<SweetResponse> map() {
+		List<SweetResponse> mapped = new ArrayList<>(page.size());
+		for (Sweet sweet : page) mapped.add(SweetMapper.toResponse(sweet));
+		return mapped;
+	}
+}
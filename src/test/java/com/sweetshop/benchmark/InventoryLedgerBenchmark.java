@@ -0,0 +1,62 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.entity.InventoryMovement;
+import com.sweetshop.service.InventoryLedger;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Ledger append throughput in movements per second on the real application context with in-memory
+// H2: each invocation records MOVEMENTS movements over 100 sweets and then flushes what is still
+// queued. batchSize=1 is the row-at-a-time baseline; larger sizes go out as JDBC batches.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryLedgerBenchmark {
+
+	private static final int MOVEMENTS = 1000;
+
+	@Param({ "1", "100", "500" })
+	public int batchSize;
+
+	private ConfigurableApplicationContext context;
+	private InventoryLedger ledger;
+	private long sequence;
+
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(SweetShopApplication.class).run("--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:ledger-bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN",
+				"--app.inventory.ledger.batch-size=" + batchSize,
+				"--app.inventory.ledger.snapshot-interval-ms=3600000");
+		ledger = context.getBean(InventoryLedger.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MOVEMENTS)
+	public void append() {
+		Instant now = Instant.now();
+		for (int i = 0; i < MOVEMENTS; i++) {
+			long n = sequence++;
+			ledger.record(n % 100, InventoryMovement.Kind.PURCHASE, -1, (int) (n % 1000), "bench", now);
+		}
+		ledger.flush();
+	}
+}
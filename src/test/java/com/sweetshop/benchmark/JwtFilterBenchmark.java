@@ -0,0 +1,84 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.security.JwtAuthenticationFilter;
+import com.sweetshop.security.JwtService;
+import com.sweetshop.security.UserAuthCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+// Cost of authenticating one request: the old triple-parse path versus the filter with and without the
+// verified-token cache. The user lookup is stubbed so only JWT work is measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+	private static final String SECRET = "benchmark-secret";
+
+	private JwtAuthenticationFilter cachedFilter;
+	private JwtAuthenticationFilter uncachedFilter;
+	private MockHttpServletRequest request;
+	private String token;
+	private final FilterChain chain = (req, res) -> {};
+
+	@Setup
+	public void setup() {
+		UserDetails user = new User("bench", "x", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		UserDetailsService users = username -> user;
+		UserAuthCache userAuthCache = new UserAuthCache(null, 60_000L, 10_000);
+		JwtService cached = new JwtService(SECRET, 3_600_000L, 10_000);
+		JwtService uncached = new JwtService(SECRET, 3_600_000L, 0);
+		cachedFilter = new JwtAuthenticationFilter(cached, users, userAuthCache);
+		uncachedFilter = new JwtAuthenticationFilter(uncached, users, userAuthCache);
+		token = cached.generateToken("bench");
+		request = new MockHttpServletRequest("GET", "/api/sweets");
+		request.addHeader("Authorization", "Bearer " + token);
+	}
+
+	@Benchmark
+	public Object filterWithCache() throws Exception {
+		SecurityContextHolder.clearContext();
+		cachedFilter.doFilter(request, new MockHttpServletResponse(), chain);
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+	@Benchmark
+	public Object filterWithoutCache() throws Exception {
+		SecurityContextHolder.clearContext();
+		uncachedFilter.doFilter(request, new MockHttpServletResponse(), chain);
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+	// Reproduces the previous JwtService: key derivation and a fresh parser on each of three parses
+	@Benchmark
+	public boolean legacyTripleParse() throws Exception {
+		String username = legacyClaims(token).getSubject();
+		return legacyClaims(token).getSubject().equals(username)
+				&& !legacyClaims(token).getExpiration().before(new Date());
+	}
+
+	private static Claims legacyClaims(String jwt) throws Exception {
+		byte[] keyBytes = MessageDigest.getInstance("SHA-256").digest(SECRET.getBytes(StandardCharsets.UTF_8));
+		Key key = Keys.hmacShaKeyFor(keyBytes);
+		return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
+	}
+}
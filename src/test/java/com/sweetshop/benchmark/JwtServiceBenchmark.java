@@ -0,0 +1,44 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.security.JwtService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// JwtService on its own: signing a token (login/register) and reading the subject back, with the
+// verified-token cache warm versus disabled (every call re-checks the HMAC signature).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+	private static final String SECRET = "benchmark-secret";
+
+	private JwtService cached;
+	private JwtService uncached;
+	private String token;
+
+	@Setup
+	public void setup() {
+		cached = new JwtService(SECRET, 3_600_000L, 10_000);
+		uncached = new JwtService(SECRET, 3_600_000L, 0);
+		token = cached.generateToken("bench", "USER", 0);
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return cached.generateToken("bench", "USER", 0);
+	}
+
+	@Benchmark
+	public String extractUsernameCached() {
+		return cached.extractUsername(token);
+	}
+
+	@Benchmark
+	public String extractUsernameUncached() {
+		return uncached.extractUsername(token);
+	}
+}
@@ -0,0 +1,80 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.service.SweetImportService;
+import com.sweetshop.service.SweetService;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// Rows per second loading a supplier catalog: one SweetService.create transaction per row (what
+// repeated POST /api/sweets amounts to) versus SweetImportService's chunked JDBC batches. Runs the
+// real application context on a random port against in-memory H2, so there is no network round
+// trip to amortise and the gap on MySQL is larger. Every invocation writes fresh names, so both
+// paths insert rather than update.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SweetImportBenchmark {
+
+	private static final int ROWS = 1000;
+
+	private ConfigurableApplicationContext context;
+	private SweetService sweetService;
+	private SweetImportService importService;
+	private long batch;
+
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(SweetShopApplication.class)
+				.run("--server.port=0",
+						"--spring.datasource.url=jdbc:h2:mem:import-bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+						"--spring.datasource.driver-class-name=org.h2.Driver",
+						"--spring.datasource.username=sa",
+						"--spring.datasource.password=",
+						"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+						"--spring.jpa.show-sql=false",
+						"--logging.level.root=WARN");
+		sweetService = context.getBean(SweetService.class);
+		importService = context.getBean(SweetImportService.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void singleCreates() {
+		long prefix = batch++;
+		for (int i = 0; i < ROWS; i++) {
+			SweetRequest request = new SweetRequest();
+			request.setName("Create " + prefix + "-" + i);
+			request.setCategory("Bench");
+			request.setPrice(new BigDecimal("2.50"));
+			request.setQuantity(10);
+			sweetService.create(request);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int bulkImport() throws Exception {
+		long prefix = batch++;
+		StringBuilder csv = new StringBuilder(ROWS * 40).append("name,category,price,quantity\n");
+		for (int i = 0; i < ROWS; i++) {
+			csv.append("Import ").append(prefix).append('-').append(i).append(",Bench,2.50,10\n");
+		}
+		return importService.importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)))
+				.getInserted();
+	}
+}
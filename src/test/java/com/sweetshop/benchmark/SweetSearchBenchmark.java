@@ -0,0 +1,110 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.service.SweetSearchIndex;
+import com.sweetshop.service.SweetSort;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Search over a 100k-row catalog: the former JPQL LIKE query (as the SQL Hibernate generated for
+// it, run on in-memory H2) versus SweetSearchIndex. H2 stands in for MySQL here; both do a full
+// scan for '%term%', so the relative gap is what matters.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SweetSearchBenchmark {
+
+	private static final String LIKE_QUERY = "SELECT id, name, category, price, quantity FROM sweets"
+			+ " WHERE (? IS NULL OR LOWER(name) LIKE LOWER(CONCAT('%', ?, '%')))"
+			+ " AND (? IS NULL OR LOWER(category) LIKE LOWER(CONCAT('%', ?, '%')))"
+			+ " AND (? IS NULL OR price >= ?) AND (? IS NULL OR price <= ?)";
+
+	private static final String[] WORDS = { "kaju", "katli", "ladoo", "barfi", "peda", "jalebi", "halwa",
+			"truffle", "fudge", "toffee", "praline", "brownie", "rasgulla", "sandesh", "mysore", "pak" };
+	private static final String[] CATEGORIES = { "Indian", "Bengali", "Western", "Fusion", "Sugar Free" };
+
+	@Param({ "100000" })
+	public int rows;
+
+	@Param({ "truffle", "kaju katli" })
+	public String term;
+
+	private Connection connection;
+	private SweetSearchIndex index;
+
+	@Setup
+	public void setup() throws Exception {
+		connection = DriverManager.getConnection("jdbc:h2:mem:search-bench;MODE=MySQL", "sa", "");
+		try (Statement st = connection.createStatement()) {
+			st.execute("CREATE TABLE sweets (id BIGINT PRIMARY KEY, name VARCHAR(120), category VARCHAR(80),"
+					+ " price DECIMAL(10,2), quantity INT)");
+		}
+		List<Sweet> sweets = new ArrayList<>(rows);
+		try (PreparedStatement insert = connection.prepareStatement("INSERT INTO sweets VALUES (?, ?, ?, ?, ?)")) {
+			for (int i = 1; i <= rows; i++) {
+				Sweet s = new Sweet();
+				s.setId((long) i);
+				s.setName(WORDS[i % WORDS.length] + " " + WORDS[(i / 7) % WORDS.length] + " " + i);
+				s.setCategory(CATEGORIES[i % CATEGORIES.length]);
+				s.setPrice(BigDecimal.valueOf(100 + i % 5000, 2));
+				s.setQuantity(i % 50);
+				sweets.add(s);
+				insert.setLong(1, s.getId());
+				insert.setString(2, s.getName());
+				insert.setString(3, s.getCategory());
+				insert.setBigDecimal(4, s.getPrice());
+				insert.setInt(5, s.getQuantity());
+				insert.addBatch();
+				if (i % 1000 == 0) insert.executeBatch();
+			}
+			insert.executeBatch();
+		}
+		index = new SweetSearchIndex(null);
+		index.rebuild(sweets);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		connection.close();
+	}
+
+	@Benchmark
+	public int likeQuery() throws Exception {
+		try (PreparedStatement ps = connection.prepareStatement(LIKE_QUERY)) {
+			ps.setString(1, term);
+			ps.setString(2, term);
+			ps.setString(3, null);
+			ps.setString(4, null);
+			ps.setBigDecimal(5, null);
+			ps.setBigDecimal(6, null);
+			ps.setBigDecimal(7, null);
+			ps.setBigDecimal(8, null);
+			int count = 0;
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) count++;
+			}
+			return count;
+		}
+	}
+
+	@Benchmark
+	public int indexFirstPage() {
+		return index.search(term, null, null, null, SweetSort.RELEVANCE, false, null, null, 51).size();
+	}
+
+	@Benchmark
+	public int indexAllMatches() {
+		return index.search(term, null, null, null, SweetSort.RELEVANCE, false, null, null, Integer.MAX_VALUE).size();
+	}
+}
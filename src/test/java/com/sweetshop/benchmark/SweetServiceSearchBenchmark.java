@@ -0,0 +1,80 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.service.SweetImportService;
+import com.sweetshop.service.SweetService;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// SweetService.search end to end (proxy, transaction, repository or index, live stock overlay) on
+// the real application context with in-memory H2:
+//   sql     - search index and catalog cache off, every call is a JPA Specification query
+//   index   - the trigram index answers, rows are loaded by id
+//   cached  - index plus the read-through catalog cache, i.e. the production defaults
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SweetServiceSearchBenchmark {
+
+	private static final String[] WORDS = { "kaju", "katli", "ladoo", "barfi", "peda", "jalebi", "halwa",
+			"truffle", "fudge", "toffee", "praline", "brownie", "rasgulla", "sandesh", "mysore", "pak" };
+	private static final String[] CATEGORIES = { "Indian", "Bengali", "Western", "Fusion", "Sugar Free" };
+
+	@Param({ "sql", "index", "cached" })
+	public String mode;
+
+	@Param({ "10000" })
+	public int rows;
+
+	private ConfigurableApplicationContext context;
+	private SweetService sweetService;
+
+	@Setup
+	public void setup() throws Exception {
+		List<String> args = new ArrayList<>(List.of("--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:service-search-bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN"));
+		args.add("--app.search.index.enabled=" + !"sql".equals(mode));
+		args.add("--app.catalog-cache.enabled=" + "cached".equals(mode));
+		context = new SpringApplicationBuilder(SweetShopApplication.class).run(args.toArray(String[]::new));
+		sweetService = context.getBean(SweetService.class);
+
+		StringBuilder csv = new StringBuilder(rows * 40).append("name,category,price,quantity\n");
+		for (int i = 1; i <= rows; i++) {
+			csv.append(WORDS[i % WORDS.length]).append(' ').append(WORDS[(i / 7) % WORDS.length]).append(' ').append(i)
+					.append(',').append(CATEGORIES[i % CATEGORIES.length])
+					.append(',').append(1 + i % 50).append(".25,").append(i % 100).append('\n');
+		}
+		context.getBean(SweetImportService.class)
+				.importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int searchByName() {
+		return sweetService.search("truffle", null, null, null).size();
+	}
+
+	@Benchmark
+	public int searchByNameAndCategory() {
+		return sweetService.search("kaju", "indian", null, null).size();
+	}
+}
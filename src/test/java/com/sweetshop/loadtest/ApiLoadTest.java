@@ -0,0 +1,53 @@
+package com.sweetshop.loadtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+// Self-contained load test: the full application on a random port over in-memory H2, seeded by
+// LoadTestSeeder, driven by WorkloadGenerator. Only runs with -Ploadtest; tune it with
+//   -Dloadtest.concurrency=16 -Dloadtest.warmup-seconds=5 -Dloadtest.duration-seconds=20
+//   -Dloadtest.mix=browse=50,search=25,purchase=15,login=10
+//   -Dapp.loadtest.sweets=5000 -Dapp.loadtest.users=200
+// The report is printed and written to target/loadtest-report.txt.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+@Import(LoadTestSeeder.class)
+class ApiLoadTest {
+
+	@LocalServerPort private int port;
+	@Autowired private LoadTestSeeder seed;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private Environment env;
+
+	@Test
+	void mixed_workload() throws Exception {
+		WorkloadGenerator.Settings settings = new WorkloadGenerator.Settings(
+				env.getProperty("loadtest.concurrency", Integer.class, 16),
+				Duration.ofSeconds(env.getProperty("loadtest.warmup-seconds", Integer.class, 5)),
+				Duration.ofSeconds(env.getProperty("loadtest.duration-seconds", Integer.class, 20)),
+				WorkloadGenerator.parseMix(env.getProperty("loadtest.mix", "browse=50,search=25,purchase=15,login=10")));
+
+		WorkloadGenerator.Report report = new WorkloadGenerator("http://localhost:" + port, seed, objectMapper).run(settings);
+
+		String text = String.format("concurrency=%d duration=%ds sweets=%d users=%d%n%s", settings.concurrency(),
+				settings.duration().toSeconds(), seed.getMaxSweetId() - seed.getMinSweetId() + 1, seed.getUsers(), report.format());
+		System.out.println(text);
+		Files.writeString(Path.of("target", "loadtest-report.txt"), text);
+
+		settings.mix().forEach((op, weight) -> {
+			if (weight > 0) assertTrue(report.count(op) > 0, "no " + op + " requests completed");
+		});
+		assertTrue(report.totalErrors() * 100 <= report.totalCount(), "more than 1% of requests failed");
+	}
+}
@@ -0,0 +1,74 @@
+package com.sweetshop.loadtest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Fills the embedded database before the application reports ready, so the search index and the
+// account filter are built over the seeded data. Every user shares one password, hashed once.
+@TestConfiguration
+public class LoadTestSeeder implements ApplicationRunner {
+
+	static final String PASSWORD = "LoadTest@123";
+	static final String[] WORDS = { "kaju", "katli", "ladoo", "barfi", "peda", "jalebi", "halwa",
+			"truffle", "fudge", "toffee", "praline", "brownie", "rasgulla", "sandesh", "mysore", "pak" };
+	private static final String[] CATEGORIES = { "Indian", "Bengali", "Western", "Fusion", "Sugar Free" };
+	private static final int BATCH = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final PasswordEncoder passwordEncoder;
+	private final int sweets;
+	private final int users;
+	private final int stock;
+	private long minSweetId;
+	private long maxSweetId;
+
+	public LoadTestSeeder(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder,
+			@Value("${app.loadtest.sweets:5000}") int sweets,
+			@Value("${app.loadtest.users:200}") int users,
+			@Value("${app.loadtest.stock:100000}") int stock) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.passwordEncoder = passwordEncoder;
+		this.sweets = sweets;
+		this.users = users;
+		this.stock = stock;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		List<Object[]> rows = new ArrayList<>(BATCH);
+		for (int i = 1; i <= sweets; i++) {
+			String name = WORDS[i % WORDS.length] + " " + WORDS[(i / 7) % WORDS.length] + " " + i;
+			rows.add(new Object[] { name, CATEGORIES[i % CATEGORIES.length], BigDecimal.valueOf(100 + i % 5000, 2), stock });
+			if (rows.size() == BATCH || i == sweets) {
+				jdbcTemplate.batchUpdate("INSERT INTO sweets (name, category, price, quantity, version) VALUES (?, ?, ?, ?, 0)", rows);
+				rows.clear();
+			}
+		}
+		String hash = passwordEncoder.encode(PASSWORD);
+		for (int i = 0; i < users; i++) {
+			rows.add(new Object[] { username(i), username(i) + "@load.test", hash, "USER", 0 });
+			if (rows.size() == BATCH || i == users - 1) {
+				jdbcTemplate.batchUpdate("INSERT INTO users (username, email, password_hash, role, token_version)"
+						+ " VALUES (?, ?, ?, ?, ?)", rows);
+				rows.clear();
+			}
+		}
+		minSweetId = jdbcTemplate.queryForObject("SELECT COALESCE(MIN(id), 0) FROM sweets", Long.class);
+		maxSweetId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sweets", Long.class);
+	}
+
+	static String username(int i) {
+		return "load-user-" + i;
+	}
+
+	int getUsers() { return users; }
+	long getMinSweetId() { return minSweetId; }
+	long getMaxSweetId() { return maxSweetId; }
+}
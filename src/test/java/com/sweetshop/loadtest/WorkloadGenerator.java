@@ -0,0 +1,241 @@
+package com.sweetshop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Closed-loop workload against the REST API: each worker logs in once, then issues operations
+// back to back, picked at random by weight, until the run ends. Latencies are recorded per worker
+// (no shared state on the hot path) once the warm-up is over, and merged for the report.
+class WorkloadGenerator {
+
+	enum Operation { BROWSE, SEARCH, PURCHASE, LOGIN }
+
+	record Settings(int concurrency, Duration warmup, Duration duration, Map<Operation, Integer> mix) {}
+
+	private final String baseUrl;
+	private final LoadTestSeeder seed;
+	private final ObjectMapper objectMapper;
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+	WorkloadGenerator(String baseUrl, LoadTestSeeder seed, ObjectMapper objectMapper) {
+		this.baseUrl = baseUrl;
+		this.seed = seed;
+		this.objectMapper = objectMapper;
+	}
+
+	// Parses "browse=50,search=25,purchase=15,login=10"
+	static Map<Operation, Integer> parseMix(String mix) {
+		Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+		for (String part : mix.split(",")) {
+			String[] kv = part.trim().split("=");
+			if (kv.length != 2) throw new IllegalArgumentException("Bad mix entry: " + part);
+			weights.put(Operation.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(kv[1].trim()));
+		}
+		if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+			throw new IllegalArgumentException("Mix weights must add up to more than zero");
+		}
+		return weights;
+	}
+
+	Report run(Settings settings) throws Exception {
+		ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency());
+		long start = System.nanoTime();
+		long recordFrom = start + settings.warmup().toNanos();
+		long end = recordFrom + settings.duration().toNanos();
+		try {
+			List<Future<Worker>> futures = new ArrayList<>();
+			for (int i = 0; i < settings.concurrency(); i++) {
+				Worker worker = new Worker(i, settings.mix(), recordFrom, end);
+				futures.add(workers.submit(() -> { worker.run(); return worker; }));
+			}
+			Report report = new Report(settings.duration());
+			for (Future<Worker> future : futures) report.add(future.get());
+			return report;
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private final class Worker {
+		private final int index;
+		private final Operation[] wheel;
+		private final long recordFrom;
+		private final long end;
+		private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+		private String token;
+		private String cursor;
+
+		Worker(int index, Map<Operation, Integer> mix, long recordFrom, long end) {
+			this.index = index;
+			this.recordFrom = recordFrom;
+			this.end = end;
+			List<Operation> slots = new ArrayList<>();
+			mix.forEach((op, weight) -> { for (int i = 0; i < weight; i++) slots.add(op); });
+			this.wheel = slots.toArray(Operation[]::new);
+			for (Operation op : Operation.values()) samples.put(op, new Samples());
+		}
+
+		void run() throws Exception {
+			token = login(LoadTestSeeder.username(index % seed.getUsers())).body;
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			long now;
+			while ((now = System.nanoTime()) < end) {
+				Operation op = wheel[random.nextInt(wheel.length)];
+				Result result;
+				try {
+					result = execute(op, random);
+				} catch (IOException e) {
+					result = new Result(-1, null, null);
+				}
+				long finished = System.nanoTime();
+				if (now >= recordFrom) samples.get(op).add(finished - now, result.status / 100 == 2);
+			}
+		}
+
+		private Result execute(Operation op, ThreadLocalRandom random) throws Exception {
+			switch (op) {
+				case BROWSE: {
+					String url = "/api/sweets?limit=20" + (cursor == null ? "" : "&cursor=" + encode(cursor));
+					Result result = send(HttpRequest.newBuilder(uri(url)).GET());
+					cursor = result.nextCursor;
+					return result;
+				}
+				case SEARCH: {
+					String term = LoadTestSeeder.WORDS[random.nextInt(LoadTestSeeder.WORDS.length)];
+					return send(HttpRequest.newBuilder(uri("/api/sweets/search?name=" + term)).GET());
+				}
+				case PURCHASE: {
+					long id = random.nextLong(seed.getMinSweetId(), seed.getMaxSweetId() + 1);
+					return send(HttpRequest.newBuilder(uri("/api/sweets/" + id + "/purchase"))
+							.POST(HttpRequest.BodyPublishers.noBody()));
+				}
+				default:
+					return login(LoadTestSeeder.username(random.nextInt(seed.getUsers())));
+			}
+		}
+
+		private Result send(HttpRequest.Builder request) throws Exception {
+			HttpResponse<byte[]> response = client.send(request.header("Authorization", "Bearer " + token).build(),
+					HttpResponse.BodyHandlers.ofByteArray());
+			return new Result(response.statusCode(), null, response.headers().firstValue("X-Next-Cursor").orElse(null));
+		}
+	}
+
+	// Returns the issued token as the body
+	private Result login(String username) throws Exception {
+		String body = objectMapper.writeValueAsString(Map.of("usernameOrEmail", username, "password", LoadTestSeeder.PASSWORD));
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+		String token = response.statusCode() == 200 ? objectMapper.readTree(response.body()).get("token").asText() : null;
+		return new Result(response.statusCode(), token, null);
+	}
+
+	private URI uri(String path) {
+		return URI.create(baseUrl + path);
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	private record Result(int status, String body, String nextCursor) {}
+
+	// Growable array of latencies in nanoseconds, owned by one worker
+	private static final class Samples {
+		long[] nanos = new long[1024];
+		int count;
+		int errors;
+
+		void add(long latency, boolean ok) {
+			if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+			nanos[count++] = latency;
+			if (!ok) errors++;
+		}
+	}
+
+	static final class Report {
+		private final Duration duration;
+		private final Map<Operation, List<Samples>> byOperation = new EnumMap<>(Operation.class);
+
+		Report(Duration duration) {
+			this.duration = duration;
+		}
+
+		private void add(Worker worker) {
+			worker.samples.forEach((op, s) -> byOperation.computeIfAbsent(op, k -> new ArrayList<>()).add(s));
+		}
+
+		long count(Operation op) {
+			return byOperation.getOrDefault(op, List.of()).stream().mapToLong(s -> s.count).sum();
+		}
+
+		long errors(Operation op) {
+			return byOperation.getOrDefault(op, List.of()).stream().mapToLong(s -> s.errors).sum();
+		}
+
+		long totalCount() {
+			return Arrays.stream(Operation.values()).mapToLong(this::count).sum();
+		}
+
+		long totalErrors() {
+			return Arrays.stream(Operation.values()).mapToLong(this::errors).sum();
+		}
+
+		String format() {
+			StringBuilder out = new StringBuilder(String.format(Locale.ROOT,
+					"%-10s %9s %7s %9s %9s %9s %9s %9s%n", "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+			double seconds = duration.toMillis() / 1000.0;
+			List<long[]> all = new ArrayList<>();
+			for (Operation op : Operation.values()) {
+				long[] sorted = merged(byOperation.getOrDefault(op, List.of()));
+				all.add(sorted);
+				row(out, op.name().toLowerCase(Locale.ROOT), sorted, errors(op), seconds);
+			}
+			long[] total = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+			row(out, "total", total, totalErrors(), seconds);
+			return out.toString();
+		}
+
+		private static void row(StringBuilder out, String name, long[] sorted, long errors, double seconds) {
+			out.append(String.format(Locale.ROOT, "%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, sorted.length, errors,
+					sorted.length / seconds, millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99),
+					sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6));
+		}
+
+		private static long[] merged(List<Samples> samples) {
+			long[] merged = new long[samples.stream().mapToInt(s -> s.count).sum()];
+			int offset = 0;
+			for (Samples s : samples) {
+				System.arraycopy(s.nanos, 0, merged, offset, s.count);
+				offset += s.count;
+			}
+			Arrays.sort(merged);
+			return merged;
+		}
+
+		// Nearest-rank percentile
+		private static double millis(long[] sorted, double percentile) {
+			if (sorted.length == 0) return 0;
+			int rank = (int) Math.ceil(percentile * sorted.length);
+			return sorted[Math.max(0, rank - 1)] / 1e6;
+		}
+	}
+}
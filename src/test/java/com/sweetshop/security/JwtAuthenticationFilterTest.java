@@ -0,0 +1,75 @@
+package com.sweetshop.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.sweetshop.repository.UserRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+class JwtAuthenticationFilterTest {
+
+	private final JwtService jwtService = new JwtService("test-secret-key", 3_600_000L, 100);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+	private final UserAuthCache userAuthCache = new UserAuthCache(userRepository, 60_000L, 100);
+	private final Timer parseTimer = new SimpleMeterRegistry().timer("jwt.parse");
+	private final JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, userDetailsService, userAuthCache, parseTimer);
+
+	@AfterEach
+	void clear() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void role_claim_authenticates_without_user_lookup() throws Exception {
+		when(userRepository.findTokenVersionByUsername("john")).thenReturn(Optional.of(0));
+		String token = jwtService.generateToken("john", "ADMIN", 0);
+
+		for (int i = 0; i < 3; i++) {
+			Authentication auth = authenticate(token);
+			assertNotNull(auth);
+			assertTrue(auth.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+		}
+		verify(userRepository, times(1)).findTokenVersionByUsername("john");
+		verifyNoInteractions(userDetailsService);
+		assertEquals(3, parseTimer.count());
+	}
+
+	@Test
+	void stale_token_version_is_rejected() throws Exception {
+		when(userRepository.findTokenVersionByUsername("john")).thenReturn(Optional.of(1));
+		assertNull(authenticate(jwtService.generateToken("john", "ADMIN", 0)));
+	}
+
+	@Test
+	void legacy_token_falls_back_to_cached_lookup() throws Exception {
+		when(userDetailsService.loadUserByUsername("john"))
+				.thenReturn(new User("john", "HASH", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+		String token = jwtService.generateToken("john");
+
+		assertNotNull(authenticate(token));
+		assertNotNull(authenticate(token));
+		verify(userDetailsService, times(1)).loadUserByUsername("john");
+	}
+
+	private Authentication authenticate(String token) throws Exception {
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sweets");
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+}
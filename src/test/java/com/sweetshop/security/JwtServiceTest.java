@@ -0,0 +1,61 @@
+package com.sweetshop.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+class JwtServiceTest {
+
+	private final JwtService jwtService = new JwtService("test-secret-key", 3_600_000L, 2);
+
+	@Test
+	void token_round_trip() {
+		String token = jwtService.generateToken("john");
+		assertEquals("john", jwtService.extractUsername(token));
+		assertTrue(jwtService.isTokenValid(token, "john"));
+		assertFalse(jwtService.isTokenValid(token, "jane"));
+	}
+
+	@Test
+	void repeat_token_reuses_verified_claims() {
+		String token = jwtService.generateToken("john");
+		Claims first = jwtService.parseClaims(token);
+		assertSame(first, jwtService.parseClaims(token));
+	}
+
+	@Test
+	void tampered_token_rejected() {
+		String token = jwtService.generateToken("john");
+		jwtService.parseClaims(token);
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+		assertThrows(JwtException.class, () -> jwtService.parseClaims(tampered));
+	}
+
+	@Test
+	void cache_stays_bounded() {
+		ExpiringCache<String, Claims> cache = new ExpiringCache<>(2);
+		for (String user : new String[] { "a", "b", "c", "d" }) {
+			String token = jwtService.generateToken(user);
+			cache.put(token, jwtService.parseClaims(token), Long.MAX_VALUE);
+		}
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	void role_and_version_travel_in_token() {
+		Claims claims = jwtService.parseClaims(jwtService.generateToken("john", "ADMIN", 3));
+		assertEquals("ADMIN", jwtService.extractRole(claims));
+		assertEquals(3, jwtService.extractTokenVersion(claims));
+	}
+
+	@Test
+	void expired_cache_entries_are_not_returned() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+		cache.put("k", "v", 1_000L);
+		assertEquals("v", cache.get("k", 999L));
+		assertNull(cache.get("k", 1_000L));
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,64 @@
+package com.sweetshop.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class LoginThrottleTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void account_is_blocked_after_repeated_failures_until_a_success_clears_it() {
+		LoginThrottle throttle = new LoginThrottle(3, 60_000, 100, 60_000, 1000, registry);
+		for (int i = 0; i < 3; i++) {
+			throttle.check("John", "10.0.0.1");
+			throttle.recordFailure("John");
+		}
+
+		TooManyRequestsException blocked = assertThrows(TooManyRequestsException.class,
+				() -> throttle.check(" john ", "10.0.0.2"));
+		assertTrue(blocked.getRetryAfterSeconds() >= 1);
+		assertDoesNotThrow(() -> throttle.check("jane", "10.0.0.1"));
+		assertEquals(1, registry.get("auth.login.throttled").tag("scope", "account").functionCounter().count());
+		assertEquals(3, registry.get("auth.login.failures").functionCounter().count());
+
+		throttle.recordSuccess("john");
+		assertDoesNotThrow(() -> throttle.check("john", "10.0.0.1"));
+	}
+
+	@Test
+	void every_attempt_counts_against_the_client_ip() {
+		LoginThrottle throttle = new LoginThrottle(100, 60_000, 2, 60_000, 1000, registry);
+		throttle.check("a", "10.0.0.1");
+		throttle.check("b", "10.0.0.1");
+
+		assertThrows(TooManyRequestsException.class, () -> throttle.check("c", "10.0.0.1"));
+		assertDoesNotThrow(() -> throttle.check("c", "10.0.0.2"));
+		assertEquals(1, registry.get("auth.login.throttled").tag("scope", "ip").functionCounter().count());
+	}
+
+	@Test
+	void window_slides_and_old_events_fade_out() {
+		SlidingWindowLimiter limiter = new SlidingWindowLimiter(4, 1000, 1000);
+		for (int i = 0; i < 4; i++) assertEquals(0, limiter.tryAcquire("k", 10_500));
+		assertTrue(limiter.tryAcquire("k", 10_900) > 0);
+
+		// Half of the previous bucket still overlaps the window: 4 * 0.5 = 2 events remain
+		assertEquals(0, limiter.tryAcquire("k", 11_500));
+		assertEquals(0, limiter.tryAcquire("k", 11_500));
+		assertTrue(limiter.retryAfterSeconds("k", 11_500) > 0);
+		assertEquals(0, limiter.retryAfterSeconds("k", 13_000));
+	}
+
+	@Test
+	void tracked_keys_stay_bounded() {
+		SlidingWindowLimiter limiter = new SlidingWindowLimiter(1, 60_000, 32);
+		for (int i = 0; i < 1000; i++) limiter.record("key-" + i, 0);
+
+		assertTrue(limiter.size() <= 32);
+		assertEquals(1000 - limiter.size(), limiter.evictions());
+	}
+}
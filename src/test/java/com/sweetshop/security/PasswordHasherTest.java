@@ -0,0 +1,84 @@
+package com.sweetshop.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordHasherTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private PasswordHasher hasher;
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		if (hasher != null) hasher.shutdown();
+	}
+
+	@Test
+	void hashes_on_the_pool_and_records_latency() {
+		hasher = new PasswordHasher(new BCryptPasswordEncoder(4), 1, 4, 5000, registry);
+
+		String hash = hasher.encode("secret123");
+		assertTrue(hasher.matches("secret123", hash));
+		assertFalse(hasher.matches("wrong", hash));
+		assertEquals(1, registry.get("password.hash").tag("operation", "encode").timer().count());
+		assertEquals(2, registry.get("password.hash").tag("operation", "matches").timer().count());
+	}
+
+	@Test
+	void rejects_at_once_when_the_queue_is_full() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		hasher = new PasswordHasher(blockingEncoder(started), 1, 1, 5000, registry);
+		CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("b"));
+		while (registry.get("password.hash.queue").gauge().value() < 1) Thread.onSpinWait();
+
+		long start = System.nanoTime();
+		ServiceBusyException busy = assertThrows(ServiceBusyException.class, () -> hasher.encode("c"));
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+		assertEquals(1, busy.getRetryAfterSeconds());
+		assertEquals(1, registry.get("password.hash.rejected").functionCounter().count());
+
+		release.countDown();
+		assertEquals("hash:a", running.get(5, TimeUnit.SECONDS));
+		assertEquals("hash:b", queued.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void gives_up_after_the_timeout() throws Exception {
+		hasher = new PasswordHasher(blockingEncoder(new CountDownLatch(1)), 1, 1, 50, registry);
+		assertThrows(ServiceBusyException.class, () -> hasher.matches("a", "hash:a"));
+	}
+
+	// Encoder whose hashes block until the test releases them
+	private PasswordEncoder blockingEncoder(CountDownLatch started) {
+		return new PasswordEncoder() {
+			@Override
+			public String encode(CharSequence raw) {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "hash:" + raw;
+			}
+
+			@Override
+			public boolean matches(CharSequence raw, String encoded) {
+				return encode(raw).equals(encoded);
+			}
+		};
+	}
+}
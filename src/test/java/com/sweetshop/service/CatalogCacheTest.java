@@ -0,0 +1,133 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.entity.Sweet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CatalogCacheTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void second_read_is_served_from_cache() {
+		CatalogCache cache = new CatalogCache(60_000, 10, "in-place", registry);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads, sweet(1L, 5)));
+		SweetPage page = cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads, sweet(1L, 5)));
+
+		assertEquals(1, loads.get());
+		assertEquals(1L, page.getItems().get(0).getId());
+		assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+		assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+	}
+
+	@Test
+	void purchase_updates_quantity_in_place() {
+		CatalogCache cache = new CatalogCache(60_000, 10, "in-place", registry);
+		AtomicInteger loads = new AtomicInteger();
+		cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads, sweet(1L, 5), sweet(2L, 3)));
+
+		cache.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, sweet(1L, 4), -1));
+		SweetPage page = cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads));
+
+		assertEquals(1, loads.get());
+		assertEquals(4, page.getItems().get(0).getQuantity());
+		assertEquals(3, page.getItems().get(1).getQuantity());
+	}
+
+	@Test
+	void older_stock_event_arriving_last_is_ignored() {
+		CatalogCache cache = new CatalogCache(60_000, 10, "in-place", registry);
+		AtomicInteger loads = new AtomicInteger();
+		cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads, versioned(sweet(1L, 5), 3), versioned(sweet(2L, 5), 3)));
+
+		// Database mode: the version orders the events
+		cache.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, versioned(sweet(1L, 3), 5), -1));
+		cache.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, versioned(sweet(1L, 4), 4), -1));
+		// Memory mode: same version, the inventory sequence orders them
+		cache.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, versioned(sweet(2L, 3), 3), -1, 8));
+		cache.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, versioned(sweet(2L, 4), 3), -1, 7));
+
+		SweetPage page = cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads));
+		assertEquals(1, loads.get());
+		assertEquals(3, page.getItems().get(0).getQuantity());
+		assertEquals(5L, page.getItems().get(0).getVersion());
+		assertEquals(3, page.getItems().get(1).getQuantity());
+	}
+
+	@Test
+	void catalog_edit_or_invalidate_mode_drops_everything() {
+		CatalogCache cache = new CatalogCache(60_000, 10, "invalidate", registry);
+		AtomicInteger loads = new AtomicInteger();
+		cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads, sweet(1L, 5)));
+
+		cache.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.RESTOCKED, sweet(1L, 9), 4));
+		assertEquals(0, cache.size());
+		cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads, sweet(1L, 9)));
+		cache.onSweetChanged(SweetChangedEvent.deleted(1L));
+
+		assertEquals(0, cache.size());
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void result_loaded_across_a_write_is_not_stored() {
+		CatalogCache cache = new CatalogCache(60_000, 10, "in-place", registry);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.getOrLoad(CatalogCache.Query.all(), () -> {
+			cache.onSweetChanged(SweetChangedEvent.of(SweetChangedEvent.Kind.CREATED, sweet(2L, 1)));
+			return load(loads, sweet(1L, 5));
+		});
+
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void size_is_bounded_and_evictions_are_counted() {
+		CatalogCache cache = new CatalogCache(60_000, 2, "in-place", registry);
+		AtomicInteger loads = new AtomicInteger();
+		for (int i = 0; i < 5; i++) {
+			cache.getOrLoad(CatalogCache.Query.search("n" + i, null, null, null), () -> load(loads, sweet(1L, 5)));
+		}
+
+		assertEquals(2, cache.size());
+		assertEquals(3.0, registry.get("cache.evictions").functionCounter().count());
+		assertEquals(2.0, registry.get("cache.size").gauge().value());
+	}
+
+	@Test
+	void expired_entries_are_reloaded() {
+		CatalogCache cache = new CatalogCache(0, 10, "in-place", registry);
+		AtomicInteger loads = new AtomicInteger();
+		cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads, sweet(1L, 5)));
+		cache.getOrLoad(CatalogCache.Query.all(), () -> load(loads, sweet(1L, 5)));
+		assertEquals(2, loads.get());
+	}
+
+	private static SweetPage load(AtomicInteger loads, Sweet... sweets) {
+		loads.incrementAndGet();
+		return new SweetPage(List.of(sweets), null);
+	}
+
+	private static Sweet sweet(Long id, int quantity) {
+		Sweet s = new Sweet();
+		s.setId(id);
+		s.setName("Sweet " + id);
+		s.setCategory("Candy");
+		s.setPrice(new BigDecimal("1.00"));
+		s.setQuantity(quantity);
+		return s;
+	}
+
+	private static Sweet versioned(Sweet sweet, long version) {
+		sweet.setVersion(version);
+		return sweet;
+	}
+}
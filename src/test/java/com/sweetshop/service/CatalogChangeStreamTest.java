@@ -0,0 +1,160 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.entity.Sweet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CatalogChangeStreamTest {
+
+	private CatalogChangeStream stream;
+
+	@AfterEach
+	void close() {
+		if (stream != null) stream.close();
+	}
+
+	@Test
+	void bursts_are_coalesced_to_one_event_per_sweet() throws Exception {
+		stream = stream(64);
+		Recording sink = new Recording();
+		stream.subscribe(sink);
+
+		for (int q = 500; q > 0; q--) stream.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, sweet(1L, q), -1));
+		for (int q = 0; q < 10; q++) stream.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.RESTOCKED, sweet(2L, q), 1));
+		stream.onSweetChanged(SweetChangedEvent.deleted(3L));
+		stream.publishPending();
+		await(() -> sink.frames.size() == 3);
+
+		assertTrue(sink.frames.stream().anyMatch(f -> "changed".equals(f.name()) && f.data().contains("\"id\":1") && f.data().contains("\"quantity\":1,")));
+		assertTrue(sink.frames.stream().anyMatch(f -> "changed".equals(f.name()) && f.data().contains("\"id\":2") && f.data().contains("\"quantity\":9,")));
+		assertTrue(sink.frames.stream().anyMatch(f -> "deleted".equals(f.name()) && f.data().equals("{\"id\":3}")));
+
+		stream.publishPending();
+		Thread.sleep(50);
+		assertEquals(3, sink.frames.size());
+	}
+
+	@Test
+	void a_stalled_client_is_dropped_and_others_keep_receiving() throws Exception {
+		stream = stream(4);
+		CountDownLatch release = new CountDownLatch(1);
+		Recording slow = new Recording() {
+			@Override
+			public void send(CatalogChangeStream.Frame frame) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		Recording fast = new Recording();
+		stream.subscribe(slow);
+		stream.subscribe(fast);
+
+		// One event per tick, each delivered to the fast client before the next: only the stalled one falls behind
+		for (long id = 1; id <= 10; id++) {
+			stream.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, sweet(id, 5), -1));
+			stream.publishPending();
+			int expected = (int) id;
+			await(() -> fast.frames.size() == expected);
+		}
+		release.countDown();
+
+		assertEquals(1, stream.subscriberCount());
+		assertTrue(slow.closed.get() > 0);
+		assertEquals(0, fast.closed.get());
+	}
+
+	@Test
+	void ten_thousand_idle_subscribers_keep_memory_flat() throws Exception {
+		stream = stream(64);
+		long baseline = usedHeap();
+		AtomicInteger delivered = new AtomicInteger();
+		List<Recording> sinks = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			Recording sink = new Recording() {
+				@Override
+				public void send(CatalogChangeStream.Frame frame) {
+					delivered.incrementAndGet();
+				}
+			};
+			sinks.add(sink);
+			stream.subscribe(sink);
+		}
+		long subscribed = usedHeap();
+		// No per-subscriber thread or pre-allocated buffer: a few hundred bytes each
+		assertTrue(subscribed - baseline < 10_000 * 1024L, "10k idle subscribers took " + (subscribed - baseline) + " bytes");
+
+		for (int tick = 0; tick < 10; tick++) {
+			for (long id = 1; id <= 5; id++) {
+				stream.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, sweet(id, tick), -1));
+			}
+			stream.publishPending();
+		}
+		await(() -> delivered.get() == 10 * 5 * 10_000);
+		long after = usedHeap();
+
+		assertEquals(10_000, stream.subscriberCount());
+		// Drained buffers are released, so a burst leaves nothing behind per subscriber
+		assertTrue(after - subscribed < 4 * 1024 * 1024, "heap grew by " + (after - subscribed) + " bytes after the burst");
+		assertEquals(10_000, sinks.size());
+	}
+
+	private static CatalogChangeStream stream(int bufferSize) {
+		return new CatalogChangeStream(new ObjectMapper(), new SimpleMeterRegistry(), bufferSize, 20_000, 0, 2);
+	}
+
+	private static Sweet sweet(Long id, int quantity) {
+		Sweet s = new Sweet();
+		s.setId(id);
+		s.setName("Sweet " + id);
+		s.setCategory("Indian");
+		s.setPrice(new BigDecimal("5.00"));
+		s.setQuantity(quantity);
+		s.setVersion(0L);
+		return s;
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30_000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) fail("Timed out waiting for delivery");
+			Thread.sleep(5);
+		}
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	static class Recording implements CatalogChangeStream.Sink {
+		final List<CatalogChangeStream.Frame> frames = new CopyOnWriteArrayList<>();
+		final AtomicInteger closed = new AtomicInteger();
+
+		@Override
+		public void send(CatalogChangeStream.Frame frame) {
+			frames.add(frame);
+		}
+
+		@Override
+		public void close() {
+			closed.incrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakarta.persistence.EntityManager;
+import java.io.OutputStream;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Exports a million-row catalog. The build runs this class in its own JVM with -Xmx128m, which
+// would not even hold the materialised entities, so passing proves the export streams.
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.datasource.url=jdbc:h2:file:./target/h2/export-large;CACHE_SIZE=8192;MODE=MySQL",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(CatalogExportService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogExportLargeCatalogTest {
+
+	private static final int ROWS = 1_000_000;
+
+	@Autowired private CatalogExportService exportService;
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private EntityManager entityManager;
+
+	@AfterEach
+	void cleanup() {
+		jdbcTemplate.execute("TRUNCATE TABLE sweets");
+	}
+
+	@Test
+	void exports_a_million_rows_with_flat_memory() throws Exception {
+		jdbcTemplate.update("INSERT INTO sweets (name, category, price, quantity, version) "
+				+ "SELECT CONCAT('Sweet ', X), CONCAT('Category ', MOD(X, 40)), 2.50, 10, 0 FROM SYSTEM_RANGE(1, " + ROWS + ")");
+
+		for (CatalogExportService.Format format : CatalogExportService.Format.values()) {
+			CountingOutput out = new CountingOutput();
+			assertEquals(ROWS, exportService.export(format, out));
+			assertTrue(out.bytes > ROWS * 30L);
+			// Written rows are detached, so the persistence context never accumulates the catalog
+			assertTrue(out.peakManagedEntities <= 1, "managed entities peaked at " + out.peakManagedEntities);
+		}
+	}
+
+	// Discards output, sampling the persistence context size whenever a buffer is written
+	private class CountingOutput extends OutputStream {
+		long bytes;
+		int peakManagedEntities;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+			int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+			peakManagedEntities = Math.max(peakManagedEntities, managed);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(CatalogExportService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogExportServiceTest {
+
+	@Autowired private CatalogExportService exportService;
+	@Autowired private SweetRepository sweetRepository;
+	@Autowired private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void seed() {
+		sweetRepository.deleteAll();
+		sweetRepository.save(sweet("Ladoo", "Indian", "12.50", 5));
+		sweetRepository.save(sweet("Fudge, \"Salted\"", "Western", "3.00", 0));
+	}
+
+	@Test
+	void ndjson_writes_one_object_per_line_in_id_order() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(2, exportService.export(CatalogExportService.Format.NDJSON, out));
+
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		JsonNode first = objectMapper.readTree(lines[0]);
+		assertEquals("Ladoo", first.get("name").asText());
+		assertEquals(5, first.get("quantity").asInt());
+		assertEquals("Fudge, \"Salted\"", objectMapper.readTree(lines[1]).get("name").asText());
+	}
+
+	@Test
+	void csv_quotes_fields_that_need_it() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(2, exportService.export(CatalogExportService.Format.CSV, out));
+
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals("id,name,category,price,quantity", lines[0]);
+		assertTrue(lines[1].endsWith(",Ladoo,Indian,12.50,5"));
+		assertTrue(lines[2].endsWith(",\"Fudge, \"\"Salted\"\"\",Western,3.00,0"));
+	}
+
+	@Test
+	void unknown_format_is_rejected() {
+		assertThrows(IllegalArgumentException.class, () -> CatalogExportService.Format.from("xml"));
+		assertEquals(CatalogExportService.Format.CSV, CatalogExportService.Format.from("CSV"));
+	}
+
+	private static Sweet sweet(String name, String category, String price, int quantity) {
+		Sweet s = new Sweet();
+		s.setName(name);
+		s.setCategory(category);
+		s.setPrice(new BigDecimal(price));
+		s.setQuantity(quantity);
+		return s;
+	}
+}
@@ -0,0 +1,96 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.entity.Sweet;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+class CatalogSnapshotsTest {
+
+	private static final CatalogSnapshots.Key FIRST_PAGE = new CatalogSnapshots.Key(SweetSort.ID, false, null, 50);
+
+	private final SweetService sweetService = mock(SweetService.class);
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void snapshot_is_reused_until_the_catalog_changes() {
+		CatalogSnapshots snapshots = new CatalogSnapshots(sweetService, objectMapper, true, 16, 60_000);
+		when(sweetService.page(null, null, null, null, SweetSort.ID, false, null, 50))
+				.thenReturn(new SweetPage(List.of(sweet(1L, 5)), "next"))
+				.thenReturn(new SweetPage(List.of(sweet(1L, 4)), "next"));
+
+		CatalogSnapshots.Snapshot first = snapshots.get(FIRST_PAGE);
+		assertSame(first, snapshots.get(FIRST_PAGE));
+		assertEquals("next", first.getNextCursor());
+		assertTrue(first.matches(first.etag(false)));
+
+		snapshots.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED, sweet(1L, 4), -1));
+		CatalogSnapshots.Snapshot second = snapshots.get(FIRST_PAGE);
+
+		assertNotSame(first, second);
+		assertFalse(second.matches(first.etag(false)));
+		verify(sweetService, times(2)).page(null, null, null, null, SweetSort.ID, false, null, 50);
+	}
+
+	@Test
+	void snapshot_is_rebuilt_once_it_reaches_max_age() {
+		// Another instance's writes raise no event here, so only age catches them
+		CatalogSnapshots snapshots = new CatalogSnapshots(sweetService, objectMapper, true, 16, 0);
+		when(sweetService.page(null, null, null, null, SweetSort.ID, false, null, 50))
+				.thenReturn(new SweetPage(List.of(sweet(1L, 5)), null))
+				.thenReturn(new SweetPage(List.of(sweet(1L, 2)), null));
+
+		CatalogSnapshots.Snapshot first = snapshots.get(FIRST_PAGE);
+		CatalogSnapshots.Snapshot second = snapshots.get(FIRST_PAGE);
+
+		assertNotSame(first, second);
+		assertFalse(second.matches(first.etag(false)));
+		verify(sweetService, times(2)).page(null, null, null, null, SweetSort.ID, false, null, 50);
+	}
+
+	@Test
+	void etag_depends_only_on_content() {
+		when(sweetService.page(null, null, null, null, SweetSort.ID, false, null, 50))
+				.thenReturn(new SweetPage(List.of(sweet(1L, 5)), null));
+		CatalogSnapshots a = new CatalogSnapshots(sweetService, objectMapper, true, 16, 60_000);
+		CatalogSnapshots b = new CatalogSnapshots(sweetService, objectMapper, true, 16, 60_000);
+		b.onSweetChanged(SweetChangedEvent.deleted(9L));
+
+		assertEquals(a.get(FIRST_PAGE).etag(false), b.get(FIRST_PAGE).etag(false));
+		assertTrue(a.get(FIRST_PAGE).matches("W/\"x\", " + b.get(FIRST_PAGE).etag(false)));
+	}
+
+	@Test
+	void large_bodies_are_precompressed() throws Exception {
+		List<Sweet> many = new ArrayList<>();
+		for (long id = 1; id <= 50; id++) many.add(sweet(id, 5));
+		when(sweetService.page(null, null, null, null, SweetSort.ID, false, null, 50))
+				.thenReturn(new SweetPage(many, null));
+
+		CatalogSnapshots.Snapshot snapshot = new CatalogSnapshots(sweetService, objectMapper, true, 16, 60_000).get(FIRST_PAGE);
+
+		assertNotNull(snapshot.getGzip());
+		assertTrue(snapshot.getGzip().length < snapshot.getJson().length);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzip()))) {
+			assertArrayEquals(snapshot.getJson(), in.readAllBytes());
+		}
+		assertNotEquals(snapshot.etag(false), snapshot.etag(true));
+	}
+
+	private static Sweet sweet(Long id, int quantity) {
+		Sweet s = new Sweet();
+		s.setId(id);
+		s.setName("Sweet " + id);
+		s.setCategory("Candy");
+		s.setPrice(new BigDecimal("1.00"));
+		s.setQuantity(quantity);
+		return s;
+	}
+}
@@ -0,0 +1,103 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.entity.InventoryMovement;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.InventoryLedgerStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Ledger round trips against an embedded database: appends, compaction into snapshots and
+// point-in-time stock rebuilt from snapshot plus tail
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.datasource.url=jdbc:h2:mem:inventory-ledger;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ InventoryLedger.class, InventoryLedgerStore.class, SweetService.class, InventoryLedgerTest.Metrics.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryLedgerTest {
+
+	private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired private InventoryLedger ledger;
+	@Autowired private InventoryLedgerStore store;
+	@Autowired private SweetService sweetService;
+
+	@Test
+	void stock_is_rebuilt_at_any_instant_across_snapshots() {
+		ledger.record(100L, InventoryMovement.Kind.ADJUSTMENT, 0, 10, "admin", T0);
+		ledger.record(100L, InventoryMovement.Kind.PURCHASE, -2, 8, "alice", T0.plus(Duration.ofHours(1)));
+		ledger.record(100L, InventoryMovement.Kind.RESTOCK, 5, 13, "admin", T0.plus(Duration.ofHours(2)));
+		assertEquals(8, ledger.stockAt(100L, T0.plus(Duration.ofMinutes(90))));
+
+		ledger.compact();
+		assertEquals(13, store.findSnapshot(100L, Instant.now()).getQuantity());
+
+		ledger.record(100L, InventoryMovement.Kind.PURCHASE, -1, 12, "bob", T0.plus(Duration.ofHours(3)));
+		assertEquals(12, ledger.stockAt(100L, Instant.now()));
+		// The snapshot was taken after this instant, so the answer comes from the movements alone
+		assertEquals(8, ledger.stockAt(100L, T0.plus(Duration.ofMinutes(90))));
+		assertThrows(java.util.NoSuchElementException.class, () -> ledger.stockAt(100L, T0.minusSeconds(1)));
+	}
+
+	@Test
+	void sweets_without_an_opening_balance_start_from_the_first_movement() {
+		ledger.record(200L, InventoryMovement.Kind.PURCHASE, -1, 4, null, T0);
+		assertEquals(4, ledger.stockAt(200L, Instant.now()));
+
+		ledger.compact();
+		ledger.record(200L, InventoryMovement.Kind.RESTOCK, 3, 7, null, T0.plusSeconds(60));
+		assertEquals(7, ledger.stockAt(200L, Instant.now()));
+	}
+
+	@Test
+	void committed_stock_changes_are_recorded() {
+		Sweet sweet = sweetService.create(request("Rasgulla", 5));
+		sweetService.restock(sweet.getId(), 3);
+		sweetService.purchase(sweet.getId(), 2);
+
+		List<InventoryMovement> movements = ledger.movements(sweet.getId(), null, 10);
+		assertEquals(List.of(InventoryMovement.Kind.PURCHASE, InventoryMovement.Kind.RESTOCK, InventoryMovement.Kind.ADJUSTMENT),
+				movements.stream().map(InventoryMovement::getKind).toList());
+		assertEquals(-2, movements.get(0).getQuantityChange());
+		assertEquals(6, movements.get(0).getQuantityAfter());
+		assertEquals(6, ledger.stockAt(sweet.getId(), Instant.now()));
+		assertEquals(1, ledger.movements(sweet.getId(), movements.get(1).getId(), 10).size());
+	}
+
+	private static SweetRequest request(String name, int quantity) {
+		SweetRequest r = new SweetRequest();
+		r.setName(name);
+		r.setCategory("Bengali");
+		r.setPrice(new BigDecimal("15.00"));
+		r.setQuantity(quantity);
+		return r;
+	}
+}
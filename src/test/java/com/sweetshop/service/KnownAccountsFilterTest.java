@@ -0,0 +1,42 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.sweetshop.repository.UserRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class KnownAccountsFilterTest {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+
+	@Test
+	void everything_might_exist_until_the_first_build() {
+		KnownAccountsFilter filter = new KnownAccountsFilter(userRepository, 1000, 0.01);
+		assertTrue(filter.mightHaveUsername("anyone"));
+		assertTrue(filter.mightHaveEmail("anyone@example.com"));
+	}
+
+	@Test
+	void known_names_are_never_missed_and_fresh_ones_mostly_pass() {
+		when(userRepository.findAllUsernames()).thenReturn(List.of("alice", "Bob"));
+		when(userRepository.findAllEmails()).thenReturn(List.of("alice@example.com", "bob@example.com"));
+		KnownAccountsFilter filter = new KnownAccountsFilter(userRepository, 10_000, 0.01);
+		filter.rebuild();
+		filter.add("carol", "carol@example.com");
+
+		assertTrue(filter.mightHaveUsername("alice"));
+		assertTrue(filter.mightHaveUsername("BOB"));
+		assertTrue(filter.mightHaveUsername("carol"));
+		assertTrue(filter.mightHaveEmail("Carol@example.com"));
+		// Usernames and emails are kept apart
+		assertFalse(filter.mightHaveEmail("alice"));
+
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			if (filter.mightHaveUsername("fresh-" + i)) falsePositives++;
+		}
+		assertTrue(falsePositives < 100, falsePositives + " false positives");
+	}
+}
@@ -0,0 +1,202 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.LowStockItem;
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.ReorderThresholdRepository;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Low-stock watcher against an embedded database: committed purchases, restocks and edits move
+// sweets on and off the low-stock list, thresholds resolve sweet before category before default,
+// and an alert fires once per crossing
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.datasource.url=jdbc:h2:mem:low-stock;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"app.low-stock.default-threshold=3"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ LowStockWatcher.class, SweetService.class, LowStockWatcherTest.Metrics.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LowStockWatcherTest {
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired private LowStockWatcher watcher;
+	@Autowired private SweetService sweetService;
+	@Autowired private SweetRepository sweetRepository;
+	@Autowired private ReorderThresholdRepository thresholdRepository;
+	@Autowired private MeterRegistry meterRegistry;
+
+	// Through the service and watcher, so the shared watcher forgets the previous test's sweets too
+	@BeforeEach
+	void clean() {
+		for (Sweet sweet : sweetRepository.findAll()) sweetService.delete(sweet.getId());
+		thresholdRepository.findAll().forEach(t -> {
+			if (t.getSweetId() != null) watcher.clearSweetThreshold(t.getSweetId());
+			else watcher.clearCategoryThreshold(t.getCategory());
+		});
+	}
+
+	@Test
+	void stock_changes_move_sweets_on_and_off_the_list() {
+		Sweet ladoo = sweetService.create(request("Ladoo", "Indian", 10));
+		Sweet fudge = sweetService.create(request("Fudge", "British", 2));
+		double alertsBefore = alerts();
+
+		assertEquals(List.of("Fudge"), names(watcher.lowStock(10)));
+
+		sweetService.purchase(ladoo.getId(), 7);
+		sweetService.purchase(ladoo.getId(), 1);
+		// Ladoo is 1 below its threshold, Fudge 1 below: ties in either order, but both listed
+		assertEquals(2, watcher.lowStock(10).size());
+		assertEquals(1.0, alerts() - alertsBefore, "only the first crossing alerts");
+
+		sweetService.restock(fudge.getId(), 20);
+		List<LowStockItem> low = watcher.lowStock(10);
+		assertEquals(List.of("Ladoo"), names(low));
+		assertEquals(2, low.get(0).getQuantity());
+		assertEquals(3, low.get(0).getThreshold());
+
+		sweetService.update(ladoo.getId(), request("Ladoo", "Indian", 100));
+		assertTrue(watcher.lowStock(10).isEmpty());
+
+		sweetService.purchase(fudge.getId(), 21);
+		sweetService.delete(fudge.getId());
+		assertTrue(watcher.lowStock(10).isEmpty());
+	}
+
+	@Test
+	void sweet_threshold_wins_over_category_and_default() {
+		Sweet ladoo = sweetService.create(request("Ladoo", "Indian", 8));
+		Sweet barfi = sweetService.create(request("Barfi", "Indian", 12));
+		sweetService.create(request("Fudge", "British", 4));
+		assertTrue(watcher.lowStock(10).isEmpty());
+
+		watcher.setCategoryThreshold("indian", 10);
+		assertEquals(List.of("Ladoo"), names(watcher.lowStock(10)));
+
+		watcher.setSweetThreshold(barfi.getId(), 15);
+		watcher.setSweetThreshold(ladoo.getId(), 1);
+		List<LowStockItem> low = watcher.lowStock(10);
+		assertEquals(List.of("Barfi"), names(low));
+		assertEquals(15, low.get(0).getThreshold());
+
+		watcher.clearSweetThreshold(ladoo.getId());
+		watcher.clearCategoryThreshold("Indian");
+		assertEquals(List.of("Barfi"), names(watcher.lowStock(10)));
+		assertEquals(1, thresholdRepository.count());
+
+		assertThrows(IllegalArgumentException.class, () -> watcher.setCategoryThreshold("Indian", -1));
+		assertThrows(java.util.NoSuchElementException.class, () -> watcher.setSweetThreshold(9999L, 1));
+	}
+
+	@Test
+	void deleting_a_sweet_drops_its_threshold() {
+		Sweet ladoo = sweetService.create(request("Ladoo", "Indian", 8));
+		watcher.setSweetThreshold(ladoo.getId(), 10);
+		watcher.setCategoryThreshold("Indian", 2);
+		assertEquals(List.of("Ladoo"), names(watcher.lowStock(10)));
+
+		sweetService.delete(ladoo.getId());
+		assertTrue(thresholdRepository.findBySweetId(ladoo.getId()).isEmpty());
+		assertEquals(1, thresholdRepository.count(), "the category threshold stays");
+		assertTrue(watcher.lowStock(10).isEmpty());
+		assertThrows(java.util.NoSuchElementException.class, () -> watcher.setSweetThreshold(ladoo.getId(), 1));
+		assertTrue(thresholdRepository.findBySweetId(ladoo.getId()).isEmpty());
+	}
+
+	@Test
+	void memory_mode_stock_events_are_ordered_by_sequence() {
+		Sweet ladoo = sweetService.create(request("Ladoo", "Indian", 10));
+		// Flushes haven't run, so both purchases carry the version the sweet was created with
+		watcher.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED,
+				SweetMapper.copyWithQuantity(ladoo, 2), -1, 2));
+		watcher.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.PURCHASED,
+				SweetMapper.copyWithQuantity(ladoo, 6), -1, 1));
+		assertEquals(List.of("Ladoo"), names(watcher.lowStock(10)));
+		assertEquals(2, watcher.lowStock(10).get(0).getQuantity());
+
+		watcher.onSweetChanged(SweetChangedEvent.stock(SweetChangedEvent.Kind.RESTOCKED,
+				SweetMapper.copyWithQuantity(ladoo, 12), 10, 3));
+		assertTrue(watcher.lowStock(10).isEmpty());
+	}
+
+	@Test
+	void heap_returns_the_smallest_keys_in_order() {
+		LowStockHeap heap = new LowStockHeap();
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(7);
+		for (int i = 0; i < 5000; i++) {
+			long id = random.nextInt(300);
+			if (random.nextInt(5) == 0) {
+				heap.remove(id);
+				expected.remove(id);
+			} else {
+				int key = random.nextInt(200) - 100;
+				heap.put(id, key);
+				expected.put(id, key);
+			}
+		}
+		assertEquals(expected.size(), heap.size());
+
+		List<Long> low = heap.atMost(0, 25);
+		List<Integer> keys = low.stream().map(expected::get).collect(Collectors.toList());
+		List<Integer> smallest = expected.values().stream().filter(k -> k <= 0).sorted().limit(25).collect(Collectors.toList());
+		assertEquals(smallest, keys);
+		assertEquals(expected.values().stream().filter(k -> k <= 0).count(), heap.atMost(0, Integer.MAX_VALUE).size());
+
+		List<Integer> all = new ArrayList<>();
+		for (Long id : heap.atMost(Integer.MAX_VALUE, Integer.MAX_VALUE)) all.add(heap.key(id));
+		List<Integer> sorted = new ArrayList<>(all);
+		sorted.sort(Comparator.naturalOrder());
+		assertEquals(sorted, all);
+	}
+
+	private double alerts() {
+		return meterRegistry.counter("low.stock.alerts").count();
+	}
+
+	private static List<String> names(List<LowStockItem> items) {
+		return items.stream().map(LowStockItem::getName).toList();
+	}
+
+	private static SweetRequest request(String name, String category, int quantity) {
+		SweetRequest r = new SweetRequest();
+		r.setName(name);
+		r.setCategory(category);
+		r.setPrice(new BigDecimal("1.50"));
+		r.setQuantity(quantity);
+		return r;
+	}
+}
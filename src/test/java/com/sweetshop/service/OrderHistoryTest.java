@@ -0,0 +1,124 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.CheckoutItem;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.OrderHistoryStore;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Order history against an embedded database: committed purchases land under the buyer and come
+// back newest first, one keyset page at a time
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.datasource.url=jdbc:h2:mem:order-history;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ OrderHistory.class, OrderHistoryStore.class, SweetService.class, OrderHistoryTest.Metrics.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderHistoryTest {
+
+	private static final Instant T0 = Instant.parse("2024-03-01T09:00:00Z");
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired private OrderHistory orderHistory;
+	@Autowired private SweetService sweetService;
+	@Autowired private SweetRepository sweetRepository;
+
+	@AfterEach
+	void clearUser() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void committed_purchases_are_recorded_for_the_buyer() {
+		Sweet ladoo = sweetRepository.save(sweet("Ladoo", "10.00"));
+		Sweet barfi = sweetRepository.save(sweet("Barfi", "2.50"));
+
+		actAs("alice");
+		sweetService.purchase(ladoo.getId(), 2);
+		sweetService.checkout(List.of(new CheckoutItem(barfi.getId(), 4), new CheckoutItem(ladoo.getId(), 1)));
+		assertThrows(IllegalArgumentException.class, () -> sweetService.purchase(barfi.getId(), 1000));
+		actAs("bob");
+		sweetService.purchase(barfi.getId(), 1);
+
+		List<OrderHistory.Entry> alice = orderHistory.history("alice", null, 10).items();
+		assertEquals(2, alice.size());
+		assertEquals(0, new BigDecimal("20.00").compareTo(alice.get(0).order().getTotal()));
+		assertEquals(List.of("Ladoo", "Barfi"), alice.get(0).lines().stream().map(l -> l.getSweetName()).toList());
+		assertEquals(0, new BigDecimal("20.00").compareTo(alice.get(1).order().getTotal()));
+		assertEquals(1, alice.get(1).lines().size());
+		assertEquals(1, orderHistory.history("bob", null, 10).items().size());
+	}
+
+	@Test
+	void history_pages_newest_first_with_a_keyset_cursor() {
+		Sweet toffee = sweet("Toffee", "1.00");
+		toffee.setId(99L);
+		List<OrderPlacedEvent.Line> lines = List.of(new OrderPlacedEvent.Line(toffee, 1));
+		for (int i = 0; i < 4; i++) {
+			orderHistory.record("carol", lines, T0.plusSeconds(i));
+		}
+		// Same timestamp as the newest one: ties are broken by id
+		orderHistory.record("carol", lines, T0.plusSeconds(3));
+
+		List<Long> ids = new ArrayList<>();
+		List<Instant> times = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			OrderHistory.Page page = orderHistory.history("carol", cursor, 2);
+			page.items().forEach(e -> { ids.add(e.order().getId()); times.add(e.order().getCreatedAt()); });
+			cursor = page.nextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(3, pages);
+		assertEquals(5, ids.stream().distinct().count());
+		assertEquals(T0.plusSeconds(3), times.get(0));
+		assertTrue(ids.get(0) > ids.get(1));
+		assertEquals(T0, times.get(4));
+		assertThrows(IllegalArgumentException.class, () -> orderHistory.history("carol", "not-a-cursor", 2));
+	}
+
+	private static void actAs(String username) {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null, "ROLE_USER"));
+	}
+
+	private static Sweet sweet(String name, String price) {
+		Sweet s = new Sweet();
+		s.setName(name);
+		s.setCategory("Indian");
+		s.setPrice(new BigDecimal(price));
+		s.setQuantity(50);
+		return s;
+	}
+}
@@ -0,0 +1,152 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.SalesPoint;
+import com.sweetshop.dto.SalesRanking;
+import com.sweetshop.repository.SalesRollupStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Sales aggregates: sales land in the right minute/hour/day buckets, old buckets roll out of the
+// rings, rankings come from the rings alone, and hourly rollups survive a restart
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.datasource.url=jdbc:h2:mem:sales-analytics;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ SalesRollupStore.class, SalesAnalyticsTest.Metrics.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SalesAnalyticsTest {
+
+	private static final long T0 = Instant.parse("2024-03-01T09:00:00Z").toEpochMilli();
+	private static final long MINUTE = 60_000L;
+	private static final long HOUR = 3_600_000L;
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired private SalesRollupStore store;
+	@Autowired private PlatformTransactionManager transactionManager;
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void clearRollups() {
+		jdbcTemplate.update("DELETE FROM sales_rollups");
+	}
+
+	@Test
+	void sales_are_bucketed_per_minute_hour_and_day() {
+		SalesAnalytics analytics = analytics(10);
+		analytics.record(1L, "Ladoo", "Indian", 2, 2000, T0 + 5_000);
+		analytics.record(1L, "Ladoo", "Indian", 1, 1000, T0 + 50_000);
+		analytics.record(1L, "Ladoo", "Indian", 3, 3000, T0 + MINUTE + 1);
+
+		List<SalesPoint> minutes = analytics.series(SalesAnalytics.Granularity.MINUTE, 3, 1L, null, T0 + MINUTE + 2);
+		assertEquals(List.of(0L, 3L, 3L), minutes.stream().map(SalesPoint::getUnits).toList());
+		assertEquals(Instant.ofEpochMilli(T0), minutes.get(1).getStart());
+		assertEquals(new BigDecimal("30.00"), minutes.get(2).getRevenue());
+
+		List<SalesPoint> hours = analytics.series(SalesAnalytics.Granularity.HOUR, 1, null, "indian", T0 + MINUTE + 2);
+		assertEquals(6L, hours.get(0).getUnits());
+		assertEquals(new BigDecimal("60.00"), hours.get(0).getRevenue());
+		assertEquals(6L, analytics.series(SalesAnalytics.Granularity.DAY, 1, null, null, T0).get(0).getUnits());
+		assertEquals(0L, analytics.series(SalesAnalytics.Granularity.HOUR, 1, 99L, null, T0).get(0).getUnits());
+		assertThrows(IllegalArgumentException.class,
+				() -> analytics.series(SalesAnalytics.Granularity.MINUTE, 11, null, null, T0));
+	}
+
+	@Test
+	void old_buckets_roll_out_of_the_ring() {
+		SalesAnalytics analytics = analytics(10);
+		analytics.record(1L, "Ladoo", "Indian", 5, 500, T0);
+		analytics.record(1L, "Ladoo", "Indian", 1, 100, T0 + 10 * MINUTE);
+		// Late sale for a minute that has already been overwritten
+		analytics.record(1L, "Ladoo", "Indian", 7, 700, T0);
+
+		List<SalesPoint> minutes = analytics.series(SalesAnalytics.Granularity.MINUTE, 10, 1L, null, T0 + 10 * MINUTE);
+		assertEquals(1L, minutes.stream().mapToLong(SalesPoint::getUnits).sum());
+		// The hour ring still holds the whole hour
+		assertEquals(13L, analytics.series(SalesAnalytics.Granularity.HOUR, 1, 1L, null, T0).get(0).getUnits());
+	}
+
+	@Test
+	void top_ranks_sweets_and_categories_over_the_window() {
+		SalesAnalytics analytics = analytics(60);
+		analytics.record(1L, "Ladoo", "Indian", 10, 1000, T0);
+		analytics.record(2L, "Barfi", "Indian", 2, 5000, T0 + MINUTE);
+		analytics.record(3L, "Fudge", "British", 4, 2000, T0 + 2 * MINUTE);
+		// Outside a one-hour window ending at T0 + 2 minutes
+		analytics.record(4L, "Toffee", "British", 100, 100000, T0 - 2 * HOUR);
+
+		List<SalesRanking> byRevenue = analytics.top(SalesAnalytics.Granularity.HOUR, 1, SalesAnalytics.Dimension.SWEET,
+				SalesAnalytics.Metric.REVENUE, 2, T0 + 2 * MINUTE);
+		assertEquals(List.of("Barfi", "Fudge"), byRevenue.stream().map(SalesRanking::getName).toList());
+		assertEquals(2L, byRevenue.get(0).getId());
+
+		List<SalesRanking> byUnits = analytics.top(SalesAnalytics.Granularity.MINUTE, 3, SalesAnalytics.Dimension.SWEET,
+				SalesAnalytics.Metric.UNITS, 10, T0 + 2 * MINUTE);
+		assertEquals(List.of("Ladoo", "Fudge", "Barfi"), byUnits.stream().map(SalesRanking::getName).toList());
+
+		List<SalesRanking> categories = analytics.top(SalesAnalytics.Granularity.HOUR, 3, SalesAnalytics.Dimension.CATEGORY,
+				SalesAnalytics.Metric.UNITS, 10, T0 + 2 * MINUTE);
+		assertEquals(List.of("British", "Indian"), categories.stream().map(SalesRanking::getName).toList());
+		assertEquals(104L, categories.get(0).getUnits());
+		assertNull(categories.get(0).getId());
+	}
+
+	@Test
+	void hourly_rollups_survive_a_restart() {
+		SalesAnalytics before = analytics(10);
+		before.load(T0);
+		before.record(1L, "Ladoo", "Indian", 2, 2000, T0 + MINUTE);
+		before.persist(T0 + 2 * MINUTE);
+		// The open hour keeps growing and is rewritten, not duplicated, on the next persist
+		before.record(1L, "Ladoo", "Indian", 1, 1000, T0 + 3 * MINUTE);
+		before.record(2L, "Fudge", "British", 4, 800, T0 + HOUR);
+		before.persist(T0 + HOUR + MINUTE);
+		assertEquals(2, store.findSince(Instant.ofEpochMilli(T0)).size());
+
+		SalesAnalytics after = analytics(10);
+		after.load(T0 + HOUR + 2 * MINUTE);
+		List<SalesPoint> hours = after.series(SalesAnalytics.Granularity.HOUR, 2, 1L, null, T0 + HOUR + 2 * MINUTE);
+		assertEquals(List.of(3L, 0L), hours.stream().map(SalesPoint::getUnits).toList());
+		assertEquals(new BigDecimal("30.00"), hours.get(0).getRevenue());
+		assertEquals(7L, after.series(SalesAnalytics.Granularity.DAY, 1, null, null, T0 + HOUR).get(0).getUnits());
+		// Minute detail is not persisted
+		assertEquals(0L, after.series(SalesAnalytics.Granularity.MINUTE, 10, null, null, T0 + HOUR + 2 * MINUTE)
+				.stream().mapToLong(SalesPoint::getUnits).sum());
+
+		after.record(2L, "Fudge", "British", 1, 200, T0 + HOUR + 3 * MINUTE);
+		after.persist(T0 + HOUR + 4 * MINUTE);
+		assertEquals(2, store.findSince(Instant.ofEpochMilli(T0)).size());
+		assertEquals(5L, store.findSince(Instant.ofEpochMilli(T0 + HOUR)).get(0).getUnits());
+	}
+
+	private SalesAnalytics analytics(int minutes) {
+		return new SalesAnalytics(store, transactionManager, new SimpleMeterRegistry(), minutes, 72, 90);
+	}
+}
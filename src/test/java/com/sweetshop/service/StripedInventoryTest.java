@@ -0,0 +1,281 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.CheckoutItem;
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// A small pool with a short timeout, so a lock holder waiting for a connection fails instead of stalling
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.datasource.url=jdbc:h2:mem:striped-inventory;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.hikari.maximum-pool-size=" + StripedInventoryTest.POOL_SIZE,
+		"spring.datasource.hikari.connection-timeout=2000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StripedInventoryTest {
+
+	static final int POOL_SIZE = 4;
+
+	@Autowired private SweetRepository sweetRepository;
+	@Autowired private DataSource dataSource;
+	@Autowired private PlatformTransactionManager transactionManager;
+
+	@Test
+	void counter_never_goes_negative_and_gathers_across_stripes() {
+		StripedStockCounter counter = new StripedStockCounter(8, 5);
+		assertEquals(StripedStockCounter.Take.SHORT, counter.tryTake(6));
+		assertEquals(5, counter.available());
+		assertEquals(StripedStockCounter.Take.TAKEN, counter.tryTake(5));
+		assertEquals(0, counter.available());
+		assertEquals(StripedStockCounter.Take.SHORT, counter.tryTake(1));
+		assertEquals(-5, counter.drainDelta());
+		assertEquals(0, counter.drainDelta());
+
+		counter.retire();
+		assertEquals(StripedStockCounter.Take.RETIRED, counter.tryTake(1));
+		assertFalse(counter.add(1));
+		assertEquals(0, counter.drainDelta());
+	}
+
+	@Test
+	void eviction_racing_purchases_loses_no_stock() throws Exception {
+		Long id = sweetRepository.save(sweet(200)).getId();
+		StripedInventory inventory = newInventory();
+
+		AtomicInteger sold = new AtomicInteger();
+		AtomicBoolean selling = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(9);
+		List<Future<?>> buyers = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			buyers.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < 50; i++) {
+					if (inventory.tryTake(id, 1)) sold.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		Future<?> evictor = pool.submit(() -> {
+			start.await();
+			while (selling.get()) inventory.evict(id);
+			return null;
+		});
+		start.countDown();
+		for (Future<?> buyer : buyers) buyer.get(30, TimeUnit.SECONDS);
+		selling.set(false);
+		evictor.get(30, TimeUnit.SECONDS);
+		pool.shutdown();
+
+		// Every unit sold exactly once, and every sale reached the database
+		assertEquals(200, sold.get());
+		inventory.flush();
+		assertEquals(0, sweetRepository.findById(id).orElseThrow().getQuantity());
+	}
+
+	@Test
+	void stock_sequence_orders_readings_across_threads() throws Exception {
+		Long id = sweetRepository.save(sweet(400)).getId();
+		StripedInventory inventory = newInventory();
+
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<Future<List<StripedInventory.Stock>>> buyers = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			buyers.add(pool.submit(() -> {
+				start.await();
+				List<StripedInventory.Stock> readings = new ArrayList<>();
+				for (int i = 0; i < 50; i++) {
+					assertTrue(inventory.tryTake(id, 1));
+					readings.add(inventory.stock(id));
+				}
+				return readings;
+			}));
+		}
+		start.countDown();
+		List<StripedInventory.Stock> readings = new ArrayList<>();
+		for (Future<List<StripedInventory.Stock>> buyer : buyers) readings.addAll(buyer.get(30, TimeUnit.SECONDS));
+		pool.shutdown();
+
+		// Only takes ran, so a later reading never shows more stock than an earlier one
+		readings.sort(java.util.Comparator.comparingLong(StripedInventory.Stock::sequence));
+		for (int i = 1; i < readings.size(); i++) {
+			assertTrue(readings.get(i).sequence() > readings.get(i - 1).sequence());
+			assertTrue(readings.get(i).quantity() <= readings.get(i - 1).quantity());
+		}
+		assertEquals(0, readings.get(readings.size() - 1).quantity());
+	}
+
+	@Test
+	void cold_counters_and_writes_do_not_starve_the_pool() throws Exception {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 40; i++) ids.add(sweetRepository.save(sweet(5)).getId());
+		StripedInventory inventory = newInventory();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		// Every connection is held by a purchase that may wait for a cold counter, while evictions and
+		// flushes keep taking the lock
+		AtomicBoolean buying = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(POOL_SIZE + 1);
+		List<Future<?>> buyers = new ArrayList<>();
+		for (int t = 0; t < POOL_SIZE; t++) {
+			buyers.add(pool.submit(() -> {
+				start.await();
+				for (Long id : ids) tx.executeWithoutResult(status -> assertTrue(inventory.tryTake(id, 1)));
+				return null;
+			}));
+		}
+		Future<?> writer = pool.submit(() -> {
+			start.await();
+			for (int i = 0; buying.get(); i++) {
+				inventory.evict(ids.get(i % ids.size()));
+				inventory.flush();
+			}
+			return null;
+		});
+		start.countDown();
+		for (Future<?> buyer : buyers) buyer.get(30, TimeUnit.SECONDS);
+		buying.set(false);
+		writer.get(30, TimeUnit.SECONDS);
+		pool.shutdown();
+
+		inventory.flush();
+		for (Long id : ids) assertEquals(5 - POOL_SIZE, sweetRepository.findById(id).orElseThrow().getQuantity());
+	}
+
+	@Test
+	void absolute_update_is_not_overwritten_by_pending_stock() {
+		Long id = sweetRepository.save(sweet(100)).getId();
+		StripedInventory inventory = newInventory();
+		SweetService service = new SweetService(sweetRepository, event -> { }, inventory, null, null, null);
+
+		service.purchase(id, 30);
+		service.update(id, request(50));
+		inventory.flush();
+
+		assertEquals(50, inventory.available(id));
+		assertEquals(50, sweetRepository.findById(id).orElseThrow().getQuantity());
+	}
+
+	@Test
+	void concurrent_takes_flush_exact_net_change() throws Exception {
+		Long id = sweetRepository.save(sweet(200)).getId();
+		StripedInventory inventory = newInventory();
+
+		AtomicInteger sold = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		for (int t = 0; t < 16; t++) {
+			pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < 50; i++) {
+					if (inventory.tryTake(id, 1)) sold.incrementAndGet();
+				}
+				return null;
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(200, sold.get());
+		assertEquals(0, inventory.available(id));
+		inventory.flush();
+		assertEquals(0, sweetRepository.findById(id).orElseThrow().getQuantity());
+	}
+
+	@Test
+	void crash_before_flush_recovers_last_flushed_value() {
+		Long id = sweetRepository.save(sweet(100)).getId();
+		StripedInventory beforeCrash = newInventory();
+		assertTrue(beforeCrash.tryTake(id, 30));
+		beforeCrash.add(id, 5);
+		beforeCrash.flush();
+		assertTrue(beforeCrash.tryTake(id, 10));
+		// Process dies here: the last 10 units were never flushed
+
+		StripedInventory afterRestart = newInventory();
+		assertEquals(75, afterRestart.available(id));
+		assertEquals(75, sweetRepository.findById(id).orElseThrow().getQuantity());
+		assertTrue(afterRestart.tryTake(id, 75));
+		assertFalse(afterRestart.tryTake(id, 1));
+		afterRestart.flush();
+		assertEquals(0, sweetRepository.findById(id).orElseThrow().getQuantity());
+	}
+
+	private StripedInventory newInventory() {
+		return new StripedInventory(sweetRepository, new JdbcTemplate(dataSource), transactionManager, 4);
+	}
+
+	@Test
+	void rolled_back_transaction_hands_stock_back() {
+		Long plenty = sweetRepository.save(sweet(100)).getId();
+		Long scarce = sweetRepository.save(sweet(1)).getId();
+		StripedInventory inventory = newInventory();
+		SweetService service = new SweetService(sweetRepository, event -> { }, inventory, null, null, null);
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		tx.executeWithoutResult(status -> {
+			assertTrue(inventory.tryTake(plenty, 10));
+			inventory.add(scarce, 5);
+			status.setRollbackOnly();
+		});
+		assertEquals(100, inventory.available(plenty));
+		assertEquals(1, inventory.available(scarce));
+
+		// The first line is taken before the second one turns out short
+		assertThrows(IllegalArgumentException.class, () -> tx.executeWithoutResult(status ->
+				service.checkout(List.of(new CheckoutItem(plenty, 40), new CheckoutItem(scarce, 2)))));
+		assertEquals(100, inventory.available(plenty));
+		assertEquals(1, inventory.available(scarce));
+
+		inventory.flush();
+		assertEquals(100, sweetRepository.findById(plenty).orElseThrow().getQuantity());
+	}
+
+	private static SweetRequest request(int quantity) {
+		SweetRequest r = new SweetRequest();
+		r.setName("Rasgulla");
+		r.setCategory("Bengali");
+		r.setPrice(new BigDecimal("3.00"));
+		r.setQuantity(quantity);
+		return r;
+	}
+
+	private Sweet sweet(int quantity) {
+		Sweet s = new Sweet();
+		s.setName("Rasgulla");
+		s.setCategory("Bengali");
+		s.setPrice(new BigDecimal("3.00"));
+		s.setQuantity(quantity);
+		return s;
+	}
+}
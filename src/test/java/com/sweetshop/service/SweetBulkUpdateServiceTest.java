@@ -0,0 +1,115 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.BulkUpdateResult;
+import com.sweetshop.dto.PriceChangeRequest;
+import com.sweetshop.dto.RestockItem;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetBatchWriter;
+import com.sweetshop.repository.SweetRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ SweetBulkUpdateService.class, SweetBatchWriter.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetBulkUpdateServiceTest {
+
+	@Autowired private SweetBulkUpdateService bulkUpdateService;
+	@Autowired private SweetRepository sweetRepository;
+
+	private Long ladoo;
+	private Long peda;
+	private Long fudge;
+
+	@BeforeEach
+	void seed() {
+		sweetRepository.deleteAll();
+		ladoo = sweetRepository.save(sweet("Ladoo", "Indian", "10.00", 5)).getId();
+		peda = sweetRepository.save(sweet("Peda", "Indian", "4.99", 0)).getId();
+		fudge = sweetRepository.save(sweet("Fudge", "Western", "3.00", 2)).getId();
+	}
+
+	@Test
+	void restock_adds_deltas_and_reports_unknown_ids() {
+		BulkUpdateResult result = bulkUpdateService.restock(List.of(
+				new RestockItem(peda, 10), new RestockItem(999L, 1), new RestockItem(ladoo, 2), new RestockItem(peda, 5)));
+
+		assertEquals(2, result.getUpdated());
+		assertEquals(List.of(999L), result.getMissingIds());
+		assertEquals(7, quantity(ladoo));
+		assertEquals(15, quantity(peda));
+		assertEquals(2, quantity(fudge));
+
+		assertThrows(IllegalArgumentException.class, () -> bulkUpdateService.restock(List.of(
+				new RestockItem(peda, Integer.MAX_VALUE), new RestockItem(peda, 1))));
+		assertEquals(15, quantity(peda));
+	}
+
+	@Test
+	void percentage_change_by_category_rounds_to_cents() {
+		BulkUpdateResult result = bulkUpdateService.changePrices(change(PriceChangeRequest.Mode.PERCENT, "-10", "Indian", null));
+
+		assertEquals(2, result.getUpdated());
+		assertEquals(new BigDecimal("9.00"), price(ladoo));
+		assertEquals(new BigDecimal("4.49"), price(peda));
+		assertEquals(new BigDecimal("3.00"), price(fudge));
+	}
+
+	@Test
+	void absolute_change_by_ids() {
+		BulkUpdateResult result = bulkUpdateService.changePrices(
+				change(PriceChangeRequest.Mode.ABSOLUTE, "2.5", null, List.of(fudge, 404L)));
+
+		assertEquals(1, result.getUpdated());
+		assertEquals(List.of(404L), result.getMissingIds());
+		assertEquals(new BigDecimal("2.50"), price(fudge));
+		assertEquals(new BigDecimal("10.00"), price(ladoo));
+	}
+
+	@Test
+	void invalid_price_changes_are_rejected() {
+		assertThrows(IllegalArgumentException.class, () -> bulkUpdateService.changePrices(
+				change(PriceChangeRequest.Mode.PERCENT, "-100", "Indian", null)));
+		assertThrows(IllegalArgumentException.class, () -> bulkUpdateService.changePrices(
+				change(PriceChangeRequest.Mode.ABSOLUTE, "0", "Indian", null)));
+		assertThrows(IllegalArgumentException.class, () -> bulkUpdateService.changePrices(
+				change(PriceChangeRequest.Mode.ABSOLUTE, "1", "Indian", List.of(ladoo))));
+		assertThrows(IllegalArgumentException.class, () -> bulkUpdateService.changePrices(
+				change(PriceChangeRequest.Mode.ABSOLUTE, "1", null, null)));
+	}
+
+	private int quantity(Long id) {
+		return sweetRepository.findById(id).orElseThrow().getQuantity();
+	}
+
+	private BigDecimal price(Long id) {
+		return sweetRepository.findById(id).orElseThrow().getPrice();
+	}
+
+	private static PriceChangeRequest change(PriceChangeRequest.Mode mode, String value, String category, List<Long> ids) {
+		PriceChangeRequest request = new PriceChangeRequest();
+		request.setMode(mode);
+		request.setValue(new BigDecimal(value));
+		request.setCategory(category);
+		request.setSweetIds(ids);
+		return request;
+	}
+
+	private static Sweet sweet(String name, String category, String price, int quantity) {
+		Sweet s = new Sweet();
+		s.setName(name);
+		s.setCategory(category);
+		s.setPrice(new BigDecimal(price));
+		s.setQuantity(quantity);
+		return s;
+	}
+}
@@ -0,0 +1,77 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(SweetService.class)
+class SweetCatalogPagingTest {
+
+	@Autowired private SweetService sweetService;
+	@Autowired private SweetRepository sweetRepository;
+
+	@BeforeEach
+	void seed() {
+		for (int i = 0; i < 25; i++) {
+			Sweet s = new Sweet();
+			s.setName("Sweet " + (char) ('a' + (i % 5)));
+			s.setCategory(i % 2 == 0 ? "Indian" : "Western");
+			// Only five distinct prices, so the id tie-breaker carries most of the ordering
+			s.setPrice(new BigDecimal(1 + i % 5));
+			s.setQuantity(i);
+			sweetRepository.save(s);
+		}
+	}
+
+	@Test
+	void pages_cover_catalog_once_in_price_order() {
+		List<Sweet> seen = readAll(null, SweetSort.PRICE, false);
+		assertEquals(25, seen.size());
+		assertEquals(25, new HashSet<>(seen.stream().map(Sweet::getId).toList()).size());
+		Comparator<Sweet> expected = Comparator.comparing(Sweet::getPrice).thenComparing(Sweet::getId);
+		assertEquals(seen.stream().sorted(expected).toList(), seen);
+	}
+
+	@Test
+	void descending_name_pages_with_filter() {
+		List<Sweet> seen = readAll("Indian", SweetSort.NAME, true);
+		assertEquals(13, seen.size());
+		Comparator<Sweet> expected = Comparator.comparing(Sweet::getName).thenComparing(Sweet::getId).reversed();
+		assertEquals(seen.stream().sorted(expected).toList(), seen);
+	}
+
+	@Test
+	void cursor_from_another_sort_is_rejected() {
+		String cursor = sweetService.page(null, null, null, null, SweetSort.PRICE, false, null, 5).getNextCursor();
+		assertThrows(IllegalArgumentException.class,
+				() -> sweetService.page(null, null, null, null, SweetSort.NAME, false, cursor, 5));
+		assertThrows(IllegalArgumentException.class,
+				() -> sweetService.page(null, null, null, null, SweetSort.ID, false, "not-a-cursor", 5));
+		assertThrows(IllegalArgumentException.class,
+				() -> sweetService.page(null, null, null, null, SweetSort.ID, false, null, SweetService.MAX_PAGE_SIZE + 1));
+	}
+
+	private List<Sweet> readAll(String category, SweetSort sort, boolean descending) {
+		List<Sweet> seen = new ArrayList<>();
+		String cursor = null;
+		do {
+			SweetPage page = sweetService.page(null, category, null, null, sort, descending, cursor, 7);
+			assertTrue(page.getItems().size() <= 7);
+			seen.addAll(page.getItems());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return seen;
+	}
+}
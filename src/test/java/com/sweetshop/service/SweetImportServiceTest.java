@@ -0,0 +1,118 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.ImportResult;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetBatchWriter;
+import com.sweetshop.repository.SweetRepository;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"app.import.chunk-size=2"
+})
+@ImportAutoConfiguration({ JacksonAutoConfiguration.class, ValidationAutoConfiguration.class })
+@Import({ SweetImportService.class, SweetBatchWriter.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+class SweetImportServiceTest {
+
+	@Autowired private SweetImportService importService;
+	@Autowired private SweetRepository sweetRepository;
+	@Autowired private ApplicationEvents events;
+
+	@BeforeEach
+	void clean() {
+		sweetRepository.deleteAll();
+	}
+
+	@Test
+	void json_import_inserts_valid_rows_and_reports_the_rest() throws Exception {
+		ImportResult result = importService.importJson(stream("["
+				+ "{\"name\":\"Ladoo\",\"category\":\"Indian\",\"price\":12.5,\"quantity\":5},"
+				+ "{\"name\":\"\",\"category\":\"Indian\",\"price\":1,\"quantity\":1},"
+				+ "{\"name\":\"Barfi\",\"category\":\"Indian\",\"price\":\"abc\",\"quantity\":1},"
+				+ "{\"name\":\"Peda\",\"category\":\"Indian\",\"price\":3,\"quantity\":2},"
+				+ "{\"name\":\"Halwa\",\"category\":\"Indian\",\"price\":4,\"quantity\":9}"
+				+ "]"));
+
+		assertEquals(3, result.getInserted());
+		assertEquals(0, result.getUpdated());
+		assertEquals(2, result.getFailed());
+		assertEquals(List.of(2L, 3L), result.getErrors().stream().map(ImportResult.RowError::getRow).toList());
+		assertTrue(result.getErrors().get(0).getMessage().startsWith("name"));
+		assertEquals(List.of("Ladoo", "Peda", "Halwa"), names());
+	}
+
+	@Test
+	void rows_matching_an_existing_name_overwrite_it() throws Exception {
+		Sweet existing = new Sweet();
+		existing.setName("Ladoo");
+		existing.setCategory("Indian");
+		existing.setPrice(new BigDecimal("10.00"));
+		existing.setQuantity(1);
+		Long id = sweetRepository.save(existing).getId();
+
+		// The repeated Peda lands in the same chunk as its first row and must become an update
+		ImportResult result = importService.importCsv(stream(
+				"name,category,price,quantity\r\n"
+				+ "Ladoo,Indian,11.00,7\r\n"
+				+ "Peda,Indian,3.00,1\n"
+				+ "Peda,Indian,3.50,4\n"
+				+ "\"Fudge, \"\"Salted\"\"\",\"Western\nImport\",2.25,3\n"));
+
+		assertEquals(2, result.getInserted());
+		assertEquals(2, result.getUpdated());
+		assertEquals(0, result.getFailed());
+		Sweet ladoo = sweetRepository.findById(id).orElseThrow();
+		assertEquals(7, ladoo.getQuantity());
+		assertEquals(0, new BigDecimal("11.00").compareTo(ladoo.getPrice()));
+		assertEquals(List.of("Ladoo", "Peda", "Fudge, \"Salted\""), names());
+		assertEquals(4, sweetRepository.findAll(Sort.by("id")).get(1).getQuantity());
+		assertEquals("Western\nImport", sweetRepository.findAll(Sort.by("id")).get(2).getCategory());
+
+		// Each sweet's last event carries the stored version, which clients echo back in If-Match
+		Map<Long, Long> published = new HashMap<>();
+		events.stream(SweetChangedEvent.class).forEach(e -> published.put(e.getSweetId(), e.getSweet().getVersion()));
+		for (Sweet stored : sweetRepository.findAll()) {
+			assertEquals(stored.getVersion(), published.get(stored.getId()), stored.getName());
+		}
+		assertEquals(1L, published.get(id));
+	}
+
+	@Test
+	void malformed_uploads_are_rejected() {
+		assertThrows(IllegalArgumentException.class, () -> importService.importJson(stream("{\"name\":\"x\"}")));
+		assertThrows(IllegalArgumentException.class, () -> importService.importCsv(stream("name,price\nx,1\n")));
+		ImportResult result = assertDoesNotThrow(() -> importService.importCsv(stream("name,category,price,quantity\nA,B,oops,1\n")));
+		assertEquals(1, result.getFailed());
+	}
+
+	private List<String> names() {
+		return sweetRepository.findAll(Sort.by("id")).stream().map(Sweet::getName).toList();
+	}
+
+	private static InputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
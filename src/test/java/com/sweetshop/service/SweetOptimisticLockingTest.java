@@ -0,0 +1,153 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.exception.PreconditionFailedException;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Version checks on sweets against an embedded database: racing restocks are retried until every
+// one lands, a write conditioned on an old version is refused, and cached rows carry the new version
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.datasource.url=jdbc:h2:mem:optimistic-locking;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.hikari.maximum-pool-size=16",
+		"app.sweets.optimistic-retry.max-attempts=100",
+		"app.sweets.optimistic-retry.backoff-ms=1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ SweetService.class, OptimisticRetry.class, CatalogCache.class, SweetOptimisticLockingTest.Metrics.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetOptimisticLockingTest {
+
+	private static final int THREADS = 8;
+	private static final int RESTOCKS_PER_THREAD = 10;
+
+	@TestConfiguration
+	static class Metrics {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@Autowired private SweetService sweetService;
+	@Autowired private SweetRepository sweetRepository;
+	@Autowired private MeterRegistry meterRegistry;
+
+	@Test
+	void concurrent_restocks_all_land() throws Exception {
+		Long id = sweetRepository.save(sweet("Peda", 5)).getId();
+		double committedBefore = committedRestocks();
+
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < RESTOCKS_PER_THREAD; i++) {
+					sweetService.restock(id, 2);
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+		pool.shutdown();
+
+		Sweet after = sweetRepository.findById(id).orElseThrow();
+		assertEquals(5 + THREADS * RESTOCKS_PER_THREAD * 2, after.getQuantity());
+		assertEquals(THREADS * RESTOCKS_PER_THREAD, after.getVersion());
+		assertEquals(THREADS * RESTOCKS_PER_THREAD, committedRestocks() - committedBefore);
+	}
+
+	@Test
+	void stale_if_match_is_refused() {
+		Sweet saved = sweetRepository.save(sweet("Barfi", 3));
+		Long version = saved.getVersion();
+
+		Sweet updated = sweetService.update(saved.getId(), request("Kaju Barfi", "12.00"), version);
+		assertEquals(version + 1, updated.getVersion());
+
+		assertThrows(PreconditionFailedException.class,
+				() -> sweetService.update(saved.getId(), request("Plain Barfi", "9.00"), version));
+		assertEquals("Kaju Barfi", sweetRepository.findById(saved.getId()).orElseThrow().getName());
+	}
+
+	@Test
+	void purchases_bump_the_version() {
+		Sweet saved = sweetRepository.save(sweet("Ladoo", 3));
+
+		sweetService.purchase(saved.getId());
+
+		Sweet after = sweetRepository.findById(saved.getId()).orElseThrow();
+		assertEquals(2, after.getQuantity());
+		assertEquals(saved.getVersion() + 1, after.getVersion());
+	}
+
+	@Test
+	void cached_sweet_carries_the_version_of_the_write() {
+		Sweet saved = sweetRepository.save(sweet("Jalebi", 3));
+		sweetService.listAll();
+
+		Sweet restocked = sweetService.restock(saved.getId(), 2);
+		Long stored = sweetRepository.findById(saved.getId()).orElseThrow().getVersion();
+		assertEquals(stored, restocked.getVersion());
+		assertEquals(stored, cached(saved.getId()).getVersion());
+		assertEquals(5, cached(saved.getId()).getQuantity());
+
+		Sweet updated = sweetService.update(saved.getId(), request("Jalebi", "11.00"), stored);
+		assertEquals(stored + 1, updated.getVersion());
+		assertEquals(stored + 1, cached(saved.getId()).getVersion());
+	}
+
+	private double committedRestocks() {
+		return meterRegistry.counter("optimistic.lock.attempts", "operation", "restock", "outcome", "committed").count();
+	}
+
+	private Sweet cached(Long id) {
+		return sweetService.listAll().stream().filter(s -> s.getId().equals(id)).findFirst().orElseThrow();
+	}
+
+	private static Sweet sweet(String name, int quantity) {
+		Sweet s = new Sweet();
+		s.setName(name);
+		s.setCategory("Indian");
+		s.setPrice(new BigDecimal("10.00"));
+		s.setQuantity(quantity);
+		return s;
+	}
+
+	private static SweetRequest request(String name, String price) {
+		SweetRequest r = new SweetRequest();
+		r.setName(name);
+		r.setCategory("Indian");
+		r.setPrice(new BigDecimal(price));
+		r.setQuantity(3);
+		return r;
+	}
+}
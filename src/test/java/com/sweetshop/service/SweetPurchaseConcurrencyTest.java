@@ -0,0 +1,102 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sweetshop.dto.CheckoutItem;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Hammers a single sweet from many threads against an embedded database and checks nothing is oversold
+@DataJpaTest(showSql = false, properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.datasource.url=jdbc:h2:mem:purchase-stress;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.hikari.maximum-pool-size=16"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SweetService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetPurchaseConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int ATTEMPTS_PER_THREAD = 50;
+	private static final int STOCK = 300;
+
+	@Autowired private SweetService sweetService;
+	@Autowired private SweetRepository sweetRepository;
+
+	@Test
+	void concurrent_purchases_never_oversell() throws Exception {
+		Long id = sweetRepository.save(sweet("Jalebi", STOCK)).getId();
+
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+					try {
+						sweetService.purchase(id);
+						sold.incrementAndGet();
+					} catch (IllegalArgumentException outOfStock) {
+						rejected.incrementAndGet();
+					}
+				}
+				return null;
+			});
+		}
+
+		long began = System.nanoTime();
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+		long elapsedNanos = System.nanoTime() - began;
+
+		int attempts = THREADS * ATTEMPTS_PER_THREAD;
+		System.out.printf("purchase stress: %d threads, %d attempts, %.0f ops/s%n",
+				THREADS, attempts, attempts / (elapsedNanos / 1_000_000_000.0));
+
+		assertEquals(STOCK, sold.get());
+		assertEquals(attempts - STOCK, rejected.get());
+		assertEquals(0, sweetRepository.findById(id).orElseThrow().getQuantity());
+	}
+
+	@Test
+	void checkout_rolls_back_every_line_when_one_is_short() {
+		Long plenty = sweetRepository.save(sweet("Barfi", 10)).getId();
+		Long scarce = sweetRepository.save(sweet("Peda", 1)).getId();
+
+		assertThrows(IllegalArgumentException.class, () -> sweetService.checkout(List.of(
+				new CheckoutItem(plenty, 4), new CheckoutItem(scarce, 2))));
+
+		assertEquals(10, sweetRepository.findById(plenty).orElseThrow().getQuantity());
+		assertEquals(1, sweetRepository.findById(scarce).orElseThrow().getQuantity());
+	}
+
+	private Sweet sweet(String name, int quantity) {
+		Sweet s = new Sweet();
+		s.setName(name);
+		s.setCategory("Indian");
+		s.setPrice(new BigDecimal("5.00"));
+		s.setQuantity(quantity);
+		return s;
+	}
+}
@@ -0,0 +1,95 @@
+package com.sweetshop.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SweetSearchIndexTest {
+
+	private SweetSearchIndex index;
+
+	@BeforeEach
+	void setup() {
+		index = new SweetSearchIndex(null);
+		index.rebuild(List.of(
+				sweet(1L, "Kaju Katli", "Indian", "20.00"),
+				sweet(2L, "Katli", "Indian", "15.00"),
+				sweet(3L, "Chocolate Truffle", "Western", "8.50"),
+				sweet(4L, "Besan Ladoo", "Indian", "6.00"),
+				sweet(5L, "Truffle Katli Fusion", "Fusion", "12.00")));
+	}
+
+	@Test
+	void relevance_ranks_exact_then_prefix_then_word_then_substring() {
+		assertEquals(List.of(2L, 1L, 5L), ids(index.search("katli", null, null, null, SweetSort.RELEVANCE, false, null, null, 10)));
+	}
+
+	@Test
+	void matches_like_contains_semantics_including_short_queries() {
+		assertEquals(List.of(1L, 2L, 5L), ids(index.search("atl", null, null, null, SweetSort.ID, false, null, null, 10)));
+		assertEquals(List.of(1L, 2L, 4L, 5L), ids(index.search("a", "i", null, null, SweetSort.ID, false, null, null, 10)));
+		assertEquals(List.of(), ids(index.search("katlis", null, null, null, SweetSort.ID, false, null, null, 10)));
+	}
+
+	@Test
+	void price_range_with_sort_and_cursor() {
+		List<SweetSearchIndex.Hit> first = index.search(null, null, new BigDecimal("6.00"), new BigDecimal("15.00"),
+				SweetSort.PRICE, false, null, null, 2);
+		assertEquals(List.of(4L, 3L), ids(first));
+		SweetSearchIndex.Hit last = first.get(1);
+		assertEquals(List.of(5L, 2L), ids(index.search(null, null, new BigDecimal("6.00"), new BigDecimal("15.00"),
+				SweetSort.PRICE, false, last.sortValue(), last.id(), 10)));
+	}
+
+	@Test
+	void upsert_and_remove_keep_index_in_sync() {
+		index.upsert(sweet(4L, "Motichoor Ladoo", "Indian", "7.00"));
+		index.remove(2L);
+		assertEquals(List.of(1L, 5L), ids(index.search("katli", null, null, null, SweetSort.ID, false, null, null, 10)));
+		assertEquals(List.of(4L), ids(index.search("motichoor", null, null, null, SweetSort.ID, false, null, null, 10)));
+		assertEquals(List.of(), ids(index.search("besan", null, null, null, SweetSort.ID, false, null, null, 10)));
+		assertEquals(List.of(4L), ids(index.search(null, null, new BigDecimal("7.00"), new BigDecimal("7.00"),
+				SweetSort.ID, false, null, null, 10)));
+	}
+
+	private static List<Long> ids(List<SweetSearchIndex.Hit> hits) {
+		List<Long> ids = new ArrayList<>();
+		for (SweetSearchIndex.Hit hit : hits) ids.add(hit.id());
+		return ids;
+	}
+
+	@Test
+	void writes_during_a_reload_survive_the_stale_snapshot() {
+		SweetRepository repository = mock(SweetRepository.class);
+		SweetSearchIndex reloading = new SweetSearchIndex(repository);
+		reloading.rebuild(List.of(sweet(1L, "Kaju Katli", "Indian", "20.00")));
+		when(repository.findAll()).thenAnswer(inv -> {
+			// Committed after the snapshot below was read
+			reloading.remove(1L);
+			reloading.upsert(sweet(2L, "Rasmalai", "Bengali", "9.00"));
+			return List.of(sweet(1L, "Kaju Katli", "Indian", "20.00"));
+		});
+
+		reloading.rebuildFromDatabase();
+
+		assertEquals(List.of(), ids(reloading.search("katli", null, null, null, SweetSort.ID, false, null, null, 10)));
+		assertEquals(List.of(2L), ids(reloading.search("rasmalai", null, null, null, SweetSort.ID, false, null, null, 10)));
+	}
+
+	private static Sweet sweet(Long id, String name, String category, String price) {
+		Sweet s = new Sweet();
+		s.setId(id);
+		s.setName(name);
+		s.setCategory(category);
+		s.setPrice(new BigDecimal(price));
+		s.setQuantity(10);
+		return s;
+	}
+}
@@ -3,20 +3,26 @@ package com.sweetshop.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.sweetshop.dto.CheckoutItem;
 import com.sweetshop.dto.SweetRequest;
 import com.sweetshop.entity.Sweet;
 import com.sweetshop.repository.SweetRepository;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 class SweetServiceTest {
 
 	@Mock private SweetRepository sweetRepository;
+	@Mock private ApplicationEventPublisher events;
 	@InjectMocks private SweetService sweetService;
 
 	@BeforeEach
@@ -31,12 +37,29 @@ class SweetServiceTest {
 		s.setName("Ladoo");
 		s.setCategory("Indian");
 		s.setPrice(new BigDecimal("10.00"));
-		s.setQuantity(2);
+		s.setQuantity(1);
+		when(sweetRepository.decrementStock(1L, 1)).thenReturn(1);
 		when(sweetRepository.findById(1L)).thenReturn(Optional.of(s));
-		when(sweetRepository.save(any(Sweet.class))).thenAnswer(inv -> inv.getArgument(0));
 
 		Sweet out = sweetService.purchase(1L);
 		assertEquals(1, out.getQuantity());
+		verify(sweetRepository, never()).save(any(Sweet.class));
+	}
+
+	@Test
+	void purchase_out_of_stock() {
+		when(sweetRepository.decrementStock(1L, 1)).thenReturn(0);
+		when(sweetRepository.existsById(1L)).thenReturn(true);
+
+		assertThrows(IllegalArgumentException.class, () -> sweetService.purchase(1L));
+	}
+
+	@Test
+	void purchase_missing_sweet() {
+		when(sweetRepository.decrementStock(1L, 1)).thenReturn(0);
+		when(sweetRepository.existsById(1L)).thenReturn(false);
+
+		assertThrows(java.util.NoSuchElementException.class, () -> sweetService.purchase(1L));
 	}
 
 	@Test
@@ -48,11 +71,84 @@ class SweetServiceTest {
 		s.setPrice(new BigDecimal("10.00"));
 		s.setQuantity(1);
 		when(sweetRepository.findById(1L)).thenReturn(Optional.of(s));
-		when(sweetRepository.save(any(Sweet.class))).thenAnswer(inv -> inv.getArgument(0));
+		when(sweetRepository.saveAndFlush(any(Sweet.class))).thenAnswer(inv -> inv.getArgument(0));
 
 		Sweet out = sweetService.restock(1L, 3);
 		assertEquals(4, out.getQuantity());
 	}
-}
 
+	@Test
+	void checkout_merges_lines_and_reserves_in_id_order() {
+		Sweet a = new Sweet();
+		a.setId(2L);
+		Sweet b = new Sweet();
+		b.setId(7L);
+		when(sweetRepository.decrementStock(anyLong(), anyInt())).thenReturn(1);
+		when(sweetRepository.findAllById(any())).thenReturn(List.of(b, a));
+
+		List<Sweet> out = sweetService.checkout(List.of(
+				new CheckoutItem(7L, 1), new CheckoutItem(2L, 2), new CheckoutItem(7L, 3)));
 
+		InOrder inOrder = inOrder(sweetRepository);
+		inOrder.verify(sweetRepository).decrementStock(2L, 2);
+		inOrder.verify(sweetRepository).decrementStock(7L, 4);
+		assertEquals(List.of(2L, 7L), out.stream().map(Sweet::getId).toList());
+	}
+
+	@Test
+	void checkout_fails_whole_basket_when_a_line_is_short() {
+		when(sweetRepository.decrementStock(1L, 1)).thenReturn(1);
+		when(sweetRepository.decrementStock(2L, 5)).thenReturn(0);
+		when(sweetRepository.existsById(2L)).thenReturn(true);
+
+		assertThrows(IllegalArgumentException.class, () -> sweetService.checkout(List.of(
+				new CheckoutItem(1L, 1), new CheckoutItem(2L, 5))));
+		verify(sweetRepository, never()).findAllById(any());
+	}
+
+	@Test
+	void checkout_rejects_lines_whose_total_overflows() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> sweetService.checkout(List.of(
+				new CheckoutItem(1L, Integer.MAX_VALUE), new CheckoutItem(1L, 1))));
+		assertEquals("Quantity too large", e.getMessage());
+		verify(sweetRepository, never()).decrementStock(anyLong(), anyInt());
+	}
+
+	@Test
+	void purchase_in_memory_mode_skips_stock_update() {
+		StripedInventory inventory = mock(StripedInventory.class);
+		SweetService memoryService = new SweetService(sweetRepository, events, inventory, null, null, null);
+		Sweet s = new Sweet();
+		s.setId(1L);
+		s.setQuantity(10);
+		when(inventory.tryTake(1L, 1)).thenReturn(true);
+		when(inventory.stock(1L)).thenReturn(new StripedInventory.Stock(4, 1));
+		when(sweetRepository.findById(1L)).thenReturn(Optional.of(s));
+
+		Sweet out = memoryService.purchase(1L);
+		assertEquals(4, out.getQuantity());
+		assertEquals(10, s.getQuantity());
+		verify(sweetRepository, never()).decrementStock(anyLong(), anyInt());
+	}
+
+	@Test
+	void purchase_publishes_stock_change_and_order() {
+		Sweet s = new Sweet();
+		s.setId(1L);
+		s.setQuantity(7);
+		when(sweetRepository.decrementStock(1L, 3)).thenReturn(1);
+		when(sweetRepository.findById(1L)).thenReturn(Optional.of(s));
+
+		sweetService.purchase(1L, 3);
+
+		ArgumentCaptor<Object> published = ArgumentCaptor.forClass(Object.class);
+		verify(events, times(2)).publishEvent(published.capture());
+		SweetChangedEvent event = (SweetChangedEvent) published.getAllValues().get(0);
+		assertEquals(SweetChangedEvent.Kind.PURCHASED, event.getKind());
+		assertEquals(-3, event.getQuantityChange());
+		assertEquals(7, event.getSweet().getQuantity());
+		OrderPlacedEvent order = (OrderPlacedEvent) published.getAllValues().get(1);
+		assertEquals(1, order.getLines().size());
+		assertEquals(3, order.getLines().get(0).quantity());
+	}
+}
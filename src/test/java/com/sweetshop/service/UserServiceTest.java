@@ -8,19 +8,24 @@ import com.sweetshop.dto.RegisterRequest;
 import com.sweetshop.entity.Role;
 import com.sweetshop.entity.User;
 import com.sweetshop.repository.UserRepository;
+import com.sweetshop.security.PasswordHasher;
+import com.sweetshop.security.UserAuthCache;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 class UserServiceTest {
 
 	@Mock private UserRepository userRepository;
-	@Mock private PasswordEncoder passwordEncoder;
+	@Mock private PasswordHasher passwordHasher;
+	@Mock private UserAuthCache userAuthCache;
+	@Mock private KnownAccountsFilter knownAccounts;
 	@InjectMocks private UserService userService;
 
 	@BeforeEach
@@ -30,20 +35,48 @@ class UserServiceTest {
 
 	@Test
 	void register_success() {
-		RegisterRequest req = new RegisterRequest();
-		req.setUsername("john");
-		req.setEmail("john@example.com");
-		req.setPassword("secret123");
-		req.setRole(Role.USER);
-
-		when(userRepository.existsByUsername("john")).thenReturn(false);
-		when(userRepository.existsByEmail("john@example.com")).thenReturn(false);
-		when(passwordEncoder.encode("secret123")).thenReturn("HASH");
+		RegisterRequest req = request();
+		when(passwordHasher.encode("secret123")).thenReturn("HASH");
 		when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
 
 		User u = userService.registerNewUser(req);
 		assertEquals("john", u.getUsername());
 		assertEquals("HASH", u.getPasswordHash());
+		// Names the filter has never seen go straight to the insert
+		verify(userRepository, never()).findTakenFields(any(), any());
+		verify(knownAccounts).add("john", "john@example.com");
+	}
+
+	@Test
+	void register_rejects_a_known_name_before_hashing() {
+		when(knownAccounts.mightHaveUsername("john")).thenReturn(true);
+		when(userRepository.findTakenFields("john", "john@example.com")).thenReturn(List.of("username"));
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> userService.registerNewUser(request()));
+		assertEquals("Username already taken", e.getMessage());
+		verify(passwordHasher, never()).encode(any());
+		verify(userRepository, never()).save(any());
+	}
+
+	@Test
+	void register_translates_a_unique_constraint_violation() {
+		when(passwordHasher.encode("secret123")).thenReturn("HASH");
+		when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+		when(userRepository.findTakenFields("john", "john@example.com")).thenReturn(List.of("email"));
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> userService.registerNewUser(request()));
+		assertEquals("Email already registered", e.getMessage());
+		verify(knownAccounts, never()).add(any(), any());
+	}
+
+	@Test
+	void username_availability_only_queries_on_a_filter_hit() {
+		assertTrue(userService.isUsernameAvailable("fresh"));
+		verify(userRepository, never()).existsByUsername(any());
+
+		when(knownAccounts.mightHaveUsername("john")).thenReturn(true);
+		when(userRepository.existsByUsername("john")).thenReturn(true);
+		assertFalse(userService.isUsernameAvailable("john"));
 	}
 
 	@Test
@@ -57,7 +90,7 @@ class UserServiceTest {
 		u.setPasswordHash("HASH");
 
 		when(userRepository.findByUsernameOrEmail("john", "john")).thenReturn(Optional.of(u));
-		when(passwordEncoder.matches("secret", "HASH")).thenReturn(true);
+		when(passwordHasher.matches("secret", "HASH")).thenReturn(true);
 
 		User out = userService.authenticate(req);
 		assertEquals("john", out.getUsername());
@@ -68,6 +101,27 @@ class UserServiceTest {
 		when(userRepository.findByUsernameOrEmail("missing", "missing")).thenReturn(Optional.empty());
 		assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername("missing"));
 	}
-}
 
+	@Test
+	void changeRole_bumps_token_version_and_invalidates_cache() {
+		User u = new User();
+		u.setUsername("john");
+		u.setRole(Role.USER);
+		when(userRepository.findByUsername("john")).thenReturn(Optional.of(u));
+		when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+		User out = userService.changeRole("john", Role.ADMIN);
+		assertEquals(Role.ADMIN, out.getRole());
+		assertEquals(1, out.getTokenVersion());
+		verify(userAuthCache).invalidate("john");
+	}
 
+	private static RegisterRequest request() {
+		RegisterRequest req = new RegisterRequest();
+		req.setUsername("john");
+		req.setEmail("john@example.com");
+		req.setPassword("secret123");
+		req.setRole(Role.USER);
+		return req;
+	}
+}